@@ -66,7 +66,6 @@ import org.spout.vanilla.component.entity.player.HUD;
 import org.spout.vanilla.component.entity.player.Ping;
 import org.spout.vanilla.component.entity.player.PlayerHead;
 import org.spout.vanilla.component.entity.player.PlayerInteract;
-import org.spout.vanilla.component.entity.player.PlayerList;
 import org.spout.vanilla.component.entity.player.VanillaPlayerNetworkComponent;
 import org.spout.vanilla.component.entity.player.hud.VanillaArmorWidget;
 import org.spout.vanilla.component.entity.player.hud.VanillaCrosshair;
@@ -85,6 +84,7 @@ import org.spout.vanilla.event.player.PlayerDeathEvent;
 import org.spout.vanilla.material.block.redstone.RedstoneSource;
 import org.spout.vanilla.protocol.ClientAuthentification;
 import org.spout.vanilla.protocol.PasteExceptionHandler;
+import org.spout.vanilla.protocol.TabListBroadcaster;
 import org.spout.vanilla.protocol.entity.PlayerEntityProtocol;
 
 public class VanillaListener implements Listener {
@@ -109,7 +109,6 @@ public class VanillaListener implements Listener {
 		player.add(Human.class).setName(player.getName());
 		player.add(PlayerInventory.class);
 		player.add(WindowHolder.class);
-		player.add(PlayerList.class);
 		// TODO: Connection times out when using Spout Protocol because no Ping Message; need a Ping component client-side that somehow updates server
 		if (player.getNetwork() instanceof VanillaPlayerNetworkComponent) {
 			player.add(Ping.class);
@@ -214,15 +213,17 @@ public class VanillaListener implements Listener {
 	@EventHandler
 	public void onEntityHide(EntityHiddenEvent event) {
 		//TODO maps, sounds, etc.
-		if (event.getEntity() instanceof Player) {
-			event.getHiddenFrom().get(PlayerList.class).force();
+		TabListBroadcaster tabList = plugin.getTabList();
+		if (tabList != null) {
+			tabList.setHidden(event.getHiddenFrom(), event.getEntity(), true);
 		}
 	}
 
 	@EventHandler
 	public void onEntityShow(EntityShownEvent event) {
-		if (event.getEntity() instanceof Player) {
-			event.getHiddenFrom().get(PlayerList.class).force();
+		TabListBroadcaster tabList = plugin.getTabList();
+		if (tabList != null) {
+			tabList.setHidden(event.getHiddenFrom(), event.getEntity(), false);
 		}
 	}
 
@@ -56,6 +56,7 @@ import org.spout.api.plugin.Plugin;
 import org.spout.api.plugin.PluginLogger;
 import org.spout.api.plugin.services.ProtectionService;
 import org.spout.api.plugin.services.ServiceManager;
+import org.spout.api.scheduler.TaskPriority;
 import org.spout.api.util.FlatIterator;
 
 import org.spout.math.imaginary.Quaternionf;
@@ -65,6 +66,11 @@ import org.spout.vanilla.command.AdministrationCommands.TPSMonitor;
 import org.spout.vanilla.command.InputCommands;
 import org.spout.vanilla.command.QuickbarCommandExecutor;
 import org.spout.vanilla.command.TestCommands;
+import org.spout.vanilla.component.world.HopperEngine;
+import org.spout.vanilla.component.world.ItemTracker;
+import org.spout.vanilla.component.world.PlayerPositionIndex;
+import org.spout.vanilla.component.world.RailCache;
+import org.spout.vanilla.component.world.SpawnerActivation;
 import org.spout.vanilla.component.world.sky.NetherSky;
 import org.spout.vanilla.component.world.sky.NormalSky;
 import org.spout.vanilla.component.world.sky.TheEndSky;
@@ -74,6 +80,7 @@ import org.spout.vanilla.data.GameMode;
 import org.spout.vanilla.data.VanillaData;
 import org.spout.vanilla.data.configuration.VanillaConfiguration;
 import org.spout.vanilla.data.configuration.WorldConfigurationNode;
+import org.spout.vanilla.data.effect.EffectBuffer;
 import org.spout.vanilla.data.resources.RecipeYaml;
 import org.spout.vanilla.data.resources.loader.RecipeLoader;
 import org.spout.vanilla.inventory.recipe.VanillaRecipes;
@@ -81,6 +88,10 @@ import org.spout.vanilla.material.VanillaBlockMaterial;
 import org.spout.vanilla.material.VanillaMaterials;
 import org.spout.vanilla.material.enchantment.VanillaEnchantments;
 import org.spout.vanilla.protocol.LANThread;
+import org.spout.vanilla.protocol.LoginAuth;
+import org.spout.vanilla.protocol.MinecraftSessionVerifier;
+import org.spout.vanilla.protocol.TabListBroadcaster;
+import org.spout.vanilla.protocol.ViewDistanceController;
 import org.spout.vanilla.protocol.rcon.RemoteConnectionCore;
 import org.spout.vanilla.protocol.rcon.RemoteConnectionServer;
 import org.spout.vanilla.scoreboard.ScoreboardListener;
@@ -99,6 +110,10 @@ public class VanillaPlugin extends Plugin {
 	protected static VanillaPlugin instance;
 	protected VanillaConfiguration config;
 	private RemoteConnectionCore rcon;
+	private TabListBroadcaster tabList;
+	private EffectBuffer effectBuffer;
+	private ViewDistanceController viewDistance;
+	private LoginAuth loginAuth;
 	//Client only
 	//TODO Remove, seriously not secure.
 	private String username = "";
@@ -106,6 +121,11 @@ public class VanillaPlugin extends Plugin {
 
 	@Override
 	public void onDisable() {
+		closeRcon();
+		if (loginAuth != null) {
+			loginAuth.shutdown();
+			loginAuth = null;
+		}
 		instance = null;
 		getLogger().info("disabled");
 	}
@@ -168,6 +188,17 @@ public class VanillaPlugin extends Plugin {
 				break;
 			case SERVER:
 				setupWorlds();
+				final int authTimeout = VanillaConfiguration.AUTH_TIMEOUT.getInt();
+				loginAuth = new LoginAuth(new MinecraftSessionVerifier(authTimeout), VanillaConfiguration.AUTH_THREADS.getInt(), VanillaConfiguration.AUTH_QUEUE_SIZE.getInt(), authTimeout);
+				setupRcon();
+				tabList = new TabListBroadcaster((Server) getEngine());
+				getEngine().getScheduler().scheduleSyncRepeatingTask(this, tabList, 0, 50, TaskPriority.LOW);
+				effectBuffer = new EffectBuffer();
+				getEngine().getScheduler().scheduleSyncRepeatingTask(this, effectBuffer, 0, 50, TaskPriority.HIGH);
+				if (VanillaConfiguration.ADAPTIVE_VIEW_DISTANCE.getBoolean()) {
+					viewDistance = new ViewDistanceController(getEngine());
+					getEngine().getScheduler().scheduleSyncRepeatingTask(this, viewDistance, 0, 50, TaskPriority.LOW);
+				}
 				if (VanillaConfiguration.LAN_DISCOVERY.getBoolean()) {
 					final LANThread lanThread = new LANThread();
 					lanThread.start();
@@ -191,7 +222,6 @@ public class VanillaPlugin extends Plugin {
 		getLogger().info("v" + getDescription().getVersion() + " enabled. Protocol: " + getDescription().getData("protocol"));
 	}
 
-	@SuppressWarnings ("unused")
 	private void setupRcon() {
 		if (getEngine().getPlatform() == Platform.SERVER) {
 			RemoteConnectionServer server = new RemoteConnectionServer(getLogger(), getDataFolder());
@@ -200,7 +230,6 @@ public class VanillaPlugin extends Plugin {
 		}
 	}
 
-	@SuppressWarnings ("unused")
 	private void closeRcon() {
 		getEngine().getLogger().info("Shutting down rcon connections");
 		if (rcon != null) {
@@ -209,6 +238,7 @@ public class VanillaPlugin extends Plugin {
 			} catch (IOException e) {
 				getLogger().log(Level.SEVERE, "Error closing RCON channels: ", e);
 			}
+			rcon = null;
 		}
 	}
 
@@ -295,6 +325,21 @@ public class VanillaPlugin extends Plugin {
 			} else {
 				world.add(NormalSky.class);
 			}
+
+			// Wake up monster spawners only when players come near
+			world.add(SpawnerActivation.class);
+
+			// Move items through hoppers in batches per chunk column
+			world.add(HopperEngine.class);
+
+			// Shared player lookup for command block selectors
+			world.add(PlayerPositionIndex.class);
+
+			// Despawn and merge dropped items without ticking every item
+			world.add(ItemTracker.class);
+
+			// Rail shapes for minecarts following the track
+			world.add(RailCache.class);
 		}
 	}
 
@@ -329,6 +374,42 @@ public class VanillaPlugin extends Plugin {
 		return config;
 	}
 
+	/**
+	 * Gets the player list broadcaster, only available on the server
+	 *
+	 * @return the player list broadcaster, or null on the client
+	 */
+	public TabListBroadcaster getTabList() {
+		return tabList;
+	}
+
+	/**
+	 * Gets the buffer that sends the effects played during a tick, only available on the server
+	 *
+	 * @return the effect buffer, or null on the client
+	 */
+	public EffectBuffer getEffectBuffer() {
+		return effectBuffer;
+	}
+
+	/**
+	 * Gets the controller limiting the view distance while ticks overrun, only available on the server
+	 *
+	 * @return the view distance controller, or null on the client or when adaptive view distance is disabled
+	 */
+	public ViewDistanceController getViewDistanceController() {
+		return viewDistance;
+	}
+
+	/**
+	 * Gets the online mode login authentication pipeline, only available on the server
+	 *
+	 * @return the login authentication pipeline, or null on the client
+	 */
+	public LoginAuth getLoginAuth() {
+		return loginAuth;
+	}
+
 	public String getPrefix() {
 		return ((PluginLogger) getLogger()).getTag();
 	}
@@ -32,9 +32,22 @@ import java.util.Set;
 import org.spout.api.entity.Player;
 import org.spout.api.event.entity.EntityInteractEvent;
 import org.spout.api.event.player.PlayerInteractBlockEvent;
+import org.spout.api.inventory.Inventory;
+import org.spout.api.inventory.InventoryViewer;
+import org.spout.api.inventory.ItemStack;
 
 public abstract class ViewedBlockComponent extends VanillaBlockComponent {
 	protected final Set<Player> viewers = new HashSet<Player>();
+	/**
+	 * Wakes this component up whenever a slot of a viewed inventory changes
+	 */
+	protected final InventoryViewer waker = new InventoryViewer() {
+		@Override
+		public void onSlotSet(Inventory inventory, int slot, ItemStack item, ItemStack previous) {
+			wake();
+		}
+	};
+	private volatile boolean dormant = false;
 
 	/**
 	 * Opens a window for the given player.
@@ -63,6 +76,34 @@ public abstract class ViewedBlockComponent extends VanillaBlockComponent {
 		return viewers;
 	}
 
+	@Override
+	public boolean canTick() {
+		return !dormant;
+	}
+
+	/**
+	 * Checks whether this component stopped ticking because it can not make any progress
+	 *
+	 * @return true if dormant
+	 */
+	public boolean isDormant() {
+		return dormant;
+	}
+
+	/**
+	 * Stops ticking this component until {@link #wake()} is called
+	 */
+	protected void sleep() {
+		dormant = true;
+	}
+
+	/**
+	 * Resumes ticking this component
+	 */
+	public void wake() {
+		dormant = false;
+	}
+
 	@Override
 	public void onInteract(final EntityInteractEvent event) {
 		super.onInteract(event);
@@ -47,6 +47,8 @@ import org.spout.vanilla.material.VanillaMaterials;
  * Component that represents a Anvil in the world.
  */
 public class Beacon extends ViewedBlockComponent {
+	private float updateDelay;
+
 	/**
 	 * Returns the amount of levels on the pyramid below this Beacon, this will only account for up to a 4-level pyramid.
 	 *
@@ -81,7 +83,7 @@ public class Beacon extends ViewedBlockComponent {
 	 * @return time (in seconds) until beacon sends an update
 	 */
 	public float getUpdateDelay() {
-		return getData().get(VanillaData.UPDATE_DELAY);
+		return updateDelay;
 	}
 
 	/**
@@ -90,6 +92,7 @@ public class Beacon extends ViewedBlockComponent {
 	 * @param delay (in seconds) until beacon should send an update
 	 */
 	public void setUpdateDelay(float delay) {
+		updateDelay = delay;
 		getData().put(VanillaData.UPDATE_DELAY, delay);
 	}
 
@@ -127,6 +130,7 @@ public class Beacon extends ViewedBlockComponent {
 	 */
 	public void setPrimaryEffect(EntityEffectType type) {
 		getData().put(VanillaData.PRIMARY_EFFECT, type);
+		wake();
 	}
 
 	/**
@@ -216,13 +220,29 @@ public class Beacon extends ViewedBlockComponent {
 	}
 
 	private float pulseUpdateDelay(float dt) {
-		float delay = getUpdateDelay() - dt;
-		setUpdateDelay(delay);
-		return delay;
+		// Only kept in memory while ticking, persisted on every reset and when detached
+		updateDelay -= dt;
+		return updateDelay;
+	}
+
+	@Override
+	public void onAttached() {
+		updateDelay = getData().get(VanillaData.UPDATE_DELAY);
+	}
+
+	@Override
+	public void onDetached() {
+		getData().put(VanillaData.UPDATE_DELAY, updateDelay);
 	}
 
 	@Override
 	public void onTick(float dt) {
+		EntityEffectType primary = getPrimaryEffect();
+		if (primary == null || primary == EntityEffectType.NONE) {
+			// Nothing to apply until an effect is chosen
+			sleep();
+			return;
+		}
 		if (pulseUpdateDelay(dt) <= 0) {
 			doUpdate();
 		}
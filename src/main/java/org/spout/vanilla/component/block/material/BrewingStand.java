@@ -82,12 +82,16 @@ public class BrewingStand extends ViewedBlockComponent implements Container {
 						continue;
 					}
 					if (((PotionReagent) inventory.getInput().getMaterial()).getResult((PotionItem) output.getMaterial()) == null) {
+						sleep();
 						return;
 					}
 				}
 				input = inventory.getInput(); // Store input just in case it is later removed during the brewing process
 				setBrewTime(1);
 				inventory.addAmount(BrewingStandInventory.INPUT_SLOT, -1);
+			} else {
+				// Nothing to brew, wait until the inventory changes
+				sleep();
 			}
 		} else {
 			// Continue brewing
@@ -119,6 +123,16 @@ public class BrewingStand extends ViewedBlockComponent implements Container {
 		}
 	}
 
+	@Override
+	public void onAttached() {
+		getInventory().addViewer(waker);
+	}
+
+	@Override
+	public void onDetached() {
+		getInventory().removeViewer(waker);
+	}
+
 	@Override
 	public boolean open(Player player) {
 		BrewingStandOpenEvent event = player.getEngine().getEventManager().callEvent(new BrewingStandOpenEvent(this, player));
@@ -144,6 +158,9 @@ public class BrewingStand extends ViewedBlockComponent implements Container {
 
 	public void setBrewTime(float brewTime) {
 		getData().put(VanillaData.BREW_TIME, brewTime);
+		if (brewTime > 0) {
+			wake();
+		}
 		for (Player player : viewers) {
 			updateProgressArrow(player);
 		}
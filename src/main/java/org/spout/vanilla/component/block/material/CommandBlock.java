@@ -27,11 +27,10 @@
 package org.spout.vanilla.component.block.material;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import org.apache.commons.lang3.builder.ToStringBuilder;
 
@@ -47,6 +46,7 @@ import org.spout.api.event.server.PreCommandEvent;
 import org.spout.api.exception.CommandException;
 import org.spout.api.geo.World;
 import org.spout.api.geo.cuboid.Block;
+import org.spout.api.geo.cuboid.Chunk;
 import org.spout.api.geo.discrete.Point;
 import org.spout.api.lang.Locale;
 import org.spout.api.util.SpoutToStringStyle;
@@ -56,6 +56,7 @@ import org.spout.vanilla.VanillaPlugin;
 import org.spout.vanilla.component.block.VanillaBlockComponent;
 import org.spout.vanilla.component.entity.living.Human;
 import org.spout.vanilla.component.entity.misc.Level;
+import org.spout.vanilla.component.world.PlayerPositionIndex;
 import org.spout.vanilla.data.GameMode;
 import org.spout.vanilla.data.VanillaData;
 import org.spout.vanilla.data.configuration.VanillaConfiguration;
@@ -71,7 +72,9 @@ public class CommandBlock extends VanillaBlockComponent implements CommandSource
 	public static final String NEAREST_PLAYER = "" + TARGET_CHAR + NEAREST_PLAYER_CHAR;
 	public static final String RANDOM_PLAYER = "" + TARGET_CHAR + RANDOM_PLAYER_CHAR;
 	public static final String ALL_PLAYERS = "" + TARGET_CHAR + ALL_PLAYERS_CHAR;
+	private static final Random RANDOM = new Random();
 	private String name = "" + TARGET_CHAR;
+	private Program program;
 
 	/**
 	 * Sets the name displayed when a command is executed.
@@ -110,6 +113,7 @@ public class CommandBlock extends VanillaBlockComponent implements CommandSource
 		}
 
 		getData().put(VanillaData.COMMAND, cmd);
+		program = compile(cmd);
 	}
 
 	/**
@@ -170,6 +174,16 @@ public class CommandBlock extends VanillaBlockComponent implements CommandSource
 			return;
 		}
 
+		// Commands loaded from disk are compiled on their first run
+		Program program = this.program;
+		if (program == null || !program.command.equals(cmd)) {
+			program = compile(cmd);
+			this.program = program;
+		}
+		program.execute();
+	}
+
+	private Program compile(String cmd) {
 		char[] chars = cmd.toCharArray();
 		int targetIndex = -1;
 		for (int i = 0; i < chars.length; i++) {
@@ -179,81 +193,106 @@ public class CommandBlock extends VanillaBlockComponent implements CommandSource
 				break;
 			}
 		}
+		if (targetIndex == -1) {
+			return new Program(cmd, null, null);
+		}
 
-		List<String> cmds = new ArrayList<String>();
-		if (targetIndex != -1) {
+		// if we found a target, parse its arguments once
+		final String statement = getStatement(cmd, targetIndex);
+		final PlayerFilter filter = new PlayerFilter(statement);
+		try {
+			filter.init();
+		} catch (IllegalArgumentException e) {
+			Spout.getLogger().log(java.util.logging.Level.WARNING, "CommandBlock at "
+					+ getBlock().getPosition().toString() + " uses illegal syntax.", e);
+		}
 
-			// if we found a target, format the command
-			final String statement = getStatement(cmd, targetIndex);
-			final PlayerFilter filter = new PlayerFilter(statement);
-			try {
-				filter.init();
-			} catch (IllegalArgumentException e) {
-				Spout.getLogger().log(java.util.logging.Level.WARNING, "Could not execute CommandBlock at "
-						+ getBlock().getPosition().toString() + " because of illegal syntax.", e);
-			}
+		if (Spout.debugMode()) {
+			Spout.getLogger().info("Statement: " + statement);
+			Spout.getLogger().info("Corresponding Filter: " + filter);
+		}
+		return new Program(cmd, statement, filter);
+	}
 
-			if (Spout.debugMode()) {
-				Spout.getLogger().info("Statement: " + statement);
-				Spout.getLogger().info("Corresponding Filter: " + filter);
-			}
+	private static boolean isTarget(char c) {
+		return c == NEAREST_PLAYER_CHAR || c == RANDOM_PLAYER_CHAR || c == ALL_PLAYERS_CHAR;
+	}
+
+	private static String getStatement(String cmd, int index) {
+		cmd = cmd.substring(index);
+		if (cmd.length() > 6 && cmd.charAt(2) == '[' && cmd.contains("]")) {
+			return cmd.substring(0, cmd.indexOf("]") + 1);
+		}
+		return cmd.substring(0, 2);
+	}
 
-			final Point center = new Point(getBlock().getWorld(), filter.x, filter.y, filter.z);
-			final char target = statement.charAt(1);
-			final List<Player> allPlayers = Arrays.asList(((Server) Spout.getEngine()).getOnlinePlayers());
+	/**
+	 * A command split into its root and arguments, with its target selector parsed.
+	 */
+	private class Program {
+		private final String command;
+		private final String statement;
+		private final PlayerFilter filter;
+		private final String root;
+		private final String[] args;
+		private final boolean inline;
 
-			switch (target) {
+		private Program(String command, String statement, PlayerFilter filter) {
+			this.command = command;
+			this.statement = statement;
+			this.filter = filter;
+			this.root = command.split(" ")[0];
+			int argsIndex = command.indexOf(' ') + 1;
+			this.args = argsIndex > 0 ? command.substring(argsIndex).split(" ") : new String[0];
+			// Player names never contain spaces, so the statement can be replaced inside the split command
+			this.inline = statement == null || statement.indexOf(' ') == -1;
+		}
 
+		private void execute() {
+			if (filter == null) {
+				processCommand(root, args);
+				return;
+			}
+			switch (statement.charAt(1)) {
 				case NEAREST_PLAYER_CHAR:
-					// find the closest suitable player
-					List<Player> nearbyPlayers = center.getWorld().getNearbyPlayers(center, filter.maxRadius);
-					Player nearbyPlayer = filter.findPlayer(nearbyPlayers);
-					if (nearbyPlayer == null) {
-						return;
+					// find a suitable player nearby
+					Player nearbyPlayer = filter.findPlayer();
+					if (nearbyPlayer != null) {
+						execute(nearbyPlayer.getName());
 					}
-					cmds.add(cmd.replace(statement, nearbyPlayer.getName()));
 					break;
 
 				case RANDOM_PLAYER_CHAR:
 					// find a random but suitable player in any location
-					Collections.shuffle(allPlayers);
-					Player player = filter.findPlayer(allPlayers);
-					if (player == null) {
-						return;
+					Player player = filter.findRandom();
+					if (player != null) {
+						execute(player.getName());
 					}
-					cmds.add(cmd.replace(statement, player.getName()));
 					break;
 
 				case ALL_PLAYERS_CHAR:
 					// use all players, but filter out any players that are not suitable
-					for (Player p : filter.filter(allPlayers)) {
-						cmds.add(cmd.replace(statement, p.getName()));
+					for (Player p : filter.filter()) {
+						execute(p.getName());
 					}
 					break;
 			}
-		} else {
-			cmds.add(cmd);
-		}
-
-		for (String c : cmds) {
-			// send commands
-			String root = c.split(" ")[0];
-			int argsIndex = c.indexOf(' ') + 1;
-			String[] args = argsIndex > 0 ? c.substring(argsIndex).split(" ") : new String[0];
-			processCommand(root, args);
 		}
-	}
 
-	private static boolean isTarget(char c) {
-		return c == NEAREST_PLAYER_CHAR || c == RANDOM_PLAYER_CHAR || c == ALL_PLAYERS_CHAR;
-	}
-
-	private static String getStatement(String cmd, int index) {
-		cmd = cmd.substring(index);
-		if (cmd.length() > 6 && cmd.charAt(2) == '[' && cmd.contains("]")) {
-			return cmd.substring(0, cmd.indexOf("]") + 1);
+		private void execute(String name) {
+			if (!inline) {
+				String c = command.replace(statement, name);
+				String root = c.split(" ")[0];
+				int argsIndex = c.indexOf(' ') + 1;
+				processCommand(root, argsIndex > 0 ? c.substring(argsIndex).split(" ") : new String[0]);
+				return;
+			}
+			String[] targetArgs = new String[args.length];
+			for (int i = 0; i < args.length; i++) {
+				targetArgs[i] = args[i].replace(statement, name);
+			}
+			processCommand(root.replace(statement, name), targetArgs);
 		}
-		return cmd.substring(0, 2);
 	}
 
 	private class PlayerFilter {
@@ -275,6 +314,7 @@ public class CommandBlock extends VanillaBlockComponent implements CommandSource
 		private boolean teamNameInverted = false;
 		private final Map<String, Integer> minScores = new HashMap<String, Integer>();
 		private final Map<String, Integer> maxScores = new HashMap<String, Integer>();
+		private Point center;
 
 		public PlayerFilter(String statement) {
 			this.statement = statement;
@@ -386,33 +426,77 @@ public class CommandBlock extends VanillaBlockComponent implements CommandSource
 			}
 		}
 
-		public Player findPlayer(List<Player> players) {
-			for (Player p : players) {
-				if (accept(p)) {
+		/**
+		 * Finds the first suitable player near the search center in the world of the command block
+		 *
+		 * @return the player, or null if none is suitable
+		 */
+		public Player findPlayer() {
+			PlayerPositionIndex index = block.getWorld().get(PlayerPositionIndex.class);
+			if (index == null) {
+				for (Player p : block.getWorld().getNearbyPlayers(getCenter(), maxRadius)) {
+					if (accept(p)) {
+						return p;
+					}
+				}
+				return null;
+			}
+			// The snapshot is a tick old, look one chunk further so players that just walked into range are not missed
+			int radius = maxRadius < 0 ? maxRadius : maxRadius + Chunk.BLOCKS.SIZE;
+			for (PlayerPositionIndex.Entry entry : index.getNearbyPlayers(x, z, radius)) {
+				Player p = entry.getPlayer();
+				if (p.isOnline() && p.getWorld() == block.getWorld() && accept(p)) {
 					return p;
 				}
 			}
 			return null;
 		}
 
-		public List<Player> filter(List<Player> players) {
-			if (reversedList) {
-				Collections.reverse(players);
+		/**
+		 * Picks a random suitable player, every suitable player is equally likely to be picked
+		 *
+		 * @return the player, or null if none is suitable
+		 */
+		public Player findRandom() {
+			Player chosen = null;
+			int suitable = 0;
+			for (Player p : ((Server) Spout.getEngine()).getOnlinePlayers()) {
+				if (accept(p) && RANDOM.nextInt(++suitable) == 0) {
+					chosen = p;
+				}
 			}
+			return chosen;
+		}
+
+		public List<Player> filter() {
+			Player[] players = ((Server) Spout.getEngine()).getOnlinePlayers();
 			List<Player> filteredPlayers = new ArrayList<Player>();
-			int entries = 0;
-			for (Player player : players) {
-				if (accept(player) && (playerListSize == 0 || entries < playerListSize)) {
-					entries++;
-					filteredPlayers.add(player);
+			for (int i = 0; i < players.length && (playerListSize == 0 || filteredPlayers.size() < playerListSize); i++) {
+				Player p = players[reversedList ? players.length - 1 - i : i];
+				if (accept(p)) {
+					filteredPlayers.add(p);
 				}
 			}
 			return filteredPlayers;
 		}
 
+		private Point getCenter() {
+			Point center = this.center;
+			if (center == null) {
+				center = new Point(block.getWorld(), x, y, z);
+				this.center = center;
+			}
+			return center;
+		}
+
+		/**
+		 * Checks whether a player matches all arguments of this filter
+		 *
+		 * @param p to check
+		 * @return true if the player is suitable
+		 */
 		public boolean accept(Player p) {
-			Point center = new Point(block.getWorld(), x, y, z);
-			int distance = Math.round((float) p.getPhysics().getPosition().distance(center)); // the distance from the cmd block
+			int distance = Math.round((float) p.getPhysics().getPosition().distance(getCenter())); // the distance from the cmd block
 
 			// get various principles (these all default to true if not specified)
 			boolean closeEnough = (minRadius == -1 || distance >= minRadius) && (maxRadius == -1 || distance <= maxRadius);
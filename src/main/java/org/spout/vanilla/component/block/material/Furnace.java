@@ -139,6 +139,9 @@ public class Furnace extends ViewedBlockComponent implements Container {
 	 */
 	public void setFuel(float fuel) {
 		getData().put(VanillaData.FURNACE_FUEL, fuel);
+		if (fuel > 0) {
+			wake();
+		}
 		for (Player player : viewers) {
 			updateFireIcon(player);
 		}
@@ -230,7 +233,9 @@ public class Furnace extends ViewedBlockComponent implements Container {
 				return;
 			}
 
+			// Nothing to burn, wait until the inventory changes
 			setBurning(false);
+			sleep();
 		}
 		// Burning
 		else if (fuel > 0) {
@@ -270,6 +275,16 @@ public class Furnace extends ViewedBlockComponent implements Container {
 		}
 	}
 
+	@Override
+	public void onAttached() {
+		getInventory().addViewer(waker);
+	}
+
+	@Override
+	public void onDetached() {
+		getInventory().removeViewer(waker);
+	}
+
 	private void setBurning(boolean burning) {
 		VanillaMaterials.FURNACE.setBurning(getBlock(), burning);
 	}
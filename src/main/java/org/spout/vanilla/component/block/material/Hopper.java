@@ -26,37 +26,153 @@
  */
 package org.spout.vanilla.component.block.material;
 
+import org.spout.api.entity.Entity;
 import org.spout.api.entity.Player;
+import org.spout.api.geo.cuboid.Block;
+import org.spout.api.geo.discrete.Point;
 import org.spout.api.inventory.Container;
+import org.spout.api.inventory.Inventory;
+import org.spout.api.inventory.ItemStack;
+import org.spout.api.inventory.Slot;
+import org.spout.api.material.block.BlockFace;
+import org.spout.api.util.hashing.IntPairHashed;
 
 import org.spout.vanilla.component.block.ViewedBlockComponent;
 import org.spout.vanilla.component.entity.inventory.WindowHolder;
+import org.spout.vanilla.component.entity.substance.Item;
+import org.spout.vanilla.component.world.HopperEngine;
 import org.spout.vanilla.data.VanillaData;
 import org.spout.vanilla.event.inventory.HopperCloseEvent;
 import org.spout.vanilla.event.inventory.HopperOpenEvent;
+import org.spout.vanilla.inventory.block.FurnaceInventory;
 import org.spout.vanilla.inventory.block.HopperInventory;
+import org.spout.vanilla.inventory.util.HopperTransfer;
 import org.spout.vanilla.inventory.window.block.HopperWindow;
+import org.spout.vanilla.material.VanillaMaterials;
 
 /**
  * Component that represents any kind of Hopper.
  */
-public class Hopper extends ViewedBlockComponent implements Container {
+public class Hopper extends ViewedBlockComponent implements Container, HopperTransfer.Node {
+	private long column;
+	private volatile boolean powered;
+	private int cooldown = 0;
+
+	@Override
+	public void onAttached() {
+		Point point = getPoint();
+		column = IntPairHashed.key(point.getChunkX(), point.getChunkZ());
+		powered = getData().get(VanillaData.IS_POWERED);
+		HopperEngine engine = getTransferEngine();
+		if (engine != null) {
+			engine.register(this);
+		}
+	}
+
+	@Override
+	public void onDetached() {
+		HopperEngine engine = getTransferEngine();
+		if (engine != null) {
+			engine.unregister(this);
+		}
+	}
+
 	/**
 	 * Returns true if the block this component is attached to is currently powered
 	 *
 	 * @return true if the block is powered
 	 */
+	@Override
 	public boolean isPowered() {
-		return getData().get(VanillaData.IS_POWERED);
+		return powered;
 	}
 
 	/**
 	 * Sets the block as powered, or unpowered
 	 */
 	public void setPowered(boolean powered) {
+		if (this.powered == powered) {
+			return;
+		}
+		this.powered = powered;
 		getData().put(VanillaData.IS_POWERED, powered);
 	}
 
+	@Override
+	public long getColumn() {
+		return column;
+	}
+
+	@Override
+	public int getCooldown() {
+		return cooldown;
+	}
+
+	@Override
+	public void setCooldown(int cooldown) {
+		this.cooldown = cooldown;
+	}
+
+	@Override
+	public Slot[] getOutput() {
+		BlockFace facing = VanillaMaterials.HOPPER.getFacing(getBlock());
+		Container container = getBlock().translate(facing).getType(Container.class);
+		if (container == null) {
+			return null;
+		}
+		Inventory inventory = container.getInventory();
+		if (inventory instanceof FurnaceInventory) {
+			// Smelt what comes in from above, burn what comes in from the side
+			int slot = facing == BlockFace.BOTTOM ? FurnaceInventory.INGREDIENT_SLOT : FurnaceInventory.FUEL_SLOT;
+			return new Slot[] {new Slot(inventory, slot)};
+		}
+		return HopperTransfer.slots(inventory);
+	}
+
+	@Override
+	public Slot[] getInput() {
+		Container container = getBlock().translate(BlockFace.TOP).getType(Container.class);
+		if (container == null) {
+			return null;
+		}
+		Inventory inventory = container.getInventory();
+		if (inventory instanceof FurnaceInventory) {
+			// Only take finished results out of a furnace
+			return new Slot[] {new Slot(inventory, FurnaceInventory.OUTPUT_SLOT)};
+		}
+		return HopperTransfer.slots(inventory);
+	}
+
+	@Override
+	public boolean collectItems() {
+		Block above = getBlock().translate(BlockFace.TOP);
+		Slot[] slots = HopperTransfer.slots(getInventory());
+		boolean collected = false;
+		for (Entity entity : getOwner().getWorld().getNearbyEntities(above.getPosition(), 1)) {
+			Item item = entity.get(Item.class);
+			if (item == null || !item.canBeCollected()) {
+				continue;
+			}
+			Point position = entity.getPhysics().getPosition();
+			if (position.getBlockX() != above.getX() || position.getBlockY() != above.getY() || position.getBlockZ() != above.getZ()) {
+				continue;
+			}
+			ItemStack stack = item.getItemStack().clone();
+			while (!stack.isEmpty() && HopperTransfer.insert(stack, slots) != null) {
+				stack.setAmount(stack.getAmount() - 1);
+				collected = true;
+			}
+			if (stack.isEmpty()) {
+				entity.remove();
+			} else {
+				item.setItemStack(stack);
+				// The hopper is full
+				break;
+			}
+		}
+		return collected;
+	}
+
 	@Override
 	public HopperInventory getInventory() {
 		return getData().get(VanillaData.HOPPER_INVENTORY);
@@ -71,6 +187,10 @@ public class Hopper extends ViewedBlockComponent implements Container {
 		return false;
 	}
 
+	private HopperEngine getTransferEngine() {
+		return getOwner().getWorld().get(HopperEngine.class);
+	}
+
 	@Override
 	public boolean close(Player player) {
 		HopperCloseEvent event = player.getEngine().getEventManager().callEvent(new HopperCloseEvent(this, player));
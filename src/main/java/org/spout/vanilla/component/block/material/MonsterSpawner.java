@@ -34,37 +34,87 @@ import org.spout.api.geo.LoadOption;
 import org.spout.api.geo.discrete.Point;
 
 import org.spout.vanilla.component.block.VanillaBlockComponent;
+import org.spout.vanilla.component.world.SpawnerActivation;
 import org.spout.vanilla.data.VanillaData;
 import org.spout.vanilla.material.VanillaMaterials;
 import org.spout.vanilla.protocol.entity.creature.CreatureType;
 
 /**
- * Component that represents a Monster Spawner in the world.
+ * Component that represents a Monster Spawner in the world.<br><br>
+ *
+ * When the world has a {@link SpawnerActivation} component, the spawner sleeps while no player is in its activation zone, and continues its countdown where it stopped once it wakes up. The spawn
+ * delay is kept in a field and only written to the datatable when the spawner is detached, and read back once it is attached again.
  */
 public class MonsterSpawner extends VanillaBlockComponent {
 	private final Random random = new Random();
+	private volatile float spawnDelay;
+	private volatile boolean armed = true;
 
 	@Override
 	public void onAttached() {
-		resetSpawnDelay();
+		// Continue with the delay saved when the spawner was detached
+		if (getData().containsKey(VanillaData.SPAWN_DELAY.getKeyString())) {
+			spawnDelay = getData().get(VanillaData.SPAWN_DELAY);
+		} else {
+			resetSpawnDelay();
+		}
 		sendData();
+		SpawnerActivation activation = getActivation();
+		if (activation != null) {
+			activation.register(this);
+		}
+	}
+
+	@Override
+	public void onDetached() {
+		SpawnerActivation activation = getActivation();
+		if (activation != null) {
+			activation.unregister(this);
+		}
+		saveSpawnDelay();
 	}
 
 	@Override
 	public void onTick(float dt) {
-		if (isActive()) {
-			float spawnDelay = pulseSpawnDelay(dt);
-			if (spawnDelay <= 0) {
+		spawnDelay -= dt;
+		if (spawnDelay <= 0) {
+			// The activation zone is only chunk precise, so check the real radius before spawning
+			if (isActive()) {
 				doSpawn();
+			} else {
+				resetSpawnDelay();
 			}
-		} else {
-			resetSpawnDelay();
 		}
 	}
 
 	@Override
 	public boolean canTick() {
-		return true;
+		return armed;
+	}
+
+	/**
+	 * Arms or disarms this spawner. A disarmed spawner does not tick, its spawn delay is kept until it is armed again.
+	 *
+	 * @param armed whether a player is in the activation zone of this spawner
+	 */
+	public void setArmed(boolean armed) {
+		this.armed = armed;
+	}
+
+	/**
+	 * Returns whether this spawner is armed, meaning a player is in its activation zone.
+	 *
+	 * @return true if armed
+	 */
+	public boolean isArmed() {
+		return armed;
+	}
+
+	/**
+	 * Writes the current spawn delay to the datatable of this spawner.
+	 */
+	public void saveSpawnDelay() {
+		getData().put(VanillaData.SPAWN_DELAY, spawnDelay);
 	}
 
 	/**
@@ -236,6 +286,10 @@ public class MonsterSpawner extends VanillaBlockComponent {
 	 */
 	public void setRadius(int radius) {
 		getData().put(VanillaData.RADIUS, radius);
+		SpawnerActivation activation = getActivation();
+		if (activation != null) {
+			activation.register(this);
+		}
 	}
 
 	/**
@@ -262,7 +316,7 @@ public class MonsterSpawner extends VanillaBlockComponent {
 	 * @return time, in seconds, until next spawn
 	 */
 	public float getSpawnDelay() {
-		return getData().get(VanillaData.SPAWN_DELAY);
+		return spawnDelay;
 	}
 
 	/**
@@ -271,7 +325,7 @@ public class MonsterSpawner extends VanillaBlockComponent {
 	 * @param spawnDelay in seconds
 	 */
 	public void setSpawnDelay(float spawnDelay) {
-		getData().put(VanillaData.SPAWN_DELAY, spawnDelay);
+		this.spawnDelay = spawnDelay;
 	}
 
 	/**
@@ -282,10 +336,8 @@ public class MonsterSpawner extends VanillaBlockComponent {
 		setSpawnDelay(random.nextInt(max - min) + min);
 	}
 
-	private float pulseSpawnDelay(float dt) {
-		float delay = getSpawnDelay() - dt;
-		setSpawnDelay(delay);
-		return delay;
+	private SpawnerActivation getActivation() {
+		return getOwner().getWorld().get(SpawnerActivation.class);
 	}
 
 	private void sendData() {
@@ -72,6 +72,18 @@ public class WindowHolder extends EntityComponent {
 		this.activeWindow = defaultWindow;
 	}
 
+	@Override
+	public void onTick(float dt) {
+		// Send the slot changes of the last tick
+		Window active = activeWindow;
+		if (active != null) {
+			active.flush();
+		}
+		if (defaultWindow != null && defaultWindow != active) {
+			defaultWindow.flush();
+		}
+	}
+
 	@Override
 	public void onDetached() {
 		activeWindow.close();
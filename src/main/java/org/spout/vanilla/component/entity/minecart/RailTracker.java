@@ -26,17 +26,306 @@
  */
 package org.spout.vanilla.component.entity.minecart;
 
+import org.spout.api.entity.Entity;
+import org.spout.api.geo.World;
 import org.spout.api.geo.cuboid.Block;
+import org.spout.api.geo.discrete.Point;
+import org.spout.api.material.BlockMaterial;
+import org.spout.api.material.block.BlockFace;
+
+import org.spout.math.vector.Vector3f;
 import org.spout.vanilla.component.entity.VanillaEntityComponent;
+import org.spout.vanilla.component.world.RailCache;
+import org.spout.vanilla.data.RailsState;
+import org.spout.vanilla.material.block.rail.DetectorRail;
 
+/**
+ * Moves a minecart along the rails below it. The rail shapes are read from the {@link RailCache} of the world, so following the track does not touch block materials.<br><br>
+ *
+ * The minecart is kept on a path through the current rail block, from the side it entered to the side it moves towards. Slopes accelerate it downhill, powered rails boost or brake it, detector
+ * rails are activated and powered activator rails activate the {@link MinecartType} when it enters them.
+ */
 public class RailTracker extends VanillaEntityComponent {
-	private Block lastRail, currentRail;
+	/**
+	 * Maximum speed in blocks per second
+	 */
+	public static final float MAX_SPEED = 8.0f;
+	/**
+	 * Acceleration downhill on sloped rails in blocks per second squared
+	 */
+	public static final float SLOPE_ACCELERATION = 3.125f;
+	/**
+	 * Acceleration of powered rails in blocks per second squared
+	 */
+	public static final float BOOST_ACCELERATION = 24.0f;
+	/**
+	 * Speed a stationary minecart is pushed away from a block by powered rails in blocks per second
+	 */
+	public static final float BOOST_START_SPEED = 0.4f;
+	/**
+	 * Speed below which a minecart counts as stationary on powered rails in blocks per second
+	 */
+	private static final float STATIONARY_SPEED = 0.2f;
+	/**
+	 * Speed below which unpowered rails stop a minecart in blocks per second
+	 */
+	private static final float BRAKE_STOP_SPEED = 0.6f;
+	private static final double BRAKE_FACTOR = 0.5;
+	private static final double DRAG_FACTOR = 0.997;
+	private static final float RAIL_HEIGHT = 0.0625f;
+	private static final float SLOPE_LENGTH = 1.4142135f;
+	private static final float CURVE_LENGTH = 0.70710677f;
+	private static final int DETECTOR_INTERVAL = 20;
+	private boolean onRails = false;
+	private int x, y, z, rail;
+	private int lastX, lastY, lastZ;
+	private boolean hasLastRail = false;
+	private BlockFace heading = BlockFace.NORTH;
+	private float progress, speed;
+	private int restTicks;
+
+	/**
+	 * Moves the minecart along the rails it is on. If the minecart is not on rails yet, it is put onto the rail in the block it is in or the block below.
+	 *
+	 * @param dt time since the last tick in seconds
+	 * @return True if the minecart followed rails, False if there are no rails to follow
+	 */
+	public boolean follow(float dt) {
+		Entity owner = getOwner();
+		RailCache cache = owner.getWorld().get(RailCache.class);
+		if (cache == null) {
+			return false;
+		}
+		if (onRails) {
+			int current = cache.get(x, y, z);
+			if (current != rail) {
+				// The rail changed underneath, attach to it again
+				onRails = current != RailCache.NONE && RailCache.getState(current).isConnected(heading);
+				rail = current;
+			}
+		}
+		if (!onRails && !acquire(cache)) {
+			return false;
+		}
+		RailsState state = RailCache.getState(rail);
+		double ticks = dt * 20.0;
+		if (state.isSloped()) {
+			speed += (heading == state.getDirections()[0] ? -SLOPE_ACCELERATION : SLOPE_ACCELERATION) * dt;
+		}
+		if (RailCache.getKind(rail) == RailCache.KIND_POWERED) {
+			if (!RailCache.isPowered(rail)) {
+				speed = speed < BRAKE_STOP_SPEED ? 0.0f : (float) (speed * Math.pow(BRAKE_FACTOR, ticks));
+			} else if (speed > STATIONARY_SPEED) {
+				speed += BOOST_ACCELERATION * dt;
+			} else {
+				startBoost(owner.getWorld(), state);
+			}
+		}
+		if (speed < 0.0f) {
+			heading = getEntry(state, heading);
+			progress = 1.0f - progress;
+			speed = -speed;
+		}
+		speed = Math.min(MAX_SPEED, (float) (speed * Math.pow(DRAG_FACTOR, ticks)));
+		if (speed > 0.0f) {
+			restTicks = 0;
+			advance(cache, speed * dt);
+			place();
+		} else if (RailCache.getKind(rail) == RailCache.KIND_DETECTOR && ++restTicks % DETECTOR_INTERVAL == 0) {
+			// Keep the detector rail powered while resting on it
+			onEnter();
+		}
+		return true;
+	}
+
+	private boolean acquire(RailCache cache) {
+		Point position = getOwner().getPhysics().getPosition();
+		int bx = position.getBlockX();
+		int by = position.getBlockY();
+		int bz = position.getBlockZ();
+		int found = cache.get(bx, by, bz);
+		if (found == RailCache.NONE) {
+			found = cache.get(bx, --by, bz);
+			if (found == RailCache.NONE) {
+				return false;
+			}
+		}
+		x = bx;
+		y = by;
+		z = bz;
+		rail = found;
+		RailsState state = RailCache.getState(rail);
+		BlockFace[] directions = state.getDirections();
+		// Head into the direction the minecart was moving, if any
+		Vector3f velocity = getOwner().getPhysics().getMovementVelocity();
+		float along0 = velocity.dot(directions[0].getOffset());
+		float along1 = velocity.dot(directions[1].getOffset());
+		heading = along1 > along0 ? directions[1] : directions[0];
+		speed = Math.min(MAX_SPEED, Math.max(along0, along1));
+		// Project the position onto the path through the block
+		Vector3f from = getEntry(state, heading).getOffset().mul(0.5f);
+		Vector3f to = heading.getOffset().mul(0.5f);
+		float dx = to.getX() - from.getX();
+		float dz = to.getZ() - from.getZ();
+		float px = position.getX() - x - 0.5f - from.getX();
+		float pz = position.getZ() - z - 0.5f - from.getZ();
+		progress = Math.max(0.0f, Math.min(1.0f, (px * dx + pz * dz) / (dx * dx + dz * dz)));
+		onRails = true;
+		onEnter();
+		place();
+		return true;
+	}
+
+	private void advance(RailCache cache, float distance) {
+		while (distance > 0.0f) {
+			float length = getLength(RailCache.getState(rail));
+			float left = (1.0f - progress) * length;
+			if (distance < left) {
+				progress += distance / length;
+				return;
+			}
+			distance -= left;
+			progress = 1.0f;
+			if (!enterNext(cache)) {
+				// End of the track
+				speed = 0.0f;
+				return;
+			}
+		}
+	}
+
+	private boolean enterNext(RailCache cache) {
+		RailsState state = RailCache.getState(rail);
+		BlockFace entry = heading.getOpposite();
+		int nx = x + (int) heading.getOffset().getX();
+		int ny = y;
+		int nz = z + (int) heading.getOffset().getZ();
+		if (state.isSloped() && heading == state.getDirections()[0]) {
+			ny++;
+		}
+		int next = cache.get(nx, ny, nz);
+		if (next == RailCache.NONE || !RailCache.getState(next).isConnected(entry)) {
+			// A rail sloping down, rising towards this block
+			next = cache.get(nx, ny - 1, nz);
+			if (next == RailCache.NONE || !RailCache.getState(next).isSloped() || RailCache.getState(next).getDirections()[0] != entry) {
+				return false;
+			}
+			ny--;
+		}
+		lastX = x;
+		lastY = y;
+		lastZ = z;
+		hasLastRail = true;
+		x = nx;
+		y = ny;
+		z = nz;
+		rail = next;
+		heading = getEntry(RailCache.getState(next), entry);
+		progress = 0.0f;
+		onEnter();
+		return true;
+	}
+
+	private void onEnter() {
+		switch (RailCache.getKind(rail)) {
+			case RailCache.KIND_DETECTOR:
+				Block block = getCurrentRail();
+				BlockMaterial material = block.getMaterial();
+				if (material instanceof DetectorRail) {
+					((DetectorRail) material).activate(block);
+				}
+				break;
+			case RailCache.KIND_ACTIVATOR:
+				if (RailCache.isPowered(rail)) {
+					MinecartType type = getOwner().get(MinecartType.class);
+					if (type != null) {
+						type.onActivate();
+					}
+				}
+				break;
+		}
+	}
+
+	private void startBoost(World world, RailsState state) {
+		if (state.isSloped()) {
+			return;
+		}
+		for (BlockFace direction : state.getDirections()) {
+			Vector3f offset = direction.getOffset();
+			if (world.getBlockMaterial(x + (int) offset.getX(), y, z + (int) offset.getZ()).isPlacementObstacle()) {
+				heading = getEntry(state, direction);
+				speed = BOOST_START_SPEED;
+				return;
+			}
+		}
+	}
+
+	private void place() {
+		RailsState state = RailCache.getState(rail);
+		Vector3f from = getEntry(state, heading).getOffset();
+		Vector3f to = heading.getOffset();
+		float px = x + 0.5f + 0.5f * (from.getX() + (to.getX() - from.getX()) * progress);
+		float pz = z + 0.5f + 0.5f * (from.getZ() + (to.getZ() - from.getZ()) * progress);
+		float py = y + RAIL_HEIGHT;
+		if (state.isSloped()) {
+			py += heading == state.getDirections()[0] ? progress : 1.0f - progress;
+		}
+		getOwner().getPhysics().setPosition(new Point(getOwner().getWorld(), px, py, pz));
+	}
+
+	private static BlockFace getEntry(RailsState state, BlockFace heading) {
+		BlockFace[] directions = state.getDirections();
+		return directions[0] == heading ? directions[1] : directions[0];
+	}
+
+	private static float getLength(RailsState state) {
+		if (state.isSloped()) {
+			return SLOPE_LENGTH;
+		}
+		return state.isCurved() ? CURVE_LENGTH : 1.0f;
+	}
+
+	/**
+	 * Gets whether the minecart is following rails
+	 *
+	 * @return True if on rails
+	 */
+	public boolean isOnRails() {
+		return onRails;
+	}
+
+	/**
+	 * Gets the speed along the rails
+	 *
+	 * @return speed in blocks per second
+	 */
+	public float getSpeed() {
+		return speed;
+	}
+
+	/**
+	 * Sets the speed along the rails, into the direction the minecart is heading
+	 *
+	 * @param speed in blocks per second
+	 */
+	public void setSpeed(float speed) {
+		this.speed = Math.min(MAX_SPEED, speed);
+	}
+
+	/**
+	 * Gets the direction the minecart is moving towards on the current rail
+	 *
+	 * @return heading
+	 */
+	public BlockFace getHeading() {
+		return heading;
+	}
 
 	public Block getLastRail() {
-		return lastRail;
+		return hasLastRail ? getOwner().getWorld().getBlock(lastX, lastY, lastZ) : null;
 	}
 
 	public Block getCurrentRail() {
-		return currentRail;
+		return onRails ? getOwner().getWorld().getBlock(x, y, z) : null;
 	}
 }
@@ -28,6 +28,7 @@ package org.spout.vanilla.component.entity.misc;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.logging.Level;
 
@@ -50,11 +51,17 @@ import org.spout.vanilla.data.Metadata;
  */
 public class MetadataComponent extends VanillaEntityComponent {
 	private final TByteObjectHashMap<Metadata<?>> meta = new TByteObjectHashMap<>();
+	// Parameters changed since the last collection, shared by all viewers of the same tick
+	private volatile List<Parameter<?>> updates = Collections.emptyList();
+	// World age of the tick the updates were collected in
+	private volatile long updatesAge = -1L;
 
 	@Override
 	public void onDetached() {
 		// Clear all metadata - it is no longer valid at this point
 		meta.clear();
+		updates = Collections.emptyList();
+		updatesAge = -1L;
 	}
 
 	/**
@@ -133,6 +140,18 @@ public class MetadataComponent extends VanillaEntityComponent {
 		meta.put((byte) (metadata.getIndex() & 255), metadata);
 	}
 
+	/**
+	 * Marks a Metadata entry as changed, so it is sent with the next update even if its value equals the last sent value
+	 *
+	 * @param index of the metadata parameter
+	 */
+	public void markDirty(int index) {
+		Metadata<?> metadata = getMeta(index);
+		if (metadata != null) {
+			metadata.markDirty();
+		}
+	}
+
 	/**
 	 * Removes a Metadata entry so it is no longer being updated
 	 * 
@@ -185,20 +204,23 @@ public class MetadataComponent extends VanillaEntityComponent {
 	}
 
 	/**
-	 * Gets all Parameters used for updating the Entity owner of this Metadata Component
+	 * Gets the Parameters that changed since they were last collected. They are collected by the first call of a tick, every other call during the same tick returns the same List. An empty List
+	 * is returned if nothing changed.
 	 *
-	 * @return List of update Parameters
+	 * @return unmodifiable List of update Parameters
 	 */
 	@ServerOnly
 	public List<Parameter<?>> getUpdateParameters() {
-		List<Parameter<?>> parameters = new ArrayList<>();
-		for (Metadata<?> metadata : meta.valueCollection()) {
-			Parameter<?> updateParam = metadata.getUpdateParameter();
-			if (updateParam != null) {
-				parameters.add(updateParam);
+		final long age = getOwner().getWorld().getAge();
+		if (updatesAge != age) {
+			synchronized (meta) {
+				if (updatesAge != age) {
+					updates = collectUpdateParameters();
+					updatesAge = age;
+				}
 			}
 		}
-		return parameters;
+		return updates;
 	}
 
 	@Override
@@ -206,6 +228,20 @@ public class MetadataComponent extends VanillaEntityComponent {
 		return false;
 	}
 
+	private List<Parameter<?>> collectUpdateParameters() {
+		List<Parameter<?>> parameters = null;
+		for (Metadata<?> metadata : meta.valueCollection()) {
+			Parameter<?> updateParam = metadata.getUpdateParameter();
+			if (updateParam != null) {
+				if (parameters == null) {
+					parameters = new ArrayList<>();
+				}
+				parameters.add(updateParam);
+			}
+		}
+		return parameters == null ? Collections.<Parameter<?>>emptyList() : Collections.unmodifiableList(parameters);
+	}
+
 	@SuppressWarnings ("unchecked")
 	private <T> Metadata<T> getMeta(int index) {
 		return (Metadata<T>) meta.get((byte) (index & 255));
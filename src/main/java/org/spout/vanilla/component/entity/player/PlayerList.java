@@ -26,27 +26,19 @@
  */
 package org.spout.vanilla.component.entity.player;
 
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
-
 import org.spout.api.Server;
 import org.spout.api.entity.Player;
 
 import org.spout.vanilla.component.entity.VanillaEntityComponent;
-import org.spout.vanilla.event.player.network.ListPingEvent;
+import org.spout.vanilla.protocol.TabListBroadcaster;
 
 /**
  * Component that handles the Player list (TAB) list.
+ *
+ * @deprecated the list is kept up to date for all players by the {@link TabListBroadcaster}, this component no longer does anything
  */
+@Deprecated
 public class PlayerList extends VanillaEntityComponent {
-	private Player player;
-	private Server server;
-	private final LinkedHashMap<String, Long> players = new LinkedHashMap<String, Long>();
-	private final HashSet<String> temp = new HashSet<String>();
-	private float timer = 0;
-	private boolean force; // If true will force the list on the next tick
-
 	@Override
 	public void onAttached() {
 		if (!(getOwner() instanceof Player)) {
@@ -55,52 +47,14 @@ public class PlayerList extends VanillaEntityComponent {
 		if (!(getOwner().getEngine() instanceof Server)) {
 			throw new IllegalStateException("Player list components may only be attached server side");
 		}
-		server = (Server) getOwner().getEngine();
-		player = (Player) getOwner();
-	}
-
-	@Override
-	public void onTick(float dt) {
-		timer -= dt;
-		if (timer < 0.0F) {
-			pollList();
-			float pollPeriod = 5F;
-			timer += pollPeriod;
-		} else if (force) {
-			pollList();
-			force = false;
-		}
-	}
-
-	private void pollList() {
-		Player[] online = server.getOnlinePlayers();
-		temp.clear();
-		for (int i = 0; i < online.length; i++) {
-			Ping pingComponent = online[i].get(Ping.class);
-			if (pingComponent != null && !player.isInvisible(online[i])) {
-				String name = online[i].getDisplayName();
-				long ping = (long) (1000.0F * pingComponent.getPing());
-				temp.add(name);
-				Long oldPing = players.put(name, ping);
-				if (oldPing == null || !oldPing.equals(ping)) {
-					player.getNetwork().callProtocolEvent(new ListPingEvent(name, ping, true));
-				}
-			}
-		}
-		Iterator<String> itr = players.keySet().iterator();
-		while (itr.hasNext()) {
-			String name = itr.next();
-			if (!temp.contains(name)) {
-				player.getNetwork().callProtocolEvent(new ListPingEvent(name, 0L, false));
-				itr.remove();
-			}
-		}
 	}
 
 	/**
 	 * Force a update of the list.
+	 *
+	 * @deprecated changes are sent on the next tick without forcing
 	 */
+	@Deprecated
 	public void force() {
-		force = true;
 	}
 }
@@ -30,9 +30,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import gnu.trove.set.TIntSet;
+import gnu.trove.set.hash.TIntHashSet;
 
 import org.spout.api.Platform;
 import org.spout.api.Spout;
@@ -125,10 +128,14 @@ import org.spout.vanilla.material.VanillaMaterials;
 import org.spout.vanilla.material.block.component.TileMaterial;
 import org.spout.vanilla.protocol.EntityProtocol;
 import org.spout.vanilla.protocol.VanillaNetworkProtocol;
+import org.spout.vanilla.protocol.ViewDistanceController;
 import org.spout.vanilla.protocol.container.VanillaContainer;
 import org.spout.vanilla.protocol.entity.PlayerEntityProtocol;
+import org.spout.vanilla.protocol.entity.VanillaEntityProtocol;
+import org.spout.vanilla.protocol.handler.player.pos.PositionTracker;
 import org.spout.vanilla.protocol.msg.VanillaBlockDataChannelMessage;
 import org.spout.vanilla.protocol.msg.entity.EntityAnimationMessage;
+import org.spout.vanilla.protocol.msg.entity.EntityDestroyMessage;
 import org.spout.vanilla.protocol.msg.entity.EntityEquipmentMessage;
 import org.spout.vanilla.protocol.msg.entity.EntityItemDataMessage;
 import org.spout.vanilla.protocol.msg.entity.EntityMetadataMessage;
@@ -168,6 +175,7 @@ import org.spout.vanilla.protocol.msg.world.block.SignMessage;
 import org.spout.vanilla.protocol.msg.world.chunk.ChunkDataMessage;
 import org.spout.vanilla.protocol.reposition.VanillaRepositionManager;
 import org.spout.vanilla.scoreboard.Objective;
+import org.spout.vanilla.scoreboard.Scoreboard;
 import org.spout.vanilla.scoreboard.Team;
 import org.spout.vanilla.world.generator.biome.VanillaBiome;
 import org.spout.vanilla.world.lighting.VanillaCuboidLightBuffer;
@@ -217,6 +225,14 @@ public class VanillaPlayerNetworkComponent extends PlayerNetworkComponent implem
 	private int stepY = 160;
 	private int offsetY = 0;
 	private final VanillaRepositionManager vrm = new VanillaRepositionManager();
+	// Entity ids despawned during this tick, sent as batched destroy messages
+	private final TIntHashSet pendingDestroys = new TIntHashSet();
+	private static final int MAX_DESTROY_IDS = Byte.MAX_VALUE;
+	private final PositionTracker positionTracker = new PositionTracker();
+	// Columns unloaded by the client because of the view distance limit while Spout still observes them, with the chunk heights that were sent
+	private final Map<Long, TIntSet> limitedColumns = new ConcurrentHashMap<Long, TIntSet>();
+	private int appliedLimit = -1;
+	private long limitColumn = 0L;
 
 	static {
 		int i = 0;
@@ -247,6 +263,15 @@ public class VanillaPlayerNetworkComponent extends PlayerNetworkComponent implem
 		Spout.getEventManager().registerEvents(this, VanillaPlugin.getInstance());
 	}
 
+	/**
+	 * Gets the movement history of the player, as reported by the client
+	 *
+	 * @return position tracker
+	 */
+	public PositionTracker getPositionTracker() {
+		return positionTracker;
+	}
+
 	@EventHandler (order = Order.MONITOR)
 	public void onChunkFree(ChunkFreeEvent event) {
 		freeChunk(event.getPoint());
@@ -272,6 +297,13 @@ public class VanillaPlayerNetworkComponent extends PlayerNetworkComponent implem
 				emptyColumns.add(IntPairHashed.key(x, z));
 			}
 		}
+		TIntSet limited = limitedColumns.get(IntPairHashed.key(x, z));
+		if (limited != null) {
+			limited.remove(y);
+			if (limited.isEmpty()) {
+				limitedColumns.remove(IntPairHashed.key(x, z));
+			}
+		}
 	}
 
 	/**
@@ -282,6 +314,8 @@ public class VanillaPlayerNetworkComponent extends PlayerNetworkComponent implem
 		this.emptyColumns.clear();
 		this.activeColumns.clear();
 		this.initChunks.clear();
+		this.limitedColumns.clear();
+		this.appliedLimit = -1;
 	}
 
 	private void initChunkRaw(Point p) {
@@ -570,6 +604,8 @@ public class VanillaPlayerNetworkComponent extends PlayerNetworkComponent implem
 	public void preSnapshotRun(Transform live) {
 		super.preSnapshotRun(live);
 
+		applyViewDistanceLimit(live.getPosition());
+
 		Long key;
 		while ((key = this.emptyColumns.poll()) != null) {
 			int x = IntPairHashed.key1(key);
@@ -581,6 +617,34 @@ public class VanillaPlayerNetworkComponent extends PlayerNetworkComponent implem
 				getSession().send(new ChunkDataMessage(x, z, true, null, null, null, true, getSession(), getRepositionManager()));
 			}
 		}
+
+		flushDestroys();
+
+		Scoreboard scoreboard = getOwner().get(Scoreboard.class);
+		if (scoreboard != null) {
+			scoreboard.flush();
+		}
+	}
+
+	/**
+	 * Sends all entity ids destroyed since the last flush, packed into as few
+	 * {@link EntityDestroyMessage}s as the protocol allows.
+	 */
+	private void flushDestroys() {
+		int[] ids;
+		synchronized (pendingDestroys) {
+			if (pendingDestroys.isEmpty()) {
+				return;
+			}
+			ids = pendingDestroys.toArray();
+			pendingDestroys.clear();
+		}
+		for (int offset = 0; offset < ids.length; offset += MAX_DESTROY_IDS) {
+			int length = Math.min(MAX_DESTROY_IDS, ids.length - offset);
+			int[] batch = new int[length];
+			System.arraycopy(ids, offset, batch, 0, length);
+			getSession().send(new EntityDestroyMessage(batch));
+		}
 	}
 
 	@EventHandler
@@ -637,9 +701,24 @@ public class VanillaPlayerNetworkComponent extends PlayerNetworkComponent implem
 			// Sync using vanilla protocol
 			List<Message> messages = new ArrayList<Message>();
 			if (destroy) {
-				messages.addAll(ep.getDestroyMessages(e));
+				if (ep instanceof VanillaEntityProtocol) {
+					// Deferred until the end of the tick so that all despawns go out together
+					synchronized (pendingDestroys) {
+						pendingDestroys.add(e.getId());
+					}
+				} else {
+					messages.addAll(ep.getDestroyMessages(e));
+				}
 			}
 			if (spawn) {
+				boolean respawned;
+				synchronized (pendingDestroys) {
+					respawned = pendingDestroys.remove(e.getId());
+				}
+				if (respawned) {
+					// The client still knows the old entity, destroy it before spawning again
+					messages.add(new EntityDestroyMessage(new int[]{e.getId()}));
+				}
 				messages.addAll(ep.getSpawnMessages(e, getRepositionManager()));
 			}
 			if (update) {
@@ -666,7 +745,7 @@ public class VanillaPlayerNetworkComponent extends PlayerNetworkComponent implem
 
 		int convertY = rmI.convertChunkY(0);
 
-		return new FlatIterator(cx, convertY, cz, 16, viewDistance);
+		return new FlatIterator(cx, convertY, cz, 16, limitViewDistance(viewDistance));
 	}
 
 	@Override
@@ -675,7 +754,78 @@ public class VanillaPlayerNetworkComponent extends PlayerNetworkComponent implem
 			return false;
 		}
 		int distance = Math.abs(playerChunkBase.getChunkX() - testChunkBase.getChunkX()) + Math.abs(playerChunkBase.getChunkZ() - testChunkBase.getChunkZ());
-		return distance <= viewDistance;
+		return distance <= limitViewDistance(viewDistance);
+	}
+
+	/**
+	 * Unloads the columns beyond the view distance limit and sends the ones that are within it again.<br>
+	 * Spout only checks the view volume when the player moves to another chunk, so without this a player standing still would keep all chunks when the limit drops and get none back when it
+	 * rises.
+	 *
+	 * @param position of the player
+	 */
+	private void applyViewDistanceLimit(Point position) {
+		ViewDistanceController controller = VanillaPlugin.getInstance().getViewDistanceController();
+		if (controller == null) {
+			return;
+		}
+		final int limit = controller.getDistance();
+		final int cx = position.getChunkX();
+		final int cz = position.getChunkZ();
+		final long column = IntPairHashed.key(cx, cz);
+		if (limit == appliedLimit && column == limitColumn) {
+			return;
+		}
+		if (appliedLimit != -1 && limit < appliedLimit) {
+			// Chunks beyond the old limit were never sent, one extra ring covers a move to the next chunk
+			int radius = appliedLimit + 1;
+			for (int x = cx - radius; x <= cx + radius; x++) {
+				for (int z = cz - radius; z <= cz + radius; z++) {
+					if (Math.abs(x - cx) + Math.abs(z - cz) <= limit) {
+						continue;
+					}
+					TSyncIntHashSet sent = initChunks.remove(x, z);
+					if (sent == null) {
+						continue;
+					}
+					activeColumns.remove(x, z);
+					if (!sent.isEmpty()) {
+						limitedColumns.put(IntPairHashed.key(x, z), sent);
+					}
+					getSession().send(new ChunkDataMessage(x, z, true, null, null, null, true, getSession(), getRepositionManager()));
+				}
+			}
+		}
+		Iterator<Map.Entry<Long, TIntSet>> iter = limitedColumns.entrySet().iterator();
+		while (iter.hasNext()) {
+			Map.Entry<Long, TIntSet> next = iter.next();
+			int x = IntPairHashed.key1(next.getKey());
+			int z = IntPairHashed.key2(next.getKey());
+			if (Math.abs(x - cx) + Math.abs(z - cz) > limit) {
+				continue;
+			}
+			TIntSet sent = next.getValue();
+			for (int y : sent.toArray()) {
+				Chunk c = position.getWorld().getChunk(x, y, z, LoadOption.NO_LOAD);
+				if (c == null) {
+					// Spout frees the chunk as well
+					sent.remove(y);
+				} else if (canSendChunk(c)) {
+					doSendChunk(c);
+					sent.remove(y);
+				}
+			}
+			if (sent.isEmpty()) {
+				iter.remove();
+			}
+		}
+		appliedLimit = limit;
+		limitColumn = column;
+	}
+
+	private static int limitViewDistance(int viewDistance) {
+		ViewDistanceController controller = VanillaPlugin.getInstance().getViewDistanceController();
+		return controller == null ? viewDistance : controller.limit(viewDistance);
 	}
 
 	public enum ChunkInit {
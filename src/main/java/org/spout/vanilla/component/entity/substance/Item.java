@@ -37,6 +37,7 @@ import org.spout.math.vector.Vector3f;
 import org.spout.physics.collision.shape.BoxShape;
 import org.spout.vanilla.component.entity.misc.Health;
 import org.spout.vanilla.component.entity.misc.MetadataComponent;
+import org.spout.vanilla.component.world.ItemTracker;
 import org.spout.vanilla.data.Metadata;
 import org.spout.vanilla.data.VanillaData;
 import org.spout.vanilla.data.configuration.VanillaConfiguration;
@@ -49,6 +50,8 @@ public class Item extends Substance {
 	 */
 	public static final long DROP_PICKUP_DELAY = 495;
 	private float timeLeft = VanillaConfiguration.ITEM_SPAWN_TIME.getFloat();
+	private ItemTracker tracker;
+	private volatile boolean tracked = false;
 
 	@Override
 	public void onAttached() {
@@ -62,11 +65,22 @@ public class Item extends Substance {
 
 		// Add metadata for ItemStack contained
 		getOwner().add(MetadataComponent.class).addMeta(Metadata.TYPE_ITEM, 10, Data.HELD_ITEM);
+
+		// Despawned by the tracker of the world, items only tick on their own when there is none.
+		// Tracking starts on the first tick, so items that are created but never spawned are not tracked.
+		tracker = getOwner().getWorld().get(ItemTracker.class);
+	}
+
+	@Override
+	public void onDetached() {
+		if (tracker != null) {
+			tracker.untrack(this);
+		}
 	}
 
 	@Override
 	public boolean canTick() {
-		return true;
+		return !tracked;
 	}
 
 	public ItemStack getItemStack() {
@@ -75,6 +89,8 @@ public class Item extends Substance {
 
 	public void setItemStack(ItemStack stack) {
 		getData().put(Data.HELD_ITEM, stack);
+		// the stack may be the same instance, modified in place
+		getOwner().add(MetadataComponent.class).markDirty(10);
 	}
 
 	/**
@@ -145,6 +161,11 @@ public class Item extends Substance {
 
 	@Override
 	public void onTick(float dt) {
+		if (tracker != null) {
+			tracker.track(this, (long) (timeLeft * 20));
+			tracked = true;
+			return;
+		}
 		timeLeft -= dt;
 		if (timeLeft <= 0.05) {
 			getOwner().remove();
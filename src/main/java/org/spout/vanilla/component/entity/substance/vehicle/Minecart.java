@@ -32,9 +32,9 @@ import org.spout.api.inventory.ItemStack;
 import org.spout.api.material.BlockMaterial;
 import org.spout.api.material.Material;
 
-import org.spout.math.vector.Vector3f;
 import org.spout.physics.collision.shape.BoxShape;
 import org.spout.vanilla.component.entity.minecart.MinecartType;
+import org.spout.vanilla.component.entity.minecart.RailTracker;
 import org.spout.vanilla.component.entity.minecart.type.RideableMinecartType;
 import org.spout.vanilla.component.entity.misc.DeathDrops;
 import org.spout.vanilla.component.entity.misc.MetadataComponent;
@@ -125,7 +125,8 @@ public class Minecart extends VehicleSubstance {
 			setShakingForce(shakeForce - 1);
 		}
 
-		getOwner().getPhysics().setMovementVelocity(new Vector3f(0.2, 0.0, 0.0));
+		// Follow the rails, if any
+		getOwner().add(RailTracker.class).follow(dt);
 	}
 
 	@Override
@@ -0,0 +1,74 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.component.world;
+
+import org.spout.vanilla.component.block.material.Hopper;
+import org.spout.vanilla.inventory.util.HopperTransfer;
+
+/**
+ * Moves items through all {@link Hopper}s of a world, one batched pass per chunk column every tick instead of one task per hopper.
+ */
+public class HopperEngine extends VanillaWorldComponent {
+	private final HopperTransfer transfer = new HopperTransfer();
+
+	@Override
+	public boolean canTick() {
+		return transfer.size() > 0;
+	}
+
+	@Override
+	public void onTick(float dt) {
+		transfer.tick();
+	}
+
+	/**
+	 * Starts moving items through the given hopper
+	 *
+	 * @param hopper to add
+	 */
+	public void register(Hopper hopper) {
+		transfer.add(hopper);
+	}
+
+	/**
+	 * Stops moving items through the given hopper
+	 *
+	 * @param hopper to remove
+	 */
+	public void unregister(Hopper hopper) {
+		transfer.remove(hopper);
+	}
+
+	/**
+	 * Gets the transfer batches of this world
+	 *
+	 * @return hopper transfer
+	 */
+	public HopperTransfer getTransfer() {
+		return transfer;
+	}
+}
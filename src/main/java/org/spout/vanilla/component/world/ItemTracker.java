@@ -0,0 +1,256 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.component.world;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.spout.api.geo.cuboid.Region;
+import org.spout.api.geo.discrete.Point;
+import org.spout.api.inventory.ItemStack;
+import org.spout.api.util.hashing.IntPairHashed;
+
+import org.spout.vanilla.component.entity.substance.Item;
+import org.spout.vanilla.data.configuration.VanillaConfiguration;
+import org.spout.vanilla.util.TimingWheel;
+
+/**
+ * Despawns and merges the dropped {@link Item}s of a world.<br><br>
+ *
+ * Items are grouped by the region column they were dropped in. Every group has its own {@link TimingWheel} that removes items once their despawn time passed, so items do not have to tick
+ * on their own. Every {@link #MERGE_INTERVAL} ticks the items of a group that lie close to each other and hold the same kind of item are merged into a single entity, up to the stack limit.
+ */
+public class ItemTracker extends VanillaWorldComponent {
+	/**
+	 * Amount of ticks between two merge passes
+	 */
+	public static final int MERGE_INTERVAL = 10;
+	private static final int WHEEL_SLOTS = 256;
+	private static final Comparator<Candidate> BY_X = new Comparator<Candidate>() {
+		@Override
+		public int compare(Candidate a, Candidate b) {
+			return Float.compare(a.x, b.x);
+		}
+	};
+	private final Map<Long, Group> groups = new HashMap<Long, Group>();
+	private final Map<Item, Tracked> tracked = new HashMap<Item, Tracked>();
+	private final float mergeRadius = VanillaConfiguration.ITEM_MERGE_RADIUS.getFloat();
+	private int ticks = 0;
+
+	@Override
+	public boolean canTick() {
+		return true;
+	}
+
+	@Override
+	public synchronized void onTick(float dt) {
+		ticks++;
+		boolean merge = mergeRadius > 0 && ticks % MERGE_INTERVAL == 0;
+		Iterator<Group> iter = groups.values().iterator();
+		while (iter.hasNext()) {
+			Group group = iter.next();
+			for (Item item : group.wheel.advance()) {
+				untrack(item, group);
+				if (!item.getOwner().isRemoved()) {
+					item.getOwner().remove();
+				}
+			}
+			if (merge) {
+				merge(group);
+			}
+			if (group.items.isEmpty()) {
+				iter.remove();
+			}
+		}
+	}
+
+	/**
+	 * Starts tracking an item, it is removed after the given amount of ticks
+	 *
+	 * @param item to track
+	 * @param despawnTicks until the item despawns
+	 */
+	public synchronized void track(Item item, long despawnTicks) {
+		untrack(item);
+		Point position = item.getOwner().getPhysics().getPosition();
+		long key = IntPairHashed.key(position.getBlockX() >> Region.BLOCKS.BITS, position.getBlockZ() >> Region.BLOCKS.BITS);
+		Group group = groups.get(key);
+		if (group == null) {
+			group = new Group();
+			groups.put(key, group);
+		}
+		group.items.add(item);
+		tracked.put(item, new Tracked(group, group.wheel.schedule(item, despawnTicks)));
+	}
+
+	/**
+	 * Stops tracking an item, it will no longer despawn or merge
+	 *
+	 * @param item to untrack
+	 */
+	public synchronized void untrack(Item item) {
+		Tracked entry = tracked.get(item);
+		if (entry != null) {
+			untrack(item, entry.group);
+		}
+	}
+
+	private void untrack(Item item, Group group) {
+		Tracked entry = tracked.remove(item);
+		if (entry != null) {
+			group.wheel.cancel(entry.despawn);
+		}
+		group.items.remove(item);
+	}
+
+	/**
+	 * Gets the amount of ticks until a tracked item despawns
+	 *
+	 * @param item to get it of
+	 * @return ticks until despawn, 0 if the item is not tracked
+	 */
+	public synchronized long getDespawnTicks(Item item) {
+		Tracked entry = tracked.get(item);
+		return entry == null ? 0 : entry.group.wheel.getRemaining(entry.despawn);
+	}
+
+	/**
+	 * Gets the amount of items that are tracked
+	 *
+	 * @return tracked items
+	 */
+	public synchronized int size() {
+		return tracked.size();
+	}
+
+	private void merge(Group group) {
+		List<Candidate> candidates = new ArrayList<Candidate>(group.items.size());
+		Iterator<Item> iter = group.items.iterator();
+		while (iter.hasNext()) {
+			Item item = iter.next();
+			if (item.getOwner().isRemoved()) {
+				// Picked up or killed
+				Tracked entry = tracked.remove(item);
+				if (entry != null) {
+					group.wheel.cancel(entry.despawn);
+				}
+				iter.remove();
+				continue;
+			}
+			ItemStack stack = item.getItemStack();
+			if (stack != null && stack.getAmount() < stack.getMaxStackSize()) {
+				candidates.add(new Candidate(item, stack, item.getOwner().getPhysics().getPosition()));
+			}
+		}
+		if (candidates.size() < 2) {
+			return;
+		}
+
+		// Sweep along the x axis, only items within the merge radius on x can be close enough
+		Collections.sort(candidates, BY_X);
+		final float radiusSquared = mergeRadius * mergeRadius;
+		for (int i = 0; i < candidates.size(); i++) {
+			Candidate a = candidates.get(i);
+			for (int j = i + 1; j < candidates.size() && !a.merged; j++) {
+				Candidate b = candidates.get(j);
+				float dx = b.x - a.x;
+				if (dx > mergeRadius) {
+					break;
+				}
+				if (b.merged) {
+					continue;
+				}
+				float dy = b.y - a.y, dz = b.z - a.z;
+				if (dx * dx + dy * dy + dz * dz <= radiusSquared) {
+					merge(group, a, b);
+				}
+			}
+		}
+	}
+
+	private void merge(Group group, Candidate a, Candidate b) {
+		int amount = a.stack.getAmount() + b.stack.getAmount();
+		if (amount > a.stack.getMaxStackSize() || !a.stack.equalsIgnoreSize(b.stack)) {
+			return;
+		}
+		// The bigger stack absorbs the smaller one
+		Candidate into = b.stack.getAmount() > a.stack.getAmount() ? b : a;
+		Candidate from = into == a ? b : a;
+
+		long despawn = Math.max(getDespawnTicks(into.item), getDespawnTicks(from.item));
+		into.stack = into.stack.clone().setAmount(amount);
+		into.item.setItemStack(into.stack);
+		into.item.setUncollectableTime(Math.max(into.item.getUncollectableTime(), from.item.getUncollectableTime()));
+
+		untrack(from.item, group);
+		from.merged = true;
+		from.item.getOwner().remove();
+
+		Tracked entry = tracked.get(into.item);
+		if (entry != null) {
+			group.wheel.cancel(entry.despawn);
+			entry.despawn = group.wheel.schedule(into.item, despawn);
+		}
+	}
+
+	private static class Group {
+		private final TimingWheel<Item> wheel = new TimingWheel<Item>(WHEEL_SLOTS);
+		private final Set<Item> items = new LinkedHashSet<Item>();
+	}
+
+	private static class Tracked {
+		private final Group group;
+		private TimingWheel.Handle<Item> despawn;
+
+		private Tracked(Group group, TimingWheel.Handle<Item> despawn) {
+			this.group = group;
+			this.despawn = despawn;
+		}
+	}
+
+	private static class Candidate {
+		private final Item item;
+		private final float x, y, z;
+		private ItemStack stack;
+		private boolean merged = false;
+
+		private Candidate(Item item, ItemStack stack, Point position) {
+			this.item = item;
+			this.stack = stack;
+			this.x = position.getX();
+			this.y = position.getY();
+			this.z = position.getZ();
+		}
+	}
+}
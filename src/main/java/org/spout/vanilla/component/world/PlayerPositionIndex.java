@@ -0,0 +1,188 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.component.world;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.spout.api.entity.Player;
+import org.spout.api.geo.cuboid.Chunk;
+import org.spout.api.geo.discrete.Point;
+import org.spout.api.util.hashing.IntPairHashed;
+
+/**
+ * Keeps a snapshot of the positions of all players in a world, grouped by chunk column.<br><br>
+ *
+ * The snapshot is taken once per tick and shared by everything that needs to find players near a position, such as command block selectors, so they don't have to scan and measure every
+ * player on their own.
+ */
+public class PlayerPositionIndex extends VanillaWorldComponent {
+	private static final Comparator<Entry> SNAPSHOT_ORDER = new Comparator<Entry>() {
+		@Override
+		public int compare(Entry a, Entry b) {
+			return a.order < b.order ? -1 : (a.order == b.order ? 0 : 1);
+		}
+	};
+	private volatile Snapshot snapshot = new Snapshot(Collections.<Entry>emptyList(), Collections.<Long, List<Entry>>emptyMap());
+
+	@Override
+	public boolean canTick() {
+		return true;
+	}
+
+	@Override
+	public void onTick(float dt) {
+		List<Player> players = getOwner().getPlayers();
+		List<Entry> entries = new ArrayList<Entry>(players.size());
+		Map<Long, List<Entry>> columns = new HashMap<Long, List<Entry>>();
+		for (Player player : players) {
+			if (!player.isOnline()) {
+				continue;
+			}
+			Entry entry = new Entry(player, player.getPhysics().getPosition(), entries.size());
+			entries.add(entry);
+			List<Entry> column = columns.get(entry.column);
+			if (column == null) {
+				column = new ArrayList<Entry>(1);
+				columns.put(entry.column, column);
+			}
+			column.add(entry);
+		}
+		snapshot = new Snapshot(Collections.unmodifiableList(entries), columns);
+	}
+
+	/**
+	 * Gets all players of this world as of the last tick
+	 *
+	 * @return player entries
+	 */
+	public List<Entry> getPlayers() {
+		return snapshot.entries;
+	}
+
+	/**
+	 * Gets the players of the last tick whose chunk column lies within the given distance of a position.<br>
+	 * This is a coarse lookup, the entries still have to be checked against the exact distance. The entries are in the same order as {@link #getPlayers()}.
+	 *
+	 * @param x coordinate of the center
+	 * @param z coordinate of the center
+	 * @param radius to look in, a negative radius returns all players
+	 * @return player entries near the center
+	 */
+	public List<Entry> getNearbyPlayers(int x, int z, int radius) {
+		Snapshot snapshot = this.snapshot;
+		if (radius < 0) {
+			return snapshot.entries;
+		}
+		// A huge radius must not overflow the column range
+		long minX = ((long) x - radius) >> Chunk.BLOCKS.BITS;
+		long maxX = ((long) x + radius) >> Chunk.BLOCKS.BITS;
+		long minZ = ((long) z - radius) >> Chunk.BLOCKS.BITS;
+		long maxZ = ((long) z + radius) >> Chunk.BLOCKS.BITS;
+		if ((maxX - minX + 1) * (maxZ - minZ + 1) > snapshot.columns.size()) {
+			// Cheaper to look at every occupied column
+			return snapshot.entries;
+		}
+		List<Entry> nearby = new ArrayList<Entry>();
+		int found = 0;
+		for (int cx = (int) minX; cx <= maxX; cx++) {
+			for (int cz = (int) minZ; cz <= maxZ; cz++) {
+				List<Entry> column = snapshot.columns.get(IntPairHashed.key(cx, cz));
+				if (column != null) {
+					nearby.addAll(column);
+					found++;
+				}
+			}
+		}
+		if (found > 1) {
+			Collections.sort(nearby, SNAPSHOT_ORDER);
+		}
+		return nearby;
+	}
+
+	/**
+	 * The position of a player at the time of the last snapshot
+	 */
+	public static class Entry {
+		private final Player player;
+		private final float x, y, z;
+		private final long column;
+		private final int order;
+
+		private Entry(Player player, Point position, int order) {
+			this.player = player;
+			this.order = order;
+			this.x = position.getX();
+			this.y = position.getY();
+			this.z = position.getZ();
+			this.column = IntPairHashed.key(position.getChunkX(), position.getChunkZ());
+		}
+
+		public Player getPlayer() {
+			return player;
+		}
+
+		public float getX() {
+			return x;
+		}
+
+		public float getY() {
+			return y;
+		}
+
+		public float getZ() {
+			return z;
+		}
+
+		/**
+		 * Gets the distance between this player and a position
+		 *
+		 * @param x coordinate
+		 * @param y coordinate
+		 * @param z coordinate
+		 * @return distance
+		 */
+		public double distance(double x, double y, double z) {
+			double dx = this.x - x, dy = this.y - y, dz = this.z - z;
+			return Math.sqrt(dx * dx + dy * dy + dz * dz);
+		}
+	}
+
+	private static class Snapshot {
+		private final List<Entry> entries;
+		private final Map<Long, List<Entry>> columns;
+
+		private Snapshot(List<Entry> entries, Map<Long, List<Entry>> columns) {
+			this.entries = entries;
+			this.columns = columns;
+		}
+	}
+}
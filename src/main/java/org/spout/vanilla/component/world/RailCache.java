@@ -0,0 +1,173 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.component.world;
+
+import org.spout.api.material.BlockMaterial;
+import org.spout.api.material.block.BlockFullState;
+
+import org.spout.vanilla.data.RailsState;
+import org.spout.vanilla.material.block.rail.ActivatorRail;
+import org.spout.vanilla.material.block.rail.DetectorRail;
+import org.spout.vanilla.material.block.rail.PoweredRail;
+import org.spout.vanilla.material.block.rail.RailBase;
+
+/**
+ * Gets the shape of the rails in a world, so minecarts can follow them without reading block materials every tick.<br><br>
+ *
+ * The rail at a block is a pure function of its full block state. A request reads that state, which is a single lookup, and decodes it through tables shared by all worlds: the rail kind per
+ * material id and the encoded rail per kind and data. Blocks changed in any way, including by plugins setting materials directly, are therefore never served stale, and nothing is kept per chunk.
+ */
+public class RailCache extends VanillaWorldComponent {
+	/**
+	 * There is no rail in the cell
+	 */
+	public static final int NONE = 0;
+	public static final int KIND_RAIL = 1;
+	public static final int KIND_POWERED = 2;
+	public static final int KIND_DETECTOR = 3;
+	public static final int KIND_ACTIVATOR = 4;
+	private static final int POWERED_BIT = 0x10;
+	private static final int STATE_MASK = 0xF;
+	private static final int KIND_SHIFT = 5;
+	private static final int DATA_VALUES = 16;
+	/**
+	 * Kind of a material id that was not looked up yet
+	 */
+	private static final byte UNKNOWN = -1;
+	/**
+	 * Rail kind per material id. Filled on first use, the racing writes all store the same value.
+	 */
+	private static final byte[] KINDS = new byte[1 << 16];
+	/**
+	 * Encoded rail per kind and block data
+	 */
+	private static final int[][] RAILS = new int[KIND_ACTIVATOR + 1][DATA_VALUES];
+
+	static {
+		for (int i = 0; i < KINDS.length; i++) {
+			KINDS[i] = UNKNOWN;
+		}
+		for (int kind = KIND_RAIL; kind <= KIND_ACTIVATOR; kind++) {
+			for (int data = 0; data < DATA_VALUES; data++) {
+				// Only the plain rail uses all four bits for its state, the others use the highest bit as powered flag
+				RailsState state = RailsState.get(kind == KIND_RAIL ? data : data & 0x7);
+				boolean powered = (kind == KIND_POWERED || kind == KIND_ACTIVATOR) && (data & 0x8) != 0;
+				RAILS[kind][data] = state == null ? NONE : encode(kind, powered, state);
+			}
+		}
+	}
+
+	/**
+	 * Gets the rail at the given block coordinates
+	 *
+	 * @param x coordinate of the block
+	 * @param y coordinate of the block
+	 * @param z coordinate of the block
+	 * @return the rail encoded as an int, {@link #NONE} if there is no rail
+	 */
+	public int get(int x, int y, int z) {
+		return decode(getOwner().getBlockFullState(x, y, z));
+	}
+
+	/**
+	 * Decodes the rail of a full block state
+	 *
+	 * @param fullState of the block
+	 * @return the rail encoded as an int, {@link #NONE} if there is no rail
+	 */
+	public static int decode(int fullState) {
+		final int id = fullState >>> 16;
+		int kind = KINDS[id];
+		if (kind == UNKNOWN) {
+			kind = getRailKind(BlockFullState.getMaterial(fullState));
+			KINDS[id] = (byte) kind;
+		}
+		if (kind == NONE) {
+			return NONE;
+		}
+		final int data = BlockFullState.getData(fullState) & 0xFFFF;
+		if (data >= DATA_VALUES && kind == KIND_RAIL) {
+			return NONE;
+		}
+		return RAILS[kind][data & STATE_MASK];
+	}
+
+	private static int getRailKind(BlockMaterial material) {
+		if (!(material instanceof RailBase)) {
+			return NONE;
+		} else if (material instanceof PoweredRail) {
+			return KIND_POWERED;
+		} else if (material instanceof DetectorRail) {
+			return KIND_DETECTOR;
+		} else if (material instanceof ActivatorRail) {
+			return KIND_ACTIVATOR;
+		}
+		return KIND_RAIL;
+	}
+
+	/**
+	 * Encodes a rail the way it is returned by {@link #get(int, int, int)}
+	 *
+	 * @param kind one of the KIND constants
+	 * @param powered whether a powered or activator rail is powered
+	 * @param state of the rail
+	 * @return the rail encoded as an int
+	 */
+	public static int encode(int kind, boolean powered, RailsState state) {
+		return (kind << KIND_SHIFT) | (powered ? POWERED_BIT : 0) | state.ordinal();
+	}
+
+	/**
+	 * Gets the kind of an encoded rail
+	 *
+	 * @param rail encoded rail
+	 * @return one of the KIND constants, or {@link #NONE}
+	 */
+	public static int getKind(int rail) {
+		return rail >> KIND_SHIFT;
+	}
+
+	/**
+	 * Gets the state of an encoded rail
+	 *
+	 * @param rail encoded rail, not {@link #NONE}
+	 * @return rails state
+	 */
+	public static RailsState getState(int rail) {
+		return RailsState.get(rail & STATE_MASK);
+	}
+
+	/**
+	 * Gets whether an encoded powered or activator rail is powered
+	 *
+	 * @param rail encoded rail
+	 * @return True if powered
+	 */
+	public static boolean isPowered(int rail) {
+		return (rail & POWERED_BIT) != 0;
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.component.world;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.spout.api.entity.Player;
+import org.spout.api.geo.cuboid.Chunk;
+import org.spout.api.geo.discrete.Point;
+import org.spout.api.util.hashing.IntPairHashed;
+
+import org.spout.vanilla.component.block.material.MonsterSpawner;
+
+/**
+ * Arms and disarms the {@link MonsterSpawner}s of a world as players move between chunk columns.<br><br>
+ *
+ * Every spawner registers an activation zone, which is the set of chunk columns its player radius touches. A zone is armed while at least one player stands in one of its columns. Disarmed
+ * spawners do not tick at all, so the per-tick cost of this component is bound by the amount of players, not by the amount of loaded spawners.
+ */
+public class SpawnerActivation extends VanillaWorldComponent {
+	private final Map<Long, Set<Zone>> zonesByColumn = new HashMap<Long, Set<Zone>>();
+	private final Map<MonsterSpawner, Zone> zones = new HashMap<MonsterSpawner, Zone>();
+	private final Map<Long, Integer> occupiedColumns = new HashMap<Long, Integer>();
+	private final Map<Player, TrackedPlayer> players = new HashMap<Player, TrackedPlayer>();
+	private long tick = 0;
+	private int active = 0;
+
+	@Override
+	public boolean canTick() {
+		return true;
+	}
+
+	@Override
+	public synchronized void onTick(float dt) {
+		tick++;
+		for (Player player : getOwner().getPlayers()) {
+			if (!player.isOnline()) {
+				continue;
+			}
+			Point position = player.getPhysics().getPosition();
+			long column = IntPairHashed.key(position.getChunkX(), position.getChunkZ());
+			TrackedPlayer tracked = players.get(player);
+			if (tracked == null) {
+				tracked = new TrackedPlayer(column);
+				players.put(player, tracked);
+				enterColumn(column);
+			} else if (tracked.column != column) {
+				leaveColumn(tracked.column);
+				enterColumn(column);
+				tracked.column = column;
+			}
+			tracked.lastSeen = tick;
+		}
+		// Players that left the world or disconnected
+		Iterator<TrackedPlayer> iter = players.values().iterator();
+		while (iter.hasNext()) {
+			TrackedPlayer tracked = iter.next();
+			if (tracked.lastSeen != tick) {
+				iter.remove();
+				leaveColumn(tracked.column);
+			}
+		}
+	}
+
+	/**
+	 * Registers the activation zone of a spawner, replacing any zone it had before. The spawner is armed or disarmed right away.
+	 *
+	 * @param spawner to register
+	 */
+	public synchronized void register(MonsterSpawner spawner) {
+		unregister(spawner);
+		Point point = spawner.getPoint();
+		int radius = spawner.getRadius();
+		int minX = (point.getBlockX() - radius) >> Chunk.BLOCKS.BITS;
+		int maxX = (point.getBlockX() + radius) >> Chunk.BLOCKS.BITS;
+		int minZ = (point.getBlockZ() - radius) >> Chunk.BLOCKS.BITS;
+		int maxZ = (point.getBlockZ() + radius) >> Chunk.BLOCKS.BITS;
+
+		Zone zone = new Zone(spawner, new long[(maxX - minX + 1) * (maxZ - minZ + 1)]);
+		int i = 0;
+		for (int cx = minX; cx <= maxX; cx++) {
+			for (int cz = minZ; cz <= maxZ; cz++) {
+				long column = IntPairHashed.key(cx, cz);
+				zone.columns[i++] = column;
+				Set<Zone> columnZones = zonesByColumn.get(column);
+				if (columnZones == null) {
+					columnZones = new HashSet<Zone>();
+					zonesByColumn.put(column, columnZones);
+				}
+				columnZones.add(zone);
+				if (occupiedColumns.containsKey(column)) {
+					zone.occupied++;
+				}
+			}
+		}
+		zones.put(spawner, zone);
+		if (zone.occupied > 0) {
+			active++;
+		}
+		spawner.setArmed(zone.occupied > 0);
+	}
+
+	/**
+	 * Removes the activation zone of a spawner, if it has one.
+	 *
+	 * @param spawner to unregister
+	 */
+	public synchronized void unregister(MonsterSpawner spawner) {
+		Zone zone = zones.remove(spawner);
+		if (zone == null) {
+			return;
+		}
+		for (long column : zone.columns) {
+			Set<Zone> columnZones = zonesByColumn.get(column);
+			if (columnZones != null) {
+				columnZones.remove(zone);
+				if (columnZones.isEmpty()) {
+					zonesByColumn.remove(column);
+				}
+			}
+		}
+		if (zone.occupied > 0) {
+			active--;
+		}
+	}
+
+	/**
+	 * Gets the amount of registered spawners that currently have a player in their activation zone.
+	 *
+	 * @return amount of armed spawners
+	 */
+	public synchronized int getActiveSpawners() {
+		return active;
+	}
+
+	/**
+	 * Gets the amount of registered spawners that are asleep because no player is in their activation zone.
+	 *
+	 * @return amount of sleeping spawners
+	 */
+	public synchronized int getSleepingSpawners() {
+		return zones.size() - active;
+	}
+
+	private void enterColumn(long column) {
+		Integer count = occupiedColumns.get(column);
+		occupiedColumns.put(column, count == null ? 1 : count + 1);
+		if (count != null) {
+			return;
+		}
+		Set<Zone> columnZones = zonesByColumn.get(column);
+		if (columnZones == null) {
+			return;
+		}
+		for (Zone zone : columnZones) {
+			if (zone.occupied++ == 0) {
+				active++;
+				zone.spawner.setArmed(true);
+			}
+		}
+	}
+
+	private void leaveColumn(long column) {
+		Integer count = occupiedColumns.get(column);
+		if (count == null) {
+			return;
+		}
+		if (count > 1) {
+			occupiedColumns.put(column, count - 1);
+			return;
+		}
+		occupiedColumns.remove(column);
+		Set<Zone> columnZones = zonesByColumn.get(column);
+		if (columnZones == null) {
+			return;
+		}
+		for (Zone zone : columnZones) {
+			if (--zone.occupied == 0) {
+				active--;
+				zone.spawner.setArmed(false);
+			}
+		}
+	}
+
+	private static class Zone {
+		private final MonsterSpawner spawner;
+		private final long[] columns;
+		private int occupied = 0;
+
+		private Zone(MonsterSpawner spawner, long[] columns) {
+			this.spawner = spawner;
+			this.columns = columns;
+		}
+	}
+
+	private static class TrackedPlayer {
+		private long column;
+		private long lastSeen;
+
+		private TrackedPlayer(long column) {
+			this.column = column;
+		}
+	}
+}
@@ -71,6 +71,10 @@ public abstract class Metadata<T> {
 	 * The value last exposed
 	 */
 	private T synchedValue;
+	/**
+	 * Whether the value has to be sent even if it equals the synchronized value
+	 */
+	private volatile boolean dirty = false;
 
 	/**
 	 * Creates a new mutable parameter.
@@ -127,13 +131,34 @@ public abstract class Metadata<T> {
 	}
 
 	/**
-	 * Updates the synchronized value with the current value obtained using {@link #getValue()}. If the value did not change, null is returned, otherwise a new Parameter with the new value is returned.
+	 * Marks this Metadata as changed, so the next update sends it even if the value equals the synchronized value.
+	 * This is needed when a value object is modified in place.
+	 */
+	public void markDirty() {
+		this.dirty = true;
+	}
+
+	/**
+	 * Gets whether this Metadata was marked as changed since the last update
+	 *
+	 * @return True if dirty, False if not
+	 */
+	public boolean isDirty() {
+		return this.dirty;
+	}
+
+	/**
+	 * Updates the synchronized value with the current value obtained using {@link #getValue()}. If the value did not change and this Metadata is not dirty, null is returned, otherwise a new
+	 * Parameter with the new value is returned.
 	 *
 	 * @return Immutable Parameter instance with the new value if changed, or null for no change
 	 */
 	public Parameter<T> getUpdateParameter() {
+		// Clear the flag before reading, so a change marked while reading is sent with the next update
+		final boolean wasDirty = this.dirty;
+		this.dirty = false;
 		T current = this.getValue();
-		if (this.synchedValue.equals(current)) {
+		if (!wasDirty && this.synchedValue.equals(current)) {
 			return null;
 		}
 		this.synchedValue = current;
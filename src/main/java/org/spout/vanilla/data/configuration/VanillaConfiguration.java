@@ -47,6 +47,7 @@ public class VanillaConfiguration extends ConfigurationHolderConfiguration {
 	public static final ConfigurationHolder SPAWN_PROTECTION_RADIUS = new ConfigurationHolder(10, "general", "spawn-protection-radius");
 	public static final ConfigurationHolder CHUNK_INIT = new ConfigurationHolder("client", "general", "chunk-init");
 	public static final ConfigurationHolder HARDCORE_MODE = new ConfigurationHolder(false, "general", "hardcore-mode");
+	public static final ConfigurationHolder PING_INTERVAL = new ConfigurationHolder(1000, "general", "server-list-ping-interval");
 	// Messages
 	public static final ConfigurationHolder MOTD = new ConfigurationHolder("A Spout server with Vanilla", "message", "motd");
 	public static final ConfigurationHolder OUTDATED_SERVER_MESSAGE = new ConfigurationHolder("Outdated server!", "message", "outdated-server");
@@ -75,6 +76,7 @@ public class VanillaConfiguration extends ConfigurationHolderConfiguration {
 	// Component-specific
 	public static final ConfigurationHolder ITEM_PICKUP_RANGE = new ConfigurationHolder(2, "component", "item-pickup-range");
 	public static final ConfigurationHolder ITEM_SPAWN_TIME = new ConfigurationHolder(300, "component", "item-spawn-time");
+	public static final ConfigurationHolder ITEM_MERGE_RADIUS = new ConfigurationHolder(0.75, "component", "item-merge-radius");
 	public static final ConfigurationHolder COMMAND_BLOCK_VERBOSE = new ConfigurationHolder(false, "component", "command-block-verbose");
 	// Redstone-specific
 	public static final ConfigurationHolder REDSTONE_MIN_RANGE = new ConfigurationHolder(0, "redstone", "redstone-min-power-range");
@@ -85,8 +87,20 @@ public class VanillaConfiguration extends ConfigurationHolderConfiguration {
 	public static final ConfigurationHolder ENCRYPT_KEY_PADDING = new ConfigurationHolder("PKCS1", "encrypt", "key-padding");
 	public static final ConfigurationHolder ENCRYPT_STREAM_ALGORITHM = new ConfigurationHolder("AES", "encrypt", "stream-algorithm");
 	public static final ConfigurationHolder ENCRYPT_STREAM_WRAPPER = new ConfigurationHolder("CFB8", "encrypt", "stream-wrapper");
+	// Authentication
+	public static final ConfigurationHolder AUTH_THREADS = new ConfigurationHolder(4, "auth", "threads");
+	public static final ConfigurationHolder AUTH_QUEUE_SIZE = new ConfigurationHolder(256, "auth", "queue-size");
+	public static final ConfigurationHolder AUTH_TIMEOUT = new ConfigurationHolder(10000, "auth", "timeout");
 	// Chunk Cache
 	public static final ConfigurationHolder USE_CHUNK_CACHE = new ConfigurationHolder(true, "cache", "chunks");
+	// Adaptive view distance
+	public static final ConfigurationHolder ADAPTIVE_VIEW_DISTANCE = new ConfigurationHolder(false, "adaptive-view-distance", "enabled");
+	public static final ConfigurationHolder ADAPTIVE_VIEW_DISTANCE_MIN = new ConfigurationHolder(3, "adaptive-view-distance", "min-distance");
+	public static final ConfigurationHolder ADAPTIVE_VIEW_DISTANCE_MAX = new ConfigurationHolder(10, "adaptive-view-distance", "max-distance");
+	public static final ConfigurationHolder ADAPTIVE_VIEW_DISTANCE_LOWER_TPS = new ConfigurationHolder(18.0, "adaptive-view-distance", "lower-below-tps");
+	public static final ConfigurationHolder ADAPTIVE_VIEW_DISTANCE_RAISE_TPS = new ConfigurationHolder(19.5, "adaptive-view-distance", "raise-above-tps");
+	public static final ConfigurationHolder ADAPTIVE_VIEW_DISTANCE_LOWER_DELAY = new ConfigurationHolder(40, "adaptive-view-distance", "lower-delay");
+	public static final ConfigurationHolder ADAPTIVE_VIEW_DISTANCE_RAISE_DELAY = new ConfigurationHolder(200, "adaptive-view-distance", "raise-delay");
 	// sub-configs
 	public static final OpConfiguration OPS = new OpConfiguration(VanillaPlugin.getInstance().getDataFolder());
 	public static final WorldConfiguration WORLDS = new WorldConfiguration(VanillaPlugin.getInstance().getDataFolder());
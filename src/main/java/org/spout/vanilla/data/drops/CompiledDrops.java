@@ -0,0 +1,344 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.data.drops;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import gnu.trove.map.hash.TLongObjectHashMap;
+
+import org.spout.api.inventory.ItemStack;
+import org.spout.api.material.Material;
+import org.spout.api.util.flag.Flag;
+
+import org.spout.vanilla.data.drops.type.FixedDrop;
+import org.spout.vanilla.data.drops.type.RandomDrop;
+import org.spout.vanilla.data.drops.type.RandomRangeDrop;
+import org.spout.vanilla.data.drops.type.block.BlockDrops;
+
+/**
+ * A Drop tree flattened into arrays, evaluated against a bitmask of flags.<br>
+ * Every flag seen in a flag set gets a bit. The first time a combination of flags is seen,
+ * the flag conditions of all nodes are evaluated once and stored as a bitset for that mask.
+ * Later evaluations with the same flags only test bits.<br>
+ * Random numbers are drawn in the same order as {@link Drop#getDrops(Random, Set, List)},
+ * so the results and their distribution are identical to evaluating the tree.
+ * A compiled form does not see changes made to the tree afterwards, {@link #isCurrent()} tells whether the tree was changed since.
+ */
+public class CompiledDrops {
+	/**
+	 * The maximum amount of flag combinations remembered per compiled tree
+	 */
+	public static final int MAX_MASKS = 256;
+	private static final Map<Flag, Long> flagBits = new ConcurrentHashMap<Flag, Long>();
+	private static final Flag[] bitFlags = new Flag[63];
+	private static int nextBit = 0;
+	private static final byte DELEGATE = 0, DROPS = 1, SELECT = 2, SWITCH = 3, FIXED = 4, RANDOM = 5, RANGE = 6;
+	private final Drop root;
+	private final Drop[] nodes;
+	private final byte[] kinds;
+	private final int[][] children;
+	private final Material[] materials;
+	private final int[][] amounts;
+	private final int changes;
+	private volatile TLongObjectHashMap<long[]> conditions = new TLongObjectHashMap<long[]>();
+
+	public CompiledDrops(Drop root) {
+		List<Drop> flat = new ArrayList<Drop>();
+		flatten(root, flat);
+		this.root = root;
+		this.nodes = flat.toArray(new Drop[flat.size()]);
+		this.kinds = new byte[nodes.length];
+		this.children = new int[nodes.length][];
+		this.materials = new Material[nodes.length];
+		this.amounts = new int[nodes.length][];
+		this.changes = countChanges();
+		compile(0);
+	}
+
+	private int countChanges() {
+		int changes = 0;
+		for (Drop node : nodes) {
+			changes += node.getChangeCount();
+		}
+		return changes;
+	}
+
+	/**
+	 * Gets whether the Drop tree is unchanged since it was compiled
+	 *
+	 * @return True if this compiled form is up to date, False if it has to be compiled again
+	 */
+	public boolean isCurrent() {
+		return countChanges() == changes;
+	}
+
+	private static void flatten(Drop drop, List<Drop> flat) {
+		flat.add(drop);
+		if (drop.getClass() == SwitchDrops.class) {
+			flatten(((SwitchDrops) drop).TRUE, flat);
+			flatten(((SwitchDrops) drop).FALSE, flat);
+		} else if (isDrops(drop) || drop.getClass() == SelectedDrops.class) {
+			for (Drop child : ((Drops) drop).getAll()) {
+				flatten(child, flat);
+			}
+		}
+	}
+
+	private static boolean isDrops(Drop drop) {
+		return drop.getClass() == Drops.class || drop.getClass() == BlockDrops.class;
+	}
+
+	private int compile(int index) {
+		Drop drop = nodes[index];
+		int next = index + 1;
+		if (drop.getClass() == SwitchDrops.class || isDrops(drop) || drop.getClass() == SelectedDrops.class) {
+			int count = drop.getClass() == SwitchDrops.class ? 2 : ((Drops) drop).getDropCount();
+			children[index] = new int[count];
+			for (int i = 0; i < count; i++) {
+				children[index][i] = next;
+				next = compile(next);
+			}
+			kinds[index] = drop.getClass() == SwitchDrops.class ? SWITCH : drop.getClass() == SelectedDrops.class ? SELECT : DROPS;
+		} else if (drop.getClass() == FixedDrop.class) {
+			kinds[index] = FIXED;
+			materials[index] = ((FixedDrop) drop).getMaterial();
+			amounts[index] = new int[]{((FixedDrop) drop).getAmount()};
+		} else if (drop.getClass() == RandomDrop.class) {
+			kinds[index] = RANDOM;
+			materials[index] = ((RandomDrop) drop).getMaterial();
+			amounts[index] = ((RandomDrop) drop).getAmounts();
+		} else if (drop.getClass() == RandomRangeDrop.class) {
+			kinds[index] = RANGE;
+			materials[index] = ((RandomRangeDrop) drop).getMaterial();
+			amounts[index] = new int[]{((RandomRangeDrop) drop).getMinAmount(), ((RandomRangeDrop) drop).getMaxAmount()};
+		} else {
+			kinds[index] = DELEGATE;
+		}
+		return next;
+	}
+
+	/**
+	 * Gets the Drop tree this was compiled from
+	 *
+	 * @return root drop
+	 */
+	public Drop getRoot() {
+		return root;
+	}
+
+	/**
+	 * Fills a list with the Drops
+	 *
+	 * @param random to use
+	 * @param flags to evaluate against (contains no inverted flags)
+	 * @param drops list to fill
+	 * @return the inputed list of drops
+	 */
+	public List<ItemStack> getDrops(Random random, Set<Flag> flags, List<ItemStack> drops) {
+		long mask = getMask(flags);
+		long[] matched = mask == -1L ? null : conditions.get(mask);
+		if (matched == null) {
+			matched = match(flags);
+			if (mask != -1L) {
+				remember(mask, matched);
+			}
+		}
+		evaluate(0, random, flags, mask, matched, drops);
+		return drops;
+	}
+
+	/**
+	 * Fills a list with the Drops
+	 *
+	 * @param random to use
+	 * @param mask of the flags to evaluate against, as returned by {@link #getMask(Set)} or {@link FlagMaskSet#getMask()}
+	 * @param drops list to fill
+	 * @return the inputed list of drops
+	 */
+	public List<ItemStack> getDrops(Random random, long mask, List<ItemStack> drops) {
+		if (mask == -1L) {
+			throw new IllegalArgumentException("Not a valid flag mask");
+		}
+		long[] matched = conditions.get(mask);
+		if (matched == null) {
+			matched = match(FlagMaskSet.of(mask));
+			remember(mask, matched);
+		}
+		evaluate(0, random, null, mask, matched, drops);
+		return drops;
+	}
+
+	private long[] match(Set<Flag> flags) {
+		long[] matched = new long[(nodes.length + 63) >> 6];
+		for (int i = 0; i < nodes.length; i++) {
+			if (nodes[i].matchFlags(flags)) {
+				matched[i >> 6] |= 1L << i;
+			}
+		}
+		return matched;
+	}
+
+	private void remember(long mask, long[] matched) {
+		synchronized (this) {
+			if (conditions.size() >= MAX_MASKS) {
+				return;
+			}
+			TLongObjectHashMap<long[]> copy = new TLongObjectHashMap<long[]>(conditions);
+			copy.put(mask, matched);
+			conditions = copy;
+		}
+	}
+
+	private boolean canDrop(int index, Random random, long[] matched) {
+		Drop drop = nodes[index];
+		if (drop.hasChance() && random.nextDouble() >= drop.getChance()) {
+			return false;
+		}
+		return (matched[index >> 6] & (1L << index)) != 0;
+	}
+
+	private void evaluate(int index, Random random, Set<Flag> flags, long mask, long[] matched, List<ItemStack> drops) {
+		switch (kinds[index]) {
+			case DROPS:
+				if (canDrop(index, random, matched)) {
+					for (int child : children[index]) {
+						evaluate(child, random, flags, mask, matched, drops);
+					}
+				}
+				break;
+			case SELECT:
+				if (canDrop(index, random, matched) && children[index].length > 0) {
+					evaluate(children[index][random.nextInt(children[index].length)], random, flags, mask, matched, drops);
+				}
+				break;
+			case SWITCH:
+				evaluate(children[index][canDrop(index, random, matched) ? 0 : 1], random, flags, mask, matched, drops);
+				break;
+			case FIXED:
+				if (canDrop(index, random, matched)) {
+					drops.add(new ItemStack(materials[index], amounts[index][0]));
+				}
+				break;
+			case RANDOM:
+				if (canDrop(index, random, matched)) {
+					int amount = amounts[index][random.nextInt(amounts[index].length)];
+					if (amount > 0) {
+						drops.add(new ItemStack(materials[index], amount));
+					}
+				}
+				break;
+			case RANGE:
+				if (canDrop(index, random, matched)) {
+					int amount = amounts[index][0] + random.nextInt(amounts[index][1] - amounts[index][0] + 1);
+					if (amount > 0) {
+						drops.add(new ItemStack(materials[index], amount));
+					}
+				}
+				break;
+			default:
+				nodes[index].getDrops(random, flags != null ? flags : FlagMaskSet.of(mask), drops);
+		}
+	}
+
+	/**
+	 * Gets the bitmask of the flags in a set, assigning bits to flags not seen before
+	 *
+	 * @param flags to convert
+	 * @return the mask, or -1 if there are no bits left
+	 */
+	public static long getMask(Set<Flag> flags) {
+		if (flags instanceof FlagMaskSet) {
+			return ((FlagMaskSet) flags).getMask();
+		}
+		long mask = 0L;
+		for (Flag flag : flags) {
+			Long bit = flagBits.get(flag);
+			if (bit == null) {
+				bit = assignBit(flag);
+				if (bit == null) {
+					return -1L;
+				}
+			}
+			mask |= bit;
+		}
+		return mask;
+	}
+
+	private static synchronized Long assignBit(Flag flag) {
+		Long bit = flagBits.get(flag);
+		if (bit == null) {
+			// The last bit is kept free so that -1 never is a valid mask
+			if (nextBit >= 63) {
+				return null;
+			}
+			bitFlags[nextBit] = flag;
+			bit = 1L << nextBit++;
+			flagBits.put(flag, bit);
+		}
+		return bit;
+	}
+
+	/**
+	 * Gets the bit of a flag, assigning one if the flag was not seen before
+	 *
+	 * @param flag to get the bit of
+	 * @return the bit, or 0 if there are no bits left
+	 */
+	static long getBit(Flag flag) {
+		Long bit = flagBits.get(flag);
+		if (bit == null) {
+			bit = assignBit(flag);
+		}
+		return bit == null ? 0L : bit;
+	}
+
+	/**
+	 * Gets the bit of a flag without assigning one
+	 *
+	 * @param flag to get the bit of
+	 * @return the bit, or 0 if the flag has none
+	 */
+	static long findBit(Flag flag) {
+		Long bit = flagBits.get(flag);
+		return bit == null ? 0L : bit;
+	}
+
+	/**
+	 * Gets the flag a bit was assigned to
+	 *
+	 * @param index of the bit
+	 * @return the flag
+	 */
+	static Flag getFlag(int index) {
+		return bitFlags[index];
+	}
+}
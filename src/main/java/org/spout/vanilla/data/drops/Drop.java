@@ -41,6 +41,7 @@ import org.spout.api.util.flag.FlagContainer;
  */
 public abstract class Drop extends FlagContainer {
 	private double chance = 1.0;
+	private volatile int changes = 0;
 
 	@Override
 	public boolean matchFlags(Set<Flag> flags) {
@@ -80,6 +81,7 @@ public abstract class Drop extends FlagContainer {
 	 */
 	public Drop setChance(double chance) {
 		this.chance = chance;
+		changed();
 		return this;
 	}
 
@@ -95,15 +97,33 @@ public abstract class Drop extends FlagContainer {
 	@Override
 	public Drop addFlags(Flag... dropFlags) {
 		super.addFlags(dropFlags);
+		changed();
 		return this;
 	}
 
 	@Override
 	public Drop removeFlags(Flag... dropFlags) {
 		super.removeFlags(dropFlags);
+		changed();
 		return this;
 	}
 
+	/**
+	 * Gets how often this Drop was changed, used to find out whether a {@link CompiledDrops} is outdated
+	 *
+	 * @return change count
+	 */
+	public int getChangeCount() {
+		return this.changes;
+	}
+
+	/**
+	 * Marks this Drop as changed, this has to be called by every method that changes what this Drop drops
+	 */
+	protected void changed() {
+		this.changes++;
+	}
+
 	/**
 	 * Fills a list with the Drops
 	 *
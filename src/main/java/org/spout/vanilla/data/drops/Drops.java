@@ -80,6 +80,7 @@ public class Drops extends Drop {
 				((Drops) next).remove(dropMaterial);
 			} else if (next.containsDrop(dropMaterial)) {
 				iter.remove();
+				changed();
 			}
 		}
 		return this;
@@ -93,6 +94,7 @@ public class Drops extends Drop {
 	 */
 	public <T extends Drop> T add(T drop) {
 		this.drops.add(drop);
+		changed();
 		return drop;
 	}
 
@@ -131,11 +133,13 @@ public class Drops extends Drop {
 	 */
 	public Drops clear() {
 		this.drops.clear();
+		changed();
 		return this;
 	}
 
 	/**
-	 * Gets the all the Drops contained
+	 * Gets the all the Drops contained<br>
+	 * Changes made to this list directly are not seen by compiled drops.
 	 *
 	 * @return unsafe List of drops
 	 */
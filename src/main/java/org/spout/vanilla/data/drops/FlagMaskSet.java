@@ -0,0 +1,154 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.data.drops;
+
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.spout.api.util.flag.Flag;
+
+/**
+ * A set of flags stored as the bitmask used by {@link CompiledDrops}<br>
+ * Passing this set to block destruction lets the drops be evaluated against the mask directly,
+ * without hashing every flag. Flags beyond the available bits are kept in a regular set.
+ */
+public class FlagMaskSet extends AbstractSet<Flag> {
+	private long mask = 0L;
+	private Set<Flag> overflow = null;
+
+	/**
+	 * Creates a set containing the flags of a mask
+	 *
+	 * @param mask of the flags
+	 * @return new set
+	 */
+	public static FlagMaskSet of(long mask) {
+		FlagMaskSet set = new FlagMaskSet();
+		set.mask = mask;
+		return set;
+	}
+
+	/**
+	 * Gets the bitmask of the flags in this set
+	 *
+	 * @return the mask, or -1 if this set contains flags that have no bit
+	 */
+	public long getMask() {
+		return overflow == null || overflow.isEmpty() ? mask : -1L;
+	}
+
+	@Override
+	public boolean add(Flag flag) {
+		long bit = CompiledDrops.getBit(flag);
+		if (bit == 0L) {
+			if (overflow == null) {
+				overflow = new HashSet<Flag>();
+			}
+			return overflow.add(flag);
+		}
+		if ((mask & bit) != 0L) {
+			return false;
+		}
+		mask |= bit;
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		if (!(o instanceof Flag)) {
+			return false;
+		}
+		long bit = CompiledDrops.findBit((Flag) o);
+		if (bit != 0L) {
+			return (mask & bit) != 0L;
+		}
+		return overflow != null && overflow.contains(o);
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		if (!(o instanceof Flag)) {
+			return false;
+		}
+		long bit = CompiledDrops.findBit((Flag) o);
+		if (bit != 0L && (mask & bit) != 0L) {
+			mask &= ~bit;
+			return true;
+		}
+		return overflow != null && overflow.remove(o);
+	}
+
+	@Override
+	public void clear() {
+		mask = 0L;
+		overflow = null;
+	}
+
+	@Override
+	public int size() {
+		return Long.bitCount(mask) + (overflow == null ? 0 : overflow.size());
+	}
+
+	@Override
+	public Iterator<Flag> iterator() {
+		List<Flag> flags = new ArrayList<Flag>(size());
+		for (long bits = mask; bits != 0L; bits &= bits - 1) {
+			flags.add(CompiledDrops.getFlag(Long.numberOfTrailingZeros(bits)));
+		}
+		if (overflow != null) {
+			flags.addAll(overflow);
+		}
+		final Iterator<Flag> iter = flags.iterator();
+		return new Iterator<Flag>() {
+			private Flag last;
+
+			@Override
+			public boolean hasNext() {
+				return iter.hasNext();
+			}
+
+			@Override
+			public Flag next() {
+				last = iter.next();
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				FlagMaskSet.this.remove(last);
+				last = null;
+			}
+		};
+	}
+}
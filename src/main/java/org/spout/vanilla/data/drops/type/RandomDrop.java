@@ -49,6 +49,15 @@ public class RandomDrop extends Drop {
 		return this.material;
 	}
 
+	/**
+	 * Gets the amounts one is randomly chosen from
+	 *
+	 * @return unsafe array of amounts
+	 */
+	public int[] getAmounts() {
+		return this.amounts;
+	}
+
 	@Override
 	public List<ItemStack> getDrops(Random random, Set<Flag> flags, List<ItemStack> drops) {
 		if (this.canDrop(random, flags)) {
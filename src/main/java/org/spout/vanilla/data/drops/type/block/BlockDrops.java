@@ -26,7 +26,16 @@
  */
 package org.spout.vanilla.data.drops.type.block;
 
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.spout.api.inventory.ItemStack;
+import org.spout.api.util.flag.Flag;
+
+import org.spout.vanilla.data.drops.CompiledDrops;
 import org.spout.vanilla.data.drops.Drops;
+import org.spout.vanilla.data.drops.FlagMaskSet;
 import org.spout.vanilla.data.drops.flag.DropFlags;
 import org.spout.vanilla.data.drops.flag.PlayerFlags;
 import org.spout.vanilla.data.drops.flag.ToolEnchantFlags;
@@ -48,6 +57,7 @@ public class BlockDrops extends Drops {
 	 * All of the drops when destroyed by an explosion
 	 */
 	public final Drops EXPLOSION;
+	private volatile CompiledDrops compiled;
 
 	public BlockDrops() {
 		this.NOT_CREATIVE = this.forFlags(PlayerFlags.CREATIVE.NOT);
@@ -56,6 +66,51 @@ public class BlockDrops extends Drops {
 		this.EXPLOSION = this.forFlags(DropFlags.EXPLOSION_DROPS);
 	}
 
+	/**
+	 * Compiles these drops into a flat form used by all following {@link #getDrops(Random, Set, List)} calls<br>
+	 * When the drops are changed afterwards, they are compiled again on their next use.
+	 *
+	 * @return these Drops
+	 */
+	public BlockDrops compile() {
+		this.compiled = new CompiledDrops(this);
+		return this;
+	}
+
+	private CompiledDrops getCompiled() {
+		CompiledDrops compiled = this.compiled;
+		if (compiled != null && !compiled.isCurrent()) {
+			compiled = new CompiledDrops(this);
+			this.compiled = compiled;
+		}
+		return compiled;
+	}
+
+	@Override
+	public List<ItemStack> getDrops(Random random, Set<Flag> flags, List<ItemStack> drops) {
+		CompiledDrops compiled = getCompiled();
+		if (compiled == null) {
+			return super.getDrops(random, flags, drops);
+		}
+		return compiled.getDrops(random, flags, drops);
+	}
+
+	/**
+	 * Fills a list with the Drops
+	 *
+	 * @param random to use
+	 * @param mask of the flags to evaluate against, see {@link FlagMaskSet#getMask()}
+	 * @param drops list to fill
+	 * @return the inputed list of drops
+	 */
+	public List<ItemStack> getDrops(Random random, long mask, List<ItemStack> drops) {
+		CompiledDrops compiled = getCompiled();
+		if (compiled == null) {
+			return super.getDrops(random, FlagMaskSet.of(mask), drops);
+		}
+		return compiled.getDrops(random, mask, drops);
+	}
+
 	@Override
 	public BlockDrops clear() {
 		super.clear();
@@ -32,6 +32,8 @@ import java.util.Collection;
 import org.spout.api.entity.Player;
 import org.spout.api.geo.discrete.Point;
 
+import org.spout.vanilla.VanillaPlugin;
+
 public abstract class Effect implements Serializable {
 	private static final long serialVersionUID = 1L;
 	private final int range;
@@ -91,7 +93,32 @@ public abstract class Effect implements Serializable {
 	 * @param position to play at
 	 * @param ignore Entity to ignore
 	 */
-	public void playGlobal(Point position, Player ignore) {
-		this.play(getNearbyPlayers(position, ignore), position);
+	public void playGlobal(final Point position, Player ignore) {
+		broadcast(position, ignore, getRange(), new EffectBuffer.Delivery() {
+			@Override
+			public void play(Collection<Player> players) {
+				Effect.this.play(players, position);
+			}
+		});
+	}
+
+	/**
+	 * Plays an effect to all players within range of a position, except the Player Entity specified.<br>
+	 * On the server the effect is sent together with all other effects of the current tick.
+	 *
+	 * @param position to play at
+	 * @param ignore Entity to ignore
+	 * @param range in blocks
+	 * @param delivery that plays the effect to the players in range
+	 * @param arguments the effect is played with, identical effects at the same position are only sent once per tick
+	 */
+	protected void broadcast(Point position, Player ignore, int range, EffectBuffer.Delivery delivery, Object... arguments) {
+		VanillaPlugin plugin = VanillaPlugin.getInstance();
+		EffectBuffer buffer = plugin == null ? null : plugin.getEffectBuffer();
+		if (buffer == null) {
+			delivery.play(position.getWorld().getNearbyPlayers(position, ignore, range));
+		} else {
+			buffer.offer(new EffectBuffer.Broadcast(this, position, ignore, range, delivery, arguments));
+		}
 	}
 }
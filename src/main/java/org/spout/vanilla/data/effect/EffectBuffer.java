@@ -0,0 +1,238 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.data.effect;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.spout.api.entity.Player;
+import org.spout.api.geo.World;
+import org.spout.api.geo.cuboid.Region;
+import org.spout.api.geo.discrete.Point;
+import org.spout.api.util.hashing.IntPairHashed;
+
+/**
+ * Collects the effects played globally during a tick and sends them all at once.<br><br>
+ *
+ * Identical effects played at the same position in the same tick are only sent once. Receivers are looked up in a snapshot of the player positions of each world that is taken once per
+ * flush and grouped by region column, instead of asking the world for nearby players for every single effect.
+ */
+public class EffectBuffer implements Runnable {
+	private final Queue<Broadcast> queue = new ConcurrentLinkedQueue<Broadcast>();
+	private long sent = 0;
+	private long collapsed = 0;
+
+	/**
+	 * Queues an effect to be sent on the next flush
+	 *
+	 * @param broadcast to send
+	 */
+	public void offer(Broadcast broadcast) {
+		queue.offer(broadcast);
+	}
+
+	@Override
+	public void run() {
+		if (queue.isEmpty()) {
+			return;
+		}
+		// Collapse exact duplicates, keeping the order effects were played in
+		Set<Broadcast> pending = new LinkedHashSet<Broadcast>();
+		int offered = 0;
+		Broadcast next;
+		while ((next = queue.poll()) != null) {
+			pending.add(next);
+			offered++;
+		}
+		collapsed += offered - pending.size();
+
+		Map<World, Map<Long, List<Receiver>>> receivers = new HashMap<World, Map<Long, List<Receiver>>>();
+		for (Broadcast broadcast : pending) {
+			Map<Long, List<Receiver>> regions = receivers.get(broadcast.world);
+			if (regions == null) {
+				regions = getReceivers(broadcast.world);
+				receivers.put(broadcast.world, regions);
+			}
+			broadcast.delivery.play(getRecipients(broadcast, regions));
+			sent++;
+		}
+	}
+
+	private static Map<Long, List<Receiver>> getReceivers(World world) {
+		Map<Long, List<Receiver>> regions = new HashMap<Long, List<Receiver>>();
+		for (Player player : world.getPlayers()) {
+			if (!player.isOnline()) {
+				continue;
+			}
+			Receiver receiver = new Receiver(player, player.getPhysics().getPosition());
+			long key = IntPairHashed.key((int) Math.floor(receiver.x) >> Region.BLOCKS.BITS, (int) Math.floor(receiver.z) >> Region.BLOCKS.BITS);
+			List<Receiver> region = regions.get(key);
+			if (region == null) {
+				region = new ArrayList<Receiver>();
+				regions.put(key, region);
+			}
+			region.add(receiver);
+		}
+		return regions;
+	}
+
+	private static Collection<Player> getRecipients(Broadcast broadcast, Map<Long, List<Receiver>> regions) {
+		List<Player> recipients = new ArrayList<Player>();
+		if (regions.isEmpty()) {
+			return recipients;
+		}
+		final int range = broadcast.range;
+		final float rangeSquared = (float) range * range;
+		int minX = (int) Math.floor(broadcast.x - range) >> Region.BLOCKS.BITS;
+		int maxX = (int) Math.floor(broadcast.x + range) >> Region.BLOCKS.BITS;
+		int minZ = (int) Math.floor(broadcast.z - range) >> Region.BLOCKS.BITS;
+		int maxZ = (int) Math.floor(broadcast.z + range) >> Region.BLOCKS.BITS;
+		for (int rx = minX; rx <= maxX; rx++) {
+			for (int rz = minZ; rz <= maxZ; rz++) {
+				List<Receiver> region = regions.get(IntPairHashed.key(rx, rz));
+				if (region == null) {
+					continue;
+				}
+				for (Receiver receiver : region) {
+					if (receiver.player == broadcast.ignore) {
+						continue;
+					}
+					float dx = receiver.x - broadcast.x, dy = receiver.y - broadcast.y, dz = receiver.z - broadcast.z;
+					if (dx * dx + dy * dy + dz * dz <= rangeSquared) {
+						recipients.add(receiver.player);
+					}
+				}
+			}
+		}
+		return recipients;
+	}
+
+	/**
+	 * Gets the amount of effects sent by this buffer
+	 *
+	 * @return sent effects
+	 */
+	public long getSent() {
+		return sent;
+	}
+
+	/**
+	 * Gets the amount of effects that were dropped because the same effect was already played at the same position in the same tick
+	 *
+	 * @return collapsed effects
+	 */
+	public long getCollapsed() {
+		return collapsed;
+	}
+
+	/**
+	 * Sends an effect to a resolved set of players
+	 */
+	public interface Delivery {
+		public void play(Collection<Player> players);
+	}
+
+	/**
+	 * An effect played at a position, to everyone within range except an ignored player
+	 */
+	public static final class Broadcast {
+		private final Effect effect;
+		private final World world;
+		private final float x, y, z;
+		private final Player ignore;
+		private final int range;
+		private final Object[] arguments;
+		private final Delivery delivery;
+		private final int hash;
+
+		/**
+		 * Creates a new broadcast
+		 *
+		 * @param effect that is played
+		 * @param position to play at
+		 * @param ignore player that does not receive the effect, can be null
+		 * @param range in blocks
+		 * @param delivery that sends the effect to the receivers
+		 * @param arguments the effect is played with, broadcasts are only collapsed when these are equal
+		 */
+		public Broadcast(Effect effect, Point position, Player ignore, int range, Delivery delivery, Object... arguments) {
+			this.effect = effect;
+			this.world = position.getWorld();
+			this.x = position.getX();
+			this.y = position.getY();
+			this.z = position.getZ();
+			this.ignore = ignore;
+			this.range = range;
+			this.delivery = delivery;
+			this.arguments = arguments;
+			int hash = System.identityHashCode(effect);
+			hash = 31 * hash + Float.floatToIntBits(x);
+			hash = 31 * hash + Float.floatToIntBits(y);
+			hash = 31 * hash + Float.floatToIntBits(z);
+			hash = 31 * hash + Arrays.hashCode(arguments);
+			this.hash = hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			}
+			if (!(obj instanceof Broadcast)) {
+				return false;
+			}
+			Broadcast other = (Broadcast) obj;
+			return hash == other.hash && effect == other.effect && world == other.world && x == other.x && y == other.y && z == other.z
+					&& ignore == other.ignore && range == other.range && Arrays.equals(arguments, other.arguments);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+	private static class Receiver {
+		private final Player player;
+		private final float x, y, z;
+
+		private Receiver(Player player, Point position) {
+			this.player = player;
+			this.x = position.getX();
+			this.y = position.getY();
+			this.z = position.getZ();
+		}
+	}
+}
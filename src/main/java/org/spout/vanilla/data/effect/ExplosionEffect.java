@@ -70,7 +70,12 @@ public class ExplosionEffect extends Effect {
 		this.playGlobal(position, size, null);
 	}
 
-	public void playGlobal(Point position, float size, Player ignore) {
-		this.play(getNearbyPlayers(position, ignore), position, size);
+	public void playGlobal(final Point position, final float size, Player ignore) {
+		broadcast(position, ignore, getRange(), new EffectBuffer.Delivery() {
+			@Override
+			public void play(Collection<Player> players) {
+				ExplosionEffect.this.play(players, position, size);
+			}
+		}, size);
 	}
 }
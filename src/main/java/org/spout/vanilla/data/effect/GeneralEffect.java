@@ -89,7 +89,12 @@ public class GeneralEffect extends Effect {
 		this.playGlobal(position, data, null);
 	}
 
-	public void playGlobal(Point position, int data, Player ignore) {
-		this.play(getNearbyPlayers(position, ignore), position, data);
+	public void playGlobal(final Point position, final int data, Player ignore) {
+		broadcast(position, ignore, getRange(), new EffectBuffer.Delivery() {
+			@Override
+			public void play(Collection<Player> players) {
+				GeneralEffect.this.play(players, position, data);
+			}
+		}, data);
 	}
 }
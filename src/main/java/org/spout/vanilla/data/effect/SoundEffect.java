@@ -109,12 +109,22 @@ public class SoundEffect extends Effect {
 	 * @return a Set of nearby Players
 	 */
 	public Collection<Player> getNearbyPlayers(Point position, Player ignore, float volume) {
+		return position.getWorld().getNearbyPlayers(position, ignore, getRange(volume));
+	}
+
+	/**
+	 * Gets the Block range within this Sound is heard at a certain volume
+	 *
+	 * @param volume of the sound
+	 * @return range
+	 */
+	public int getRange(float volume) {
 		int range = this.getRange();
 		if (volume > 1.0f) {
 			// Multiply range for different volumes
 			range *= volume;
 		}
-		return position.getWorld().getNearbyPlayers(position, ignore, range);
+		return range;
 	}
 
 	@Override
@@ -136,7 +146,12 @@ public class SoundEffect extends Effect {
 		this.playGlobal(position, volume, pitch, null);
 	}
 
-	public void playGlobal(Point position, float volume, float pitch, Player ignore) {
-		this.play(getNearbyPlayers(position, ignore, volume), position, volume, pitch);
+	public void playGlobal(final Point position, final float volume, final float pitch, Player ignore) {
+		broadcast(position, ignore, getRange(volume), new EffectBuffer.Delivery() {
+			@Override
+			public void play(Collection<Player> players) {
+				SoundEffect.this.play(players, position, volume, pitch);
+			}
+		}, volume, pitch);
 	}
 }
@@ -32,6 +32,7 @@ import org.spout.api.entity.Player;
 import org.spout.api.geo.discrete.Point;
 import org.spout.api.material.BlockMaterial;
 
+import org.spout.vanilla.data.effect.EffectBuffer;
 import org.spout.vanilla.data.effect.GeneralEffect;
 import org.spout.vanilla.material.VanillaMaterials;
 
@@ -60,7 +61,12 @@ public class BreakBlockEffect extends GeneralEffect {
 		this.playGlobal(position, material, null);
 	}
 
-	public void playGlobal(Point position, BlockMaterial material, Player ignore) {
-		this.play(getNearbyPlayers(position, ignore), position, material);
+	public void playGlobal(final Point position, final BlockMaterial material, Player ignore) {
+		broadcast(position, ignore, getRange(), new EffectBuffer.Delivery() {
+			@Override
+			public void play(Collection<Player> players) {
+				BreakBlockEffect.this.play(players, position, material);
+			}
+		}, material);
 	}
 }
@@ -31,6 +31,7 @@ import java.util.Collection;
 import org.spout.api.entity.Player;
 import org.spout.api.geo.discrete.Point;
 
+import org.spout.vanilla.data.effect.EffectBuffer;
 import org.spout.vanilla.data.effect.SoundEffect;
 
 public class NoteSoundEffect extends SoundEffect {
@@ -65,14 +66,19 @@ public class NoteSoundEffect extends SoundEffect {
 	}
 
 	public void playGlobal(Point position, float volume, int tone) {
-		this.play(getNearbyPlayers(position, null, volume), position, volume, tone);
+		this.playGlobal(position, null, volume, tone);
 	}
 
 	public void playGlobal(Point position, Player ignore, int tone) {
 		this.playGlobal(position, ignore, this.getDefaultVolume(), tone);
 	}
 
-	public void playGlobal(Point position, Player ignore, float volume, int tone) {
-		this.play(getNearbyPlayers(position, ignore, volume), position, volume, tone);
+	public void playGlobal(final Point position, Player ignore, final float volume, final int tone) {
+		broadcast(position, ignore, getRange(volume), new EffectBuffer.Delivery() {
+			@Override
+			public void play(Collection<Player> players) {
+				NoteSoundEffect.this.play(players, position, volume, tone);
+			}
+		}, volume, tone);
 	}
 }
@@ -32,6 +32,7 @@ import org.spout.api.entity.Player;
 import org.spout.api.geo.discrete.Point;
 
 import org.spout.vanilla.data.effect.Effect;
+import org.spout.vanilla.data.effect.EffectBuffer;
 import org.spout.vanilla.data.effect.store.SoundEffects;
 
 public class PressBlockEffect extends Effect {
@@ -64,7 +65,12 @@ public class PressBlockEffect extends Effect {
 		this.playGlobal(position, pressed, null);
 	}
 
-	public void playGlobal(Point position, boolean pressed, Player ignore) {
-		this.play(getNearbyPlayers(position, ignore), position, pressed);
+	public void playGlobal(final Point position, final boolean pressed, Player ignore) {
+		broadcast(position, ignore, getRange(), new EffectBuffer.Delivery() {
+			@Override
+			public void play(Collection<Player> players) {
+				PressBlockEffect.this.play(players, position, pressed);
+			}
+		}, pressed);
 	}
 }
@@ -31,6 +31,7 @@ import java.util.Collection;
 import org.spout.api.entity.Player;
 import org.spout.api.geo.discrete.Point;
 
+import org.spout.vanilla.data.effect.EffectBuffer;
 import org.spout.vanilla.data.effect.SoundEffect;
 import org.spout.vanilla.data.effect.store.GeneralEffects;
 
@@ -72,7 +73,12 @@ public class ToggleSoundEffect extends SoundEffect {
 		this.playGlobal(position, open, null);
 	}
 
-	public void playGlobal(Point position, boolean open, Player ignore) {
-		this.play(getNearbyPlayers(position, ignore), position, open);
+	public void playGlobal(final Point position, final boolean open, Player ignore) {
+		broadcast(position, ignore, getRange(), new EffectBuffer.Delivery() {
+			@Override
+			public void play(Collection<Player> players) {
+				ToggleSoundEffect.this.play(players, position, open);
+			}
+		}, open);
 	}
 }
@@ -0,0 +1,97 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.event.game;
+
+import org.spout.api.event.Cancellable;
+import org.spout.api.event.Event;
+import org.spout.api.event.HandlerList;
+
+/**
+ * Event which is called when the server wide view distance limit changes, because ticks started to overrun or headroom returned
+ */
+public class ViewDistanceChangeEvent extends Event implements Cancellable {
+	private static final HandlerList handlers = new HandlerList();
+	private final int oldDistance;
+	private int newDistance;
+	private final float tps;
+
+	public ViewDistanceChangeEvent(int oldDistance, int newDistance, float tps) {
+		this.oldDistance = oldDistance;
+		this.newDistance = newDistance;
+		this.tps = tps;
+	}
+
+	/**
+	 * Gets the view distance limit before the change, in chunks
+	 *
+	 * @return old view distance limit
+	 */
+	public int getOldDistance() {
+		return oldDistance;
+	}
+
+	/**
+	 * Gets the view distance limit after the change, in chunks
+	 *
+	 * @return new view distance limit
+	 */
+	public int getNewDistance() {
+		return newDistance;
+	}
+
+	/**
+	 * Sets the view distance limit after the change, in chunks
+	 *
+	 * @param newDistance view distance limit
+	 */
+	public void setNewDistance(int newDistance) {
+		this.newDistance = newDistance;
+	}
+
+	/**
+	 * Gets the ticks per second that caused the change
+	 *
+	 * @return ticks per second
+	 */
+	public float getTPS() {
+		return tps;
+	}
+
+	@Override
+	public void setCancelled(boolean cancelled) {
+		super.setCancelled(cancelled);
+	}
+
+	@Override
+	public HandlerList getHandlers() {
+		return handlers;
+	}
+
+	public static HandlerList getHandlerList() {
+		return handlers;
+	}
+}
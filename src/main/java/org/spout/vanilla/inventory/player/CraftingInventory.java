@@ -26,10 +26,6 @@
  */
 package org.spout.vanilla.inventory.player;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
 import org.spout.api.inventory.Inventory;
 import org.spout.api.inventory.InventoryViewer;
 import org.spout.api.inventory.ItemStack;
@@ -41,6 +37,7 @@ import org.spout.api.material.Material;
 
 import org.spout.vanilla.VanillaPlugin;
 import org.spout.vanilla.component.entity.inventory.PlayerInventory;
+import org.spout.vanilla.inventory.recipe.VanillaRecipes;
 
 /**
  * Represents an inventory that contains a crafting matrix.
@@ -150,33 +147,19 @@ public abstract class CraftingInventory extends Inventory {
 	public void updateOutput() {
 		GridIterator iterator = grid.iterator();
 		int rowSize = getGrid().getLength();
-		List<List<Material>> materials = new ArrayList<List<Material>>();
-		List<Material> current = new ArrayList<Material>();
-		List<Material> shapeless = new ArrayList<Material>();
+		int rows = getGrid().getSize() / rowSize;
+		Material[] materials = new Material[rowSize * rows];
 		int cntr = 0;
 		while (iterator.hasNext()) {
 			ItemStack item = get(iterator.next());
-			cntr++;
-			Material mat = null;
 			if (item != null) {
-				mat = item.getMaterial();
-			}
-			current.add(mat);
-			if (mat != null) {
-				shapeless.add(mat);
-			}
-			if (cntr >= rowSize) {
-				materials.add(current);
-				current = new ArrayList<Material>();
-				cntr = 0;
+				// The matcher expects the rows in reverse order
+				materials[(rows - 1 - cntr / rowSize) * rowSize + cntr % rowSize] = item.getMaterial();
 			}
+			cntr++;
 		}
 		RecipeManager recipeManager = VanillaPlugin.getInstance().getEngine().getRecipeManager();
-		Collections.reverse(materials);
-		Recipe recipe = recipeManager.matchShapedRecipe(materials);
-		if (recipe == null) {
-			recipe = recipeManager.matchShapelessRecipe(shapeless);
-		}
+		Recipe recipe = VanillaRecipes.getIndex().match(recipeManager, materials, rowSize, rows);
 		if (recipe != null) {
 			updateCraftingSlot(recipe.getResult());
 			return;
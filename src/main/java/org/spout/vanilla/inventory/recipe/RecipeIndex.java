@@ -0,0 +1,238 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.inventory.recipe;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.spout.api.inventory.recipe.Recipe;
+import org.spout.api.inventory.recipe.RecipeManager;
+import org.spout.api.material.Material;
+
+/**
+ * Caches the recipe matched by a crafting grid.<br>
+ * A grid is reduced to its signature first: the shape with empty border rows and columns trimmed off.
+ * Shaped recipes are looked up by that shape, shapeless recipes by the sorted multiset of its materials,
+ * so every arrangement of the same shapeless ingredients shares one entry.
+ * Only misses are handed to the {@link RecipeManager}.<br><br>
+ *
+ * Recipes can be registered and removed through the engine's manager at any time, so the index compares a fingerprint of the registered recipes
+ * at most every {@link #CHECK_INTERVAL} milliseconds and forgets its signatures when it changed.
+ * Code that changes recipes should call {@link #clear()} as well, so the new recipes are used right away.
+ */
+public class RecipeIndex {
+	/**
+	 * The maximum amount of cached signatures per table before the table is cleared
+	 */
+	public static final int MAX_ENTRIES = 4096;
+	/**
+	 * The minimum time in milliseconds between two checks of the registered recipes
+	 */
+	public static final long CHECK_INTERVAL = 1000;
+	private static final Object NO_MATCH = new Object();
+	private static final Comparator<Material> MATERIAL_ORDER = new Comparator<Material>() {
+		@Override
+		public int compare(Material a, Material b) {
+			if (a.getId() != b.getId()) {
+				return a.getId() - b.getId();
+			}
+			return a.getData() - b.getData();
+		}
+	};
+	private final Map<Signature, Object> shaped = new ConcurrentHashMap<Signature, Object>();
+	private final Map<Signature, Object> shapeless = new ConcurrentHashMap<Signature, Object>();
+	private volatile long nextCheck = 0;
+	private volatile int registered = 0;
+
+	/**
+	 * Finds the recipe crafted by the grid, trying shaped recipes before shapeless ones.
+	 *
+	 * @param manager to match unknown signatures with
+	 * @param grid materials of the grid row by row, in the row order of {@link RecipeManager#matchShapedRecipe(List)}, empty slots are null
+	 * @param width of a row in the grid
+	 * @param height amount of rows in the grid
+	 * @return the matching recipe, or null if none matches
+	 */
+	public Recipe match(RecipeManager manager, Material[] grid, int width, int height) {
+		validate(manager);
+		Signature shape = Signature.trim(grid, width, height);
+		if (shape == null) {
+			return null;
+		}
+		Object result = shaped.get(shape);
+		if (result == null) {
+			result = manager.matchShapedRecipe(shape.toRows());
+			if (result == null) {
+				result = matchShapeless(manager, shape);
+			}
+			put(shaped, shape, result);
+		}
+		return result == NO_MATCH ? null : (Recipe) result;
+	}
+
+	private Object matchShapeless(RecipeManager manager, Signature shape) {
+		Signature multiset = shape.toMultiset();
+		Object result = shapeless.get(multiset);
+		if (result == null) {
+			result = manager.matchShapelessRecipe(multiset.toList());
+			put(shapeless, multiset, result);
+		}
+		return result == null ? NO_MATCH : result;
+	}
+
+	private void validate(RecipeManager manager) {
+		long now = System.currentTimeMillis();
+		if (now < nextCheck) {
+			return;
+		}
+		nextCheck = now + CHECK_INTERVAL;
+		Set<Recipe> recipes = manager.getAllRecipes();
+		int fingerprint = recipes.size();
+		for (Recipe recipe : recipes) {
+			fingerprint += System.identityHashCode(recipe);
+		}
+		if (fingerprint != registered) {
+			registered = fingerprint;
+			clear();
+		}
+	}
+
+	private static void put(Map<Signature, Object> table, Signature key, Object result) {
+		if (table.size() >= MAX_ENTRIES) {
+			table.clear();
+		}
+		table.put(key, result == null ? NO_MATCH : result);
+	}
+
+	/**
+	 * Forgets all cached signatures, this has to be called when the registered recipes change
+	 */
+	public void clear() {
+		shaped.clear();
+		shapeless.clear();
+	}
+
+	/**
+	 * Gets the amount of cached signatures
+	 *
+	 * @return cached shaped and shapeless signatures
+	 */
+	public int size() {
+		return shaped.size() + shapeless.size();
+	}
+
+	/**
+	 * A trimmed grid shape, or a sorted material multiset when the height is 0
+	 */
+	private static final class Signature {
+		private final Material[] cells;
+		private final int width, height, hash;
+
+		private Signature(Material[] cells, int width, int height) {
+			this.cells = cells;
+			this.width = width;
+			this.height = height;
+			this.hash = 31 * (31 * width + height) + Arrays.hashCode(cells);
+		}
+
+		private static Signature trim(Material[] grid, int width, int height) {
+			int minX = width, maxX = -1, minY = height, maxY = -1;
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					if (grid[y * width + x] != null) {
+						minX = Math.min(minX, x);
+						maxX = Math.max(maxX, x);
+						minY = Math.min(minY, y);
+						maxY = Math.max(maxY, y);
+					}
+				}
+			}
+			if (maxX < 0) {
+				return null;
+			}
+			int trimmedWidth = maxX - minX + 1;
+			int trimmedHeight = maxY - minY + 1;
+			Material[] cells = new Material[trimmedWidth * trimmedHeight];
+			for (int y = 0; y < trimmedHeight; y++) {
+				System.arraycopy(grid, (minY + y) * width + minX, cells, y * trimmedWidth, trimmedWidth);
+			}
+			return new Signature(cells, trimmedWidth, trimmedHeight);
+		}
+
+		private Signature toMultiset() {
+			int count = 0;
+			for (Material cell : cells) {
+				if (cell != null) {
+					count++;
+				}
+			}
+			Material[] materials = new Material[count];
+			count = 0;
+			for (Material cell : cells) {
+				if (cell != null) {
+					materials[count++] = cell;
+				}
+			}
+			Arrays.sort(materials, MATERIAL_ORDER);
+			return new Signature(materials, count, 0);
+		}
+
+		private List<List<Material>> toRows() {
+			List<List<Material>> rows = new ArrayList<List<Material>>(height);
+			for (int y = 0; y < height; y++) {
+				rows.add(Arrays.asList(Arrays.copyOfRange(cells, y * width, (y + 1) * width)));
+			}
+			return rows;
+		}
+
+		private List<Material> toList() {
+			return Arrays.asList(cells);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (obj == this) {
+				return true;
+			}
+			if (!(obj instanceof Signature)) {
+				return false;
+			}
+			Signature other = (Signature) obj;
+			return hash == other.hash && width == other.width && height == other.height && Arrays.equals(cells, other.cells);
+		}
+	}
+}
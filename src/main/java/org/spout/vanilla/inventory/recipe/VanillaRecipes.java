@@ -36,6 +36,7 @@ import org.spout.vanilla.data.resources.RecipeYaml;
 
 public class VanillaRecipes {
 	private static final Map<String, Recipe> yamlRecipes = new ConcurrentHashMap<String, Recipe>();
+	private static final RecipeIndex index = new RecipeIndex();
 
 	public static void initialize() {
 		yamlRecipes.clear();
@@ -44,9 +45,29 @@ public class VanillaRecipes {
 			VanillaPlugin.getInstance().getEngine().getRecipeManager().register(recipe);
 			yamlRecipes.put(key, recipe);
 		}
+		index.clear();
+	}
+
+	/**
+	 * Registers a recipe with the engine and makes crafting grids use it right away
+	 *
+	 * @param recipe to register
+	 */
+	public static void register(Recipe recipe) {
+		VanillaPlugin.getInstance().getEngine().getRecipeManager().register(recipe);
+		index.clear();
 	}
 
 	public static Recipe get(String name) {
 		return yamlRecipes.get(name);
 	}
+
+	/**
+	 * Gets the index used to look up the recipes crafted by crafting grids
+	 *
+	 * @return recipe index
+	 */
+	public static RecipeIndex getIndex() {
+		return index;
+	}
 }
@@ -0,0 +1,293 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.inventory.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.spout.api.inventory.Inventory;
+import org.spout.api.inventory.ItemStack;
+import org.spout.api.inventory.Slot;
+
+/**
+ * Moves items through hoppers in batched passes.<br><br>
+ *
+ * Nodes are grouped by the chunk column they are in and every pass walks the columns in a fixed order. A pass first counts down every cooldown, then lets the hoppers that are ready move an
+ * item, the ones further down a chain first. A hopper that receives an item from another hopper is put on cooldown, so an item moves at most one hopper per {@link #TRANSFER_COOLDOWN} ticks and
+ * long chains behave the same no matter the order in which hoppers were added.
+ */
+public class HopperTransfer {
+	/**
+	 * Amount of ticks a hopper waits after it moved an item
+	 */
+	public static final int TRANSFER_COOLDOWN = 8;
+	private final TreeMap<Long, List<Node>> columns = new TreeMap<Long, List<Node>>();
+	private final Map<Inventory, Node> byInventory = new IdentityHashMap<Inventory, Node>();
+	private long transfers = 0;
+
+	/**
+	 * Adds a hopper to the batch of its chunk column
+	 *
+	 * @param node to add
+	 */
+	public synchronized void add(Node node) {
+		List<Node> column = columns.get(node.getColumn());
+		if (column == null) {
+			column = new ArrayList<Node>();
+			columns.put(node.getColumn(), column);
+		}
+		if (!column.contains(node)) {
+			column.add(node);
+		}
+		byInventory.put(node.getInventory(), node);
+	}
+
+	/**
+	 * Removes a hopper from the batch of its chunk column
+	 *
+	 * @param node to remove
+	 */
+	public synchronized void remove(Node node) {
+		List<Node> column = columns.get(node.getColumn());
+		if (column != null) {
+			column.remove(node);
+			if (column.isEmpty()) {
+				columns.remove(node.getColumn());
+			}
+		}
+		byInventory.remove(node.getInventory());
+	}
+
+	/**
+	 * Gets the amount of registered hoppers
+	 *
+	 * @return amount of hoppers
+	 */
+	public synchronized int size() {
+		return byInventory.size();
+	}
+
+	/**
+	 * Gets the amount of items moved since this batch was created
+	 *
+	 * @return amount of moved items
+	 */
+	public synchronized long getTransfers() {
+		return transfers;
+	}
+
+	/**
+	 * Performs a single tick for all registered hoppers
+	 */
+	public synchronized void tick() {
+		// Count down first, so every hopper sees the same tick
+		List<Node> ready = new ArrayList<Node>();
+		for (List<Node> column : columns.values()) {
+			for (int i = 0; i < column.size(); i++) {
+				Node node = column.get(i);
+				if (node.getCooldown() > 0) {
+					node.setCooldown(node.getCooldown() - 1);
+				}
+				if (node.getCooldown() <= 0 && !node.isPowered()) {
+					ready.add(node);
+				}
+			}
+		}
+		if (ready.isEmpty()) {
+			return;
+		}
+		Set<Node> pending = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+		pending.addAll(ready);
+		List<Node> chain = new ArrayList<Node>();
+		for (Node node : ready) {
+			// Hoppers further down a chain move first, so the result does not depend on the order hoppers were added in
+			while (node != null && pending.remove(node)) {
+				chain.add(node);
+				node = getReceiver(node.getOutput());
+			}
+			for (int i = chain.size() - 1; i >= 0; i--) {
+				Node next = chain.get(i);
+				if (update(next)) {
+					next.setCooldown(TRANSFER_COOLDOWN);
+				}
+			}
+			chain.clear();
+		}
+	}
+
+	private Node getReceiver(Slot[] output) {
+		if (output == null || output.length == 0) {
+			return null;
+		}
+		return byInventory.get(output[0].getInventory());
+	}
+
+	private boolean update(Node node) {
+		boolean moved = false;
+		Slot[] own = slots(node.getInventory());
+		Slot[] output = node.getOutput();
+		if (output != null && output.length > 0) {
+			Slot target = move(own, output);
+			if (target != null) {
+				moved = true;
+				// An item that entered a hopper waits there for a full cooldown
+				Node receiver = byInventory.get(target.getInventory());
+				if (receiver != null && receiver.getCooldown() <= 0) {
+					receiver.setCooldown(TRANSFER_COOLDOWN);
+				}
+			}
+		}
+		Slot[] input = node.getInput();
+		if (input != null) {
+			moved |= move(input, own) != null;
+		} else {
+			moved |= node.collectItems();
+		}
+		if (moved) {
+			transfers++;
+		}
+		return moved;
+	}
+
+	/**
+	 * Moves a single item from the first non-empty slot that fits into the target slots, filling up partial stacks before empty slots.
+	 *
+	 * @param from slots to take the item from
+	 * @param to slots to put the item in
+	 * @return the slot that received the item, or null if nothing was moved
+	 */
+	public static Slot move(Slot[] from, Slot[] to) {
+		for (Slot source : from) {
+			ItemStack item = source.get();
+			if (item == null || item.isEmpty()) {
+				continue;
+			}
+			Slot target = insert(item, to);
+			if (target != null) {
+				source.getInventory().addAmount(source.getIndex(), -1);
+				return target;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Puts a single item of the given stack in the first of the given slots that accepts it, filling up partial stacks before empty slots.<br>
+	 * The given stack is not modified.
+	 *
+	 * @param item to put a single item of
+	 * @param to slots to put the item in
+	 * @return the slot that received the item, or null if none accepted it
+	 */
+	public static Slot insert(ItemStack item, Slot[] to) {
+		ItemStack one = item.clone().setAmount(1);
+		for (Slot target : to) {
+			ItemStack current = target.get();
+			if (current != null && current.getAmount() < current.getMaxStackSize() && current.equalsIgnoreSize(one) && target.getInventory().canSet(target.getIndex(), one)) {
+				target.getInventory().addAmount(target.getIndex(), 1);
+				return target;
+			}
+		}
+		for (Slot target : to) {
+			if (target.get() == null && target.getInventory().canSet(target.getIndex(), one)) {
+				target.getInventory().set(target.getIndex(), one);
+				return target;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Gets all slots of an inventory
+	 *
+	 * @param inventory to get the slots of
+	 * @return slots in order
+	 */
+	public static Slot[] slots(Inventory inventory) {
+		Slot[] slots = new Slot[inventory.size()];
+		for (int i = 0; i < slots.length; i++) {
+			slots[i] = new Slot(inventory, i);
+		}
+		return slots;
+	}
+
+	/**
+	 * A hopper that takes part in the transfer passes
+	 */
+	public interface Node {
+		/**
+		 * Gets the chunk column this hopper is batched in, as hashed by {@link org.spout.api.util.hashing.IntPairHashed}
+		 *
+		 * @return column key
+		 */
+		public long getColumn();
+
+		/**
+		 * Gets the inventory of this hopper
+		 *
+		 * @return inventory
+		 */
+		public Inventory getInventory();
+
+		/**
+		 * Powered hoppers neither push nor pull items
+		 *
+		 * @return true if powered
+		 */
+		public boolean isPowered();
+
+		/**
+		 * Gets the slots of the container this hopper pushes items into
+		 *
+		 * @return slots to push into, null if there is no container
+		 */
+		public Slot[] getOutput();
+
+		/**
+		 * Gets the slots of the container above this hopper that it pulls items from
+		 *
+		 * @return slots to pull from, null if there is no container
+		 */
+		public Slot[] getInput();
+
+		/**
+		 * Collects item entities lying on top of this hopper, only called when there is no container above
+		 *
+		 * @return true if anything was collected
+		 */
+		public boolean collectItems();
+
+		public int getCooldown();
+
+		public void setCooldown(int cooldown);
+	}
+}
@@ -26,6 +26,7 @@
  */
 package org.spout.vanilla.inventory.window;
 
+import java.util.BitSet;
 import java.util.logging.Level;
 
 import gnu.trove.map.TObjectIntMap;
@@ -45,10 +46,16 @@ import org.spout.vanilla.component.entity.inventory.PlayerInventory;
 import org.spout.vanilla.event.inventory.InventoryCanSetEvent;
 import org.spout.vanilla.event.window.WindowItemsEvent;
 import org.spout.vanilla.event.window.WindowPropertyEvent;
+import org.spout.vanilla.event.window.WindowSlotEvent;
 import org.spout.vanilla.inventory.window.prop.WindowProperty;
 
 public abstract class AbstractWindow implements InventoryViewer {
+	/**
+	 * Amount of changed slots above which a single full window sync is sent instead of individual slot updates
+	 */
+	public static final int FULL_SYNC_THRESHOLD = 12;
 	private final Player owner;
+	private final BitSet dirtySlots = new BitSet();
 	protected final int offset;
 	protected final String title;
 	protected final WindowType type;
@@ -112,6 +119,9 @@ public abstract class AbstractWindow implements InventoryViewer {
 	 * Reloads the window's items
 	 */
 	public final void reload() {
+		synchronized (dirtySlots) {
+			dirtySlots.clear();
+		}
 		ItemStack[] items = new ItemStack[getSize()];
 		for (int i = 0; i < items.length; i++) {
 			Slot entry = getSlot(i);
@@ -122,6 +132,66 @@ public abstract class AbstractWindow implements InventoryViewer {
 		getPlayer().getNetwork().callProtocolEvent(new WindowItemsEvent(this, items), getPlayer());
 	}
 
+	/**
+	 * Marks a native slot as changed, the client is updated on the next {@link #flush()}
+	 *
+	 * @param nativeSlot that changed
+	 */
+	public final void markDirty(int nativeSlot) {
+		if (nativeSlot < 0) {
+			return;
+		}
+		synchronized (dirtySlots) {
+			dirtySlots.set(nativeSlot);
+		}
+	}
+
+	/**
+	 * Checks whether any slot changed since the last flush or reload
+	 *
+	 * @return true if there are pending slot changes
+	 */
+	public final boolean isDirty() {
+		synchronized (dirtySlots) {
+			return !dirtySlots.isEmpty();
+		}
+	}
+
+	/**
+	 * Discards all pending slot changes without sending them
+	 */
+	public final void clearDirty() {
+		synchronized (dirtySlots) {
+			dirtySlots.clear();
+		}
+	}
+
+	/**
+	 * Sends all slot changes since the last flush or reload to the client.<br/>
+	 * Every changed slot is sent once with its current item, or the whole window is
+	 * reloaded when more than {@link #FULL_SYNC_THRESHOLD} slots changed.
+	 */
+	public final void flush() {
+		final BitSet changed;
+		synchronized (dirtySlots) {
+			if (dirtySlots.isEmpty()) {
+				return;
+			}
+			changed = (BitSet) dirtySlots.clone();
+			dirtySlots.clear();
+		}
+		if (changed.cardinality() > FULL_SYNC_THRESHOLD) {
+			reload();
+			return;
+		}
+		for (int i = changed.nextSetBit(0); i >= 0; i = changed.nextSetBit(i + 1)) {
+			Slot entry = getSlot(i);
+			if (entry != null && entry.getInventory() != null) {
+				getPlayer().getNetwork().callProtocolEvent(new WindowSlotEvent(this, entry.getInventory(), i, entry.get()), getPlayer());
+			}
+		}
+	}
+
 	/**
 	 * Handles a click when the shift button is held down
 	 *
@@ -199,6 +269,10 @@ public abstract class AbstractWindow implements InventoryViewer {
 	 * @param value value of property
 	 */
 	public void setProperty(int id, int value) {
+		// The client only displays the integer value, don't resend it if it did not change
+		if (properties.containsKey(id) && properties.get(id) == value) {
+			return;
+		}
 		properties.put(id, value);
 		switch (owner.getEngine().getPlatform()) {
 			case PROXY:
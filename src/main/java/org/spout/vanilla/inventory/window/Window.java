@@ -159,6 +159,7 @@ public abstract class Window extends AbstractWindow {
 	@Override
 	public void close() {
 		removeAllInventoryConverters();
+		clearDirty();
 		opened = false;
 		switch (getEngine().getPlatform()) {
 			case PROXY:
@@ -664,6 +665,9 @@ public abstract class Window extends AbstractWindow {
 	 * @param value value of property
 	 */
 	public void setProperty(int id, int value) {
+		if (properties.containsKey(id) && properties.get(id) == value) {
+			return;
+		}
 		properties.put(id, value);
 		switch (VanillaPlugin.getInstance().getEngine().getPlatform()) {
 			case PROXY:
@@ -688,9 +692,8 @@ public abstract class Window extends AbstractWindow {
 			case PROXY:
 			case SERVER:
 				QuickbarInventory quickbar = getPlayerInventory().getQuickbar();
-				//debug("[Window - " + title + "] Slot changed: " + slot + " = " + item);
-				//callProtocolEvent(new WindowSlotEvent(this, inventory, slots.revert(slot), item));
-				reload();
+				// Coalesced with the other changes of this tick, see flush()
+				markDirty(slots.revert(slot));
 				// Update the held item
 				if (inventory instanceof QuickbarInventory && slot == quickbar.getSelectedSlot().getIndex()) {
 					((QuickbarInventory) inventory).updateHeldItem(getPlayer());
@@ -67,6 +67,7 @@ import org.spout.vanilla.data.MoveReaction;
 import org.spout.vanilla.data.RedstonePowerMode;
 import org.spout.vanilla.data.VanillaData;
 import org.spout.vanilla.data.VanillaRenderMaterials;
+import org.spout.vanilla.data.drops.FlagMaskSet;
 import org.spout.vanilla.data.drops.flag.DropFlags;
 import org.spout.vanilla.data.drops.flag.PlayerFlags;
 import org.spout.vanilla.data.drops.type.block.BlockDrops;
@@ -163,7 +164,7 @@ public abstract class VanillaBlockMaterial extends BlockMaterial implements Vani
 	 * @param cause of the ignition
 	 */
 	public void onIgnite(Block block, Cause<?> cause) {
-		HashSet<Flag> dropFlags = new HashSet<Flag>();
+		FlagMaskSet dropFlags = new FlagMaskSet();
 		if (GenericMath.getRandom().nextInt(100) < 77) {
 			dropFlags.add(DropFlags.NO_DROPS);
 		} else {
@@ -176,7 +177,14 @@ public abstract class VanillaBlockMaterial extends BlockMaterial implements Vani
 	public void onPostDestroy(Block block, Set<Flag> flags) {
 		//TODO stack items together for more performance
 		final Random random = GenericMath.getRandom();
-		for (ItemStack item : this.getDrops().getDrops(random, flags)) {
+		final long mask = flags instanceof FlagMaskSet ? ((FlagMaskSet) flags).getMask() : -1L;
+		final List<ItemStack> drops;
+		if (mask != -1L) {
+			drops = this.getDrops().getDrops(random, mask, new ArrayList<ItemStack>());
+		} else {
+			drops = this.getDrops().getDrops(random, flags);
+		}
+		for (ItemStack item : drops) {
 			Item.dropNaturally(block.getPosition(), item);
 		}
 	}
@@ -755,6 +755,9 @@ public final class VanillaMaterials {
 						}
 					}
 				}
+				if (material instanceof VanillaBlockMaterial) {
+					compileDrops((VanillaBlockMaterial) material);
+				}
 			} catch (Throwable t) {
 				Spout.getLogger().severe("An exception occurred while reading Vanilla Material field '" + field.getName() + "':");
 				t.printStackTrace();
@@ -762,4 +765,13 @@ public final class VanillaMaterials {
 		}
 		initialized = true;
 	}
+
+	private static void compileDrops(VanillaBlockMaterial material) {
+		material.getDrops().compile();
+		for (Material subMaterial : material.getSubMaterials()) {
+			if (subMaterial instanceof VanillaBlockMaterial) {
+				compileDrops((VanillaBlockMaterial) subMaterial);
+			}
+		}
+	}
 }
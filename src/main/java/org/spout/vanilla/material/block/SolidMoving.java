@@ -26,18 +26,31 @@
  */
 package org.spout.vanilla.material.block;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.spout.api.entity.Entity;
 import org.spout.api.geo.LoadOption;
+import org.spout.api.geo.World;
 import org.spout.api.geo.cuboid.Block;
+import org.spout.api.geo.cuboid.Chunk;
+import org.spout.api.inventory.ItemStack;
 import org.spout.api.material.BlockMaterial;
 import org.spout.api.material.block.BlockFace;
 import org.spout.api.util.cuboid.CuboidBlockMaterialBuffer;
 
 import org.spout.vanilla.component.entity.substance.FallingBlock;
+import org.spout.vanilla.component.entity.substance.Item;
+import org.spout.vanilla.component.world.PlayerPositionIndex;
 import org.spout.vanilla.material.VanillaBlockMaterial;
 import org.spout.vanilla.material.VanillaMaterials;
 
 public class SolidMoving extends Solid {
+	/**
+	 * The horizontal distance in blocks within which players see blocks fall as entities
+	 */
+	public static final int VISIBLE_FALL_RANGE = 64;
+
 	public SolidMoving(String name, int id, int data, VanillaBlockMaterial parent) {
 		this(name, id, data, parent, null);
 	}
@@ -59,6 +72,10 @@ public class SolidMoving extends Solid {
 	public void onUpdate(BlockMaterial oldMaterial, Block block) {
 		super.onUpdate(oldMaterial, block);
 		if (!block.translate(BlockFace.BOTTOM).getMaterial().isPlacementObstacle()) {
+			if (!isFallVisible(block)) {
+				fallColumn(block.getWorld(), block.getX(), block.getY(), block.getZ());
+				return;
+			}
 			// turn this block into a mobile block
 			Entity e = block.getWorld().createAndSpawnEntity(block.getPosition(), LoadOption.NO_LOAD, FallingBlock.class);
 			e.get(FallingBlock.class).setMaterial(this);
@@ -66,6 +83,71 @@ public class SolidMoving extends Solid {
 		}
 	}
 
+	private static boolean isFallVisible(Block block) {
+		PlayerPositionIndex index = block.getWorld().get(PlayerPositionIndex.class);
+		return index == null || !index.getNearbyPlayers(block.getX(), block.getZ(), VISIBLE_FALL_RANGE).isEmpty();
+	}
+
+	/**
+	 * Lets the column of moving blocks starting at (x, y, z) fall down at once, without any entities.<br>
+	 * The blocks end up where their falling entities would have placed them: stacked on the first falling obstacle below,
+	 * or dropped as items if the block on top of that obstacle is a placement obstacle.
+	 * Blocks that find no obstacle before the first chunk that is not loaded fall out of the world.
+	 *
+	 * @param world to fall in
+	 * @param x coordinate of the bottom block of the column
+	 * @param y coordinate of the bottom block of the column
+	 * @param z coordinate of the bottom block of the column
+	 */
+	public static void fallColumn(World world, int x, int y, int z) {
+		List<BlockMaterial> column = new ArrayList<BlockMaterial>();
+		BlockMaterial material;
+		for (int top = y; isInWorld(world, x, top, z, 0) && (material = world.getBlockMaterial(x, top, z)) instanceof SolidMoving; top++) {
+			column.add(material);
+		}
+		if (column.isEmpty()) {
+			return;
+		}
+		int landY = y - 1;
+		boolean grounded = false;
+		while (isInWorld(world, x, landY, z, Chunk.BLOCKS.MASK)) {
+			if (FallingBlock.isFallingObstacle(world.getBlockMaterial(x, landY, z))) {
+				grounded = true;
+				break;
+			}
+			landY--;
+		}
+		// the first free block above the obstacle
+		landY++;
+		boolean broken = grounded && world.getBlockMaterial(x, landY, z).isPlacementObstacle();
+		// clear from the top down so no block of the column is updated while it still has to move
+		for (int i = column.size() - 1; i >= 0; i--) {
+			Block block = world.getBlock(x, y + i, z);
+			block.setMaterial(VanillaMaterials.AIR, column.get(i).toCause(block.getPosition()));
+		}
+		if (!grounded) {
+			// fell out of the world
+			return;
+		}
+		for (int i = 0; i < column.size(); i++) {
+			if (broken) {
+				Item.dropNaturally(world.getBlock(x, landY, z).getPosition(), new ItemStack(column.get(i), 1));
+			} else {
+				Block block = world.getBlock(x, landY + i, z);
+				block.setMaterial(column.get(i), column.get(i).toCause(block.getPosition()));
+			}
+		}
+	}
+
+	/**
+	 * Gets whether a block of a column lies in a loaded chunk. The chunk is only looked up when the column enters it.
+	 *
+	 * @param entry the block coordinate within a chunk at which the column enters it
+	 */
+	private static boolean isInWorld(World world, int x, int y, int z, int entry) {
+		return (y & Chunk.BLOCKS.MASK) != entry || world.getChunkFromBlock(x, y, z, LoadOption.NO_LOAD) != null;
+	}
+
 	/**
 	 * Simulates the result of a blocks falling inside a buffer. If the blocks reach the bottom of the buffer without hitting any obstacles they may either be removed or stopped at the bottom. If the
 	 * block at (x, y, z) is not a SolidMoving, nothing will happen, else it and the blocks above will be subject to the simulation. If the blocks fall on a placement obstacle (such as a torch) they will
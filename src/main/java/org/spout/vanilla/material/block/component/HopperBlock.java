@@ -26,10 +26,13 @@
  */
 package org.spout.vanilla.material.block.component;
 
+import org.spout.api.event.Cause;
 import org.spout.api.geo.cuboid.Block;
 import org.spout.api.inventory.ItemStack;
 import org.spout.api.material.BlockMaterial;
+import org.spout.api.material.block.BlockFace;
 
+import org.spout.math.vector.Vector3f;
 import org.spout.physics.collision.shape.BoxShape;
 
 import org.spout.vanilla.component.block.material.Hopper;
@@ -38,10 +41,11 @@ import org.spout.vanilla.data.resources.VanillaMaterialModels;
 import org.spout.vanilla.data.tool.ToolLevel;
 import org.spout.vanilla.data.tool.ToolType;
 import org.spout.vanilla.material.VanillaBlockMaterial;
+import org.spout.vanilla.material.block.Directional;
 import org.spout.vanilla.material.block.redstone.RedstoneTarget;
 import org.spout.vanilla.util.RedstoneUtil;
 
-public class HopperBlock extends VanillaBlockMaterial implements RedstoneTarget {
+public class HopperBlock extends VanillaBlockMaterial implements Directional, RedstoneTarget {
 	public HopperBlock(String name, int id) {
 		super(name, id, VanillaMaterialModels.HOPPER, new BoxShape(1, 1, 1), Hopper.class);
 		this.setHardness(3.5F).setResistance(15.0F).addMiningType(ToolType.PICKAXE).setMiningLevel(ToolLevel.WOOD);
@@ -59,6 +63,25 @@ public class HopperBlock extends VanillaBlockMaterial implements RedstoneTarget
 		hopper.setPowered(this.isReceivingPower(block));
 	}
 
+	@Override
+	public BlockFace getFacing(Block block) {
+		BlockFace facing = DispenserBlock.BTEWNS.get(block.getBlockData() & 0x7);
+		// Hoppers never face up
+		return facing == BlockFace.TOP ? BlockFace.BOTTOM : facing;
+	}
+
+	@Override
+	public void setFacing(Block block, BlockFace facing) {
+		block.setData(DispenserBlock.BTEWNS.indexOf(facing == BlockFace.TOP ? BlockFace.BOTTOM : facing, 0));
+	}
+
+	@Override
+	public void onPlacement(Block block, short data, BlockFace against, Vector3f clickedPos, boolean isClickedBlock, Cause<?> cause) {
+		super.onPlacement(block, data, against, clickedPos, isClickedBlock, cause);
+		// Point into the block the hopper was placed against
+		this.setFacing(block, against);
+	}
+
 	@Override
 	public MoveReaction getMoveReaction(Block block) {
 		return MoveReaction.DENY;
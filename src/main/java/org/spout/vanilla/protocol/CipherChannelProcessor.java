@@ -0,0 +1,113 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.protocol;
+
+import java.nio.ByteBuffer;
+
+import javax.crypto.Cipher;
+import javax.crypto.ShortBufferException;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+
+import org.spout.api.protocol.ChannelProcessor;
+
+/**
+ * A {@link ChannelProcessor} backed by a JCE stream {@link Cipher}, such as AES/CFB8/NoPadding.<br><br>
+ *
+ * The readable bytes of the input are copied once into the output buffer and encrypted or decrypted there in place, for both heap and direct buffers. Unlike the chunked BouncyCastle processor, no
+ * intermediate arrays are used, and the JVM's intrinsified AES implementation is used where available.
+ */
+public class CipherChannelProcessor implements ChannelProcessor {
+	private final Cipher cipher;
+
+	/**
+	 * Creates a processor for an initialized stream cipher
+	 *
+	 * @param cipher to process with, which must not pad or buffer its output
+	 */
+	public CipherChannelProcessor(Cipher cipher) {
+		this.cipher = cipher;
+	}
+
+	@Override
+	public ByteBuf write(ChannelHandlerContext ctx, ByteBuf input) {
+		return write(ctx, input, null);
+	}
+
+	/**
+	 * Reads all readable bytes of the input and writes them processed to the buffer. The input is left untouched apart from its reader index, so the caller keeps ownership of it.
+	 *
+	 * @param ctx the channel context, used to allocate the buffer when none is supplied
+	 * @param input to read from
+	 * @param buffer to write to, or null to allocate a new one
+	 * @return the buffer that was written to
+	 */
+	@Override
+	public synchronized ByteBuf write(ChannelHandlerContext ctx, ByteBuf input, ByteBuf buffer) {
+		final int length = input.readableBytes();
+		if (buffer == null) {
+			buffer = ctx == null ? Unpooled.buffer(length) : ctx.alloc().buffer(length);
+		}
+		final int start = buffer.writerIndex();
+		buffer.writeBytes(input);
+		process(buffer.slice(start, length));
+		return buffer;
+	}
+
+	/**
+	 * Encrypts or decrypts the readable bytes of the buffer in place. The reader and writer indices are left unchanged.
+	 *
+	 * @param buf to process
+	 */
+	public synchronized void process(ByteBuf buf) {
+		final int index = buf.readerIndex();
+		final int length = buf.readableBytes();
+		if (length == 0) {
+			return;
+		}
+		try {
+			if (buf.hasArray()) {
+				final byte[] array = buf.array();
+				final int offset = buf.arrayOffset() + index;
+				cipher.update(array, offset, length, array, offset);
+			} else if (buf.nioBufferCount() == 1) {
+				final ByteBuffer nio = buf.nioBuffer(index, length);
+				cipher.update(nio.duplicate(), nio);
+			} else {
+				// Composite buffers do not expose their memory as a single region
+				final byte[] array = new byte[length];
+				buf.getBytes(index, array);
+				cipher.update(array, 0, length, array, 0);
+				buf.setBytes(index, array);
+			}
+		} catch (ShortBufferException e) {
+			throw new IllegalStateException("Stream cipher produced more output than input", e);
+		}
+	}
+}
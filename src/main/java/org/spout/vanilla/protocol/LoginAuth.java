@@ -26,15 +26,18 @@
  */
 package org.spout.vanilla.protocol;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
-import java.net.HttpURLConnection;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLConnection;
-import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.spout.api.Spout;
 import org.spout.api.protocol.Session;
@@ -42,101 +45,242 @@ import org.spout.api.scheduler.TaskPriority;
 
 import org.spout.vanilla.VanillaPlugin;
 
-public class LoginAuth implements Runnable {
-	private static final String URLBase = "http://session.minecraft.net/game/checkserver.jsp?";
-	private static final String userPrefix = "user=";
-	private static final String idPrefix = "&serverId=";
-	private static final String authString = "YES";
-	private final Session session;
-	private final String name;
-	private final Runnable runnable;
-
-	public LoginAuth(Session session, String name, Runnable runnable) {
-		this.session = session;
-		this.name = name;
-		this.runnable = runnable;
-		System.out.println("name: " + name + " id: " + session.getDataMap().get(VanillaProtocol.SESSION_ID));
+/**
+ * Authenticates online mode logins on a fixed amount of threads.<br><br>
+ *
+ * Requests wait in a bounded queue and are refused once it is full. Requests that waited longer than the timeout are failed without contacting the session server. Concurrent requests for the
+ * same player and server id share a single verification. Results are not kept after a verification completes: the server id is unique to each encryption handshake, so a later login never
+ * asks for the same key again.
+ */
+public class LoginAuth {
+	private final SessionVerifier verifier;
+	private final ThreadPoolExecutor executor;
+	private final long timeout;
+	private final Map<String, Request> pending = new HashMap<String, Request>();
+	// Metrics
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong failed = new AtomicLong();
+	private final AtomicLong verifications = new AtomicLong();
+	private final AtomicLong totalLatency = new AtomicLong();
+	private final AtomicLong maxLatency = new AtomicLong();
+
+	/**
+	 * Creates a new authentication pipeline
+	 *
+	 * @param verifier to check sessions with
+	 * @param threads amount of authentication threads
+	 * @param queueSize maximum amount of requests waiting for a thread
+	 * @param timeout in milliseconds after which a waiting request is failed
+	 */
+	public LoginAuth(SessionVerifier verifier, int threads, int queueSize, long timeout) {
+		this.verifier = verifier;
+		this.timeout = timeout;
+		this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(queueSize), new ThreadFactoryBuilder().setNameFormat("Login Auth #%d").setDaemon(true).build());
+		this.executor.allowCoreThreadTimeOut(true);
 	}
 
-	public void run() {
-		long start = System.currentTimeMillis();
+	/**
+	 * Authenticates the player of a session. The runnable is scheduled on the main thread if the session is valid, otherwise the session is disconnected.
+	 *
+	 * @param session of the player
+	 * @param name of the player
+	 * @param runnable to run once authenticated
+	 */
+	public void authenticate(final Session session, final String name, final Runnable runnable) {
 		String sessionId = session.getDataMap().get(VanillaProtocol.SESSION_ID);
-		String encodedUser;
-		String encodedId;
-		try {
-			encodedUser = URLEncoder.encode(name, "UTF-8");
-			encodedId = URLEncoder.encode(sessionId, "UTF-8");
-		} catch (UnsupportedEncodingException e) {
-			failed("Unable to uncode username or sessionid");
-			return;
+		authenticate(name, sessionId, new Callback() {
+			@Override
+			public void onSuccess() {
+				if (runnable != null) {
+					VanillaPlugin.getInstance().getEngine().getScheduler().scheduleSyncDelayedTask(VanillaPlugin.getInstance(), runnable, TaskPriority.CRITICAL);
+				}
+			}
+
+			@Override
+			public void onFailure(String message) {
+				Spout.getLogger().info("Kicking " + name + " due to problem authenticating {" + message + "}");
+				session.disconnect(message);
+			}
+		});
+	}
+
+	/**
+	 * Authenticates a player against the session verifier. The callback is called from an authentication thread, or from the calling thread if the request is refused.
+	 *
+	 * @param name of the player
+	 * @param serverId sent to the client during the encryption handshake
+	 * @param callback to notify of the result
+	 */
+	public void authenticate(String name, String serverId, Callback callback) {
+		requests.incrementAndGet();
+		final String key = name + ":" + serverId;
+		Request request;
+		synchronized (pending) {
+			request = pending.get(key);
+			if (request != null) {
+				coalesced.incrementAndGet();
+				request.callbacks.add(callback);
+				return;
+			}
+			request = new Request(key, name, serverId);
+			request.callbacks.add(callback);
+			pending.put(key, request);
 		}
-		String fullURL = URLBase + userPrefix + encodedUser + idPrefix + encodedId;
-		URL authURL;
 		try {
-			authURL = new URL(fullURL);
-		} catch (MalformedURLException e2) {
-			failed("Unable to parse URL");
-			return;
+			executor.execute(request);
+		} catch (RejectedExecutionException e) {
+			rejected.incrementAndGet();
+			request.complete(false, "Too many players are logging in, try again later");
 		}
+	}
 
-		URLConnection connection;
-		try {
-			connection = authURL.openConnection();
-		} catch (IOException e2) {
-			failed("Unable to open connection");
-			return;
-		}
+	/**
+	 * Stops the authentication threads. Requests still waiting are dropped.
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+	}
 
-		if (!(connection instanceof HttpURLConnection)) {
-			failed("Unable to open http connection");
-			return;
-		}
+	/**
+	 * Gets the amount of requests waiting for an authentication thread
+	 *
+	 * @return queue depth
+	 */
+	public int getQueueSize() {
+		return executor.getQueue().size();
+	}
 
-		HttpURLConnection httpConnection = (HttpURLConnection) connection;
-		httpConnection.setConnectTimeout(30000);
-		httpConnection.setReadTimeout(30000);
+	/**
+	 * Gets the amount of verifications currently in progress
+	 *
+	 * @return active verifications
+	 */
+	public int getActiveCount() {
+		return executor.getActiveCount();
+	}
 
-		try {
-			httpConnection.connect();
-		} catch (IOException e) {
-			e.printStackTrace();
-			failed("Unable to connect to auth server");
-			return;
+	/**
+	 * Gets the total amount of authentication requests
+	 *
+	 * @return requests received
+	 */
+	public long getRequestCount() {
+		return requests.get();
+	}
+
+	/**
+	 * Gets the amount of requests that joined a verification already in progress
+	 *
+	 * @return coalesced requests
+	 */
+	public long getCoalescedCount() {
+		return coalesced.get();
+	}
+
+	/**
+	 * Gets the amount of requests refused because the queue was full
+	 *
+	 * @return rejected requests
+	 */
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	/**
+	 * Gets the amount of verifications that failed, timed out or were refused by the session server
+	 *
+	 * @return failed verifications
+	 */
+	public long getFailedCount() {
+		return failed.get();
+	}
+
+	/**
+	 * Gets the average time between queuing and completing a verification
+	 *
+	 * @return average latency in milliseconds
+	 */
+	public float getAverageLatency() {
+		long count = verifications.get();
+		return count == 0 ? 0 : totalLatency.get() / (float) count;
+	}
+
+	/**
+	 * Gets the longest time between queuing and completing a verification
+	 *
+	 * @return maximum latency in milliseconds
+	 */
+	public long getMaxLatency() {
+		return maxLatency.get();
+	}
+
+	private void recordLatency(long latency) {
+		verifications.incrementAndGet();
+		totalLatency.addAndGet(latency);
+		long max;
+		do {
+			max = maxLatency.get();
+		} while (latency > max && !maxLatency.compareAndSet(max, latency));
+	}
+
+	/**
+	 * Receives the result of an authentication
+	 */
+	public static interface Callback {
+		public void onSuccess();
+
+		public void onFailure(String message);
+	}
+
+	private class Request implements Runnable {
+		private final String key;
+		private final String name;
+		private final String serverId;
+		private final long created = System.currentTimeMillis();
+		private final List<Callback> callbacks = new ArrayList<Callback>(1);
+
+		private Request(String key, String name, String serverId) {
+			this.key = key;
+			this.name = name;
+			this.serverId = serverId;
 		}
 
-		BufferedReader in = null;
-		try {
-			in = new BufferedReader(new InputStreamReader(httpConnection.getInputStream()));
-			String reply = in.readLine();
-			if (authString.equals(reply)) {
-				if (runnable != null) {
-					VanillaPlugin.getInstance().getEngine().getScheduler().scheduleSyncDelayedTask(VanillaPlugin.getInstance(), runnable, TaskPriority.CRITICAL);
-				}
-			} else {
-				failed("Auth server refused authentication");
+		@Override
+		public void run() {
+			if (System.currentTimeMillis() - created > timeout) {
+				complete(false, "Authentication timed out");
+				return;
 			}
-		} catch (IOException e) {
-			e.printStackTrace();
-			failed("Unable to read reply from auth server");
-		} finally {
-			if (in != null) {
-				try {
-					in.close();
-				} catch (IOException e) {
-				} finally {
-					httpConnection.disconnect();
-				}
-			} else {
-				httpConnection.disconnect();
+			boolean valid;
+			try {
+				valid = verifier.verify(name, serverId);
+			} catch (IOException e) {
+				complete(false, "Unable to contact auth server");
+				return;
 			}
+			complete(valid, "Auth server refused authentication");
 		}
-		if (VanillaPlugin.getInstance().getEngine().debugMode()) {
-			Spout.getLogger().info("Authing took " + (System.currentTimeMillis() - start) + "ms");
-		}
-	}
 
-	private void failed(String message) {
-		Spout.getLogger().info("Kicking " + name + " due to problem authenticating {" + message + "}");
-		session.disconnect(message);
+		private void complete(boolean success, String message) {
+			List<Callback> toNotify;
+			synchronized (pending) {
+				pending.remove(key);
+				toNotify = new ArrayList<Callback>(callbacks);
+			}
+			long latency = System.currentTimeMillis() - created;
+			recordLatency(latency);
+			if (!success) {
+				failed.incrementAndGet();
+			}
+			for (Callback callback : toNotify) {
+				if (success) {
+					callback.onSuccess();
+				} else {
+					callback.onFailure(message);
+				}
+			}
+		}
 	}
 }
@@ -0,0 +1,92 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.protocol;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLEncoder;
+
+/**
+ * Verifies sessions against the checkserver page of the Minecraft session server.
+ */
+public class MinecraftSessionVerifier implements SessionVerifier {
+	public static final String DEFAULT_URL = "http://session.minecraft.net/game/checkserver.jsp";
+	private static final String authString = "YES";
+	private final String baseURL;
+	private final int timeout;
+
+	/**
+	 * Creates a verifier for the default session server
+	 *
+	 * @param timeout for connecting and reading, in milliseconds
+	 */
+	public MinecraftSessionVerifier(int timeout) {
+		this(DEFAULT_URL, timeout);
+	}
+
+	/**
+	 * Creates a verifier for the session server at the given URL
+	 *
+	 * @param baseURL of the checkserver page, without query
+	 * @param timeout for connecting and reading, in milliseconds
+	 */
+	public MinecraftSessionVerifier(String baseURL, int timeout) {
+		this.baseURL = baseURL;
+		this.timeout = timeout;
+	}
+
+	@Override
+	public boolean verify(String name, String serverId) throws IOException {
+		URL authURL = new URL(baseURL + "?user=" + URLEncoder.encode(name, "UTF-8") + "&serverId=" + URLEncoder.encode(serverId, "UTF-8"));
+		URLConnection connection = authURL.openConnection();
+		if (!(connection instanceof HttpURLConnection)) {
+			throw new IOException("Unable to open http connection");
+		}
+
+		HttpURLConnection httpConnection = (HttpURLConnection) connection;
+		httpConnection.setConnectTimeout(timeout);
+		httpConnection.setReadTimeout(timeout);
+		BufferedReader in = null;
+		try {
+			httpConnection.connect();
+			in = new BufferedReader(new InputStreamReader(httpConnection.getInputStream(), "UTF-8"));
+			return authString.equals(in.readLine());
+		} finally {
+			if (in != null) {
+				try {
+					in.close();
+				} catch (IOException ignore) {
+				}
+			}
+			httpConnection.disconnect();
+		}
+	}
+}
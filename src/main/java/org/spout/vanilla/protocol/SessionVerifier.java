@@ -0,0 +1,45 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.protocol;
+
+import java.io.IOException;
+
+/**
+ * Verifies that a player joining in online mode has a valid session.
+ */
+public interface SessionVerifier {
+	/**
+	 * Asks the session server whether the player has joined the server with the given server id.<br>
+	 * This method blocks and is only called from the authentication threads of {@link LoginAuth}.
+	 *
+	 * @param name of the player
+	 * @param serverId hash sent to the client during the encryption handshake
+	 * @return true if the session is valid
+	 * @throws IOException if the session server could not be reached
+	 */
+	public boolean verify(String name, String serverId) throws IOException;
+}
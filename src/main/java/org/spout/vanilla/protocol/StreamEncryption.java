@@ -0,0 +1,97 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.protocol;
+
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.CipherParameters;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+
+import org.spout.api.protocol.ChannelProcessor;
+import org.spout.api.security.EncryptionChannelProcessor;
+import org.spout.api.security.SecurityHandler;
+
+import org.spout.vanilla.data.configuration.VanillaConfiguration;
+
+/**
+ * Creates the channel processors for encrypted sessions.<br><br>
+ *
+ * The processor is selected by the stream algorithm in the configuration. A plain algorithm name, such as AES, uses the BouncyCastle cipher of the {@link SecurityHandler}. An algorithm name
+ * prefixed with {@link #JCE_PREFIX}, such as JCE-AES, uses a {@link CipherChannelProcessor} backed by the JCE.
+ */
+public class StreamEncryption {
+	public static final String JCE_PREFIX = "JCE-";
+
+	private StreamEncryption() {
+	}
+
+	/**
+	 * Creates a processor for the configured stream algorithm and wrapper
+	 *
+	 * @param sharedSecret used as both key and initial vector
+	 * @param encrypt true to encrypt, false to decrypt
+	 * @return the processor
+	 */
+	public static ChannelProcessor createProcessor(byte[] sharedSecret, boolean encrypt) {
+		String streamCipher = VanillaConfiguration.ENCRYPT_STREAM_ALGORITHM.getString();
+		String streamWrapper = VanillaConfiguration.ENCRYPT_STREAM_WRAPPER.getString();
+
+		if (streamCipher.startsWith(JCE_PREFIX)) {
+			return new CipherChannelProcessor(getCipher(streamCipher.substring(JCE_PREFIX.length()), streamWrapper, sharedSecret, encrypt));
+		}
+
+		BufferedBlockCipher cipher = SecurityHandler.getInstance().getSymmetricCipher(streamCipher, streamWrapper);
+		CipherParameters symmetricKey = new ParametersWithIV(new KeyParameter(sharedSecret), sharedSecret);
+		cipher.init(encrypt ? SecurityHandler.ENCRYPT_MODE : SecurityHandler.DECRYPT_MODE, symmetricKey);
+		return new EncryptionChannelProcessor(cipher, 32);
+	}
+
+	/**
+	 * Creates an initialized JCE stream cipher
+	 *
+	 * @param algorithm of the cipher, such as AES
+	 * @param wrapper mode of the cipher, such as CFB8
+	 * @param sharedSecret used as both key and initial vector
+	 * @param encrypt true to encrypt, false to decrypt
+	 * @return the cipher
+	 */
+	public static Cipher getCipher(String algorithm, String wrapper, byte[] sharedSecret, boolean encrypt) {
+		try {
+			Cipher cipher = Cipher.getInstance(algorithm + "/" + wrapper + "/NoPadding");
+			cipher.init(encrypt ? Cipher.ENCRYPT_MODE : Cipher.DECRYPT_MODE, new SecretKeySpec(sharedSecret, algorithm), new IvParameterSpec(sharedSecret));
+			return cipher;
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException("Unable to create stream cipher " + algorithm + "/" + wrapper, e);
+		}
+	}
+}
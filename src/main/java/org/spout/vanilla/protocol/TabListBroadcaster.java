@@ -0,0 +1,251 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.protocol;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.spout.api.Server;
+import org.spout.api.component.entity.NetworkComponent;
+import org.spout.api.entity.Entity;
+import org.spout.api.entity.Player;
+
+import org.spout.vanilla.component.entity.player.Ping;
+import org.spout.vanilla.component.entity.player.VanillaPlayerNetworkComponent;
+import org.spout.vanilla.event.player.network.ListPingEvent;
+
+/**
+ * Server wide player (TAB) list.<br><br>
+ *
+ * Joins, leaves, display name changes and ping changes are detected once per run for all players. Each change is turned into a single {@link ListPingEvent} that is sent to all viewers, each viewer
+ * only skipping the players that are invisible to it. Pings are only re-sent when they move to another bar of the client ping display.
+ */
+public class TabListBroadcaster implements Runnable {
+	// Upper bounds (exclusive) of the ping bars shown by the client, in milliseconds
+	private static final int[] PING_BARS = {150, 300, 600, 1000};
+	private final Server server;
+	private final Map<Player, Entry> entries = new HashMap<Player, Entry>();
+	private final Map<Player, Viewer> viewers = new HashMap<Player, Viewer>();
+	private final Queue<VisibilityChange> visibilityChanges = new ConcurrentLinkedQueue<VisibilityChange>();
+	private final List<Delta> batch = new ArrayList<Delta>();
+	private long runs = 0;
+	private volatile int onlineCount = 0;
+
+	public TabListBroadcaster(Server server) {
+		this.server = server;
+	}
+
+	/**
+	 * Hides or shows a player in the list of a viewer. The change is applied on the next run.
+	 *
+	 * @param viewer of the list
+	 * @param target player to hide or show
+	 * @param hidden true to hide the target, false to show it again
+	 */
+	public void setHidden(Entity viewer, Entity target, boolean hidden) {
+		if (viewer instanceof Player && target instanceof Player) {
+			visibilityChanges.add(new VisibilityChange((Player) viewer, (Player) target, hidden));
+		}
+	}
+
+	/**
+	 * Gets the number of players online as of the last run, without copying the player array
+	 *
+	 * @return online player count
+	 */
+	public int getOnlineCount() {
+		return onlineCount;
+	}
+
+	@Override
+	public void run() {
+		final long run = ++runs;
+		final Player[] online = server.getOnlinePlayers();
+		onlineCount = online.length;
+
+		applyVisibilityChanges();
+
+		// Gather the changes once for all viewers
+		batch.clear();
+		for (Player player : online) {
+			Ping ping = player.get(Ping.class);
+			if (ping == null) {
+				continue;
+			}
+			String name = player.getDisplayName();
+			short pingMS = (short) (1000.0F * ping.getPing());
+			int bar = getPingBar(pingMS);
+			Entry entry = entries.get(player);
+			if (entry == null) {
+				entry = new Entry(name, pingMS, bar);
+				entries.put(player, entry);
+				batch.add(new Delta(player, entry.event));
+			} else if (!entry.name.equals(name)) {
+				batch.add(new Delta(player, new ListPingEvent(entry.name, 0L, false)));
+				entry.update(name, pingMS, bar);
+				batch.add(new Delta(player, entry.event));
+			} else if (entry.bar != bar) {
+				entry.update(name, pingMS, bar);
+				batch.add(new Delta(player, entry.event));
+			}
+			entry.lastSeen = run;
+		}
+		Iterator<Map.Entry<Player, Entry>> entryIter = entries.entrySet().iterator();
+		while (entryIter.hasNext()) {
+			Map.Entry<Player, Entry> next = entryIter.next();
+			if (next.getValue().lastSeen != run) {
+				entryIter.remove();
+				batch.add(new Delta(next.getKey(), new ListPingEvent(next.getValue().name, 0L, false)));
+			}
+		}
+
+		// Push the same events to every viewer, only the hidden players differ between them
+		for (Player player : online) {
+			if (!(player.getNetwork() instanceof VanillaPlayerNetworkComponent)) {
+				continue;
+			}
+			Viewer viewer = getViewer(player);
+			viewer.lastSeen = run;
+			NetworkComponent network = player.getNetwork();
+			if (!viewer.synced) {
+				// Newly joined viewers get the whole list instead of the changes
+				for (Map.Entry<Player, Entry> entry : entries.entrySet()) {
+					if (!viewer.excluded.contains(entry.getKey())) {
+						network.callProtocolEvent(entry.getValue().event);
+					}
+				}
+				viewer.synced = true;
+				continue;
+			}
+			for (Delta delta : batch) {
+				if (!viewer.excluded.contains(delta.subject)) {
+					network.callProtocolEvent(delta.event);
+				}
+			}
+		}
+		Iterator<Map.Entry<Player, Viewer>> viewerIter = viewers.entrySet().iterator();
+		while (viewerIter.hasNext()) {
+			Map.Entry<Player, Viewer> next = viewerIter.next();
+			if (next.getValue().lastSeen != run && !next.getKey().isOnline()) {
+				viewerIter.remove();
+				for (Viewer viewer : viewers.values()) {
+					viewer.excluded.remove(next.getKey());
+				}
+			}
+		}
+	}
+
+	private void applyVisibilityChanges() {
+		VisibilityChange change;
+		while ((change = visibilityChanges.poll()) != null) {
+			Viewer viewer = getViewer(change.viewer);
+			boolean changed = change.hidden ? viewer.excluded.add(change.target) : viewer.excluded.remove(change.target);
+			Entry entry = entries.get(change.target);
+			if (!changed || !viewer.synced || entry == null) {
+				continue;
+			}
+			if (change.hidden) {
+				change.viewer.getNetwork().callProtocolEvent(new ListPingEvent(entry.name, 0L, false));
+			} else {
+				change.viewer.getNetwork().callProtocolEvent(entry.event);
+			}
+		}
+	}
+
+	private Viewer getViewer(Player player) {
+		Viewer viewer = viewers.get(player);
+		if (viewer == null) {
+			viewer = new Viewer();
+			viewers.put(player, viewer);
+		}
+		return viewer;
+	}
+
+	private static int getPingBar(int pingMS) {
+		if (pingMS < 0) {
+			return -1;
+		}
+		for (int i = 0; i < PING_BARS.length; i++) {
+			if (pingMS < PING_BARS[i]) {
+				return i;
+			}
+		}
+		return PING_BARS.length;
+	}
+
+	private static class Entry {
+		private String name;
+		private int bar;
+		private ListPingEvent event;
+		private long lastSeen;
+
+		private Entry(String name, short ping, int bar) {
+			update(name, ping, bar);
+		}
+
+		private void update(String name, short ping, int bar) {
+			this.name = name;
+			this.bar = bar;
+			this.event = new ListPingEvent(name, ping, true);
+		}
+	}
+
+	private static class Viewer {
+		private final Set<Player> excluded = new HashSet<Player>();
+		private boolean synced = false;
+		private long lastSeen;
+	}
+
+	private static class Delta {
+		private final Player subject;
+		private final ListPingEvent event;
+
+		private Delta(Player subject, ListPingEvent event) {
+			this.subject = subject;
+			this.event = event;
+		}
+	}
+
+	private static class VisibilityChange {
+		private final Player viewer;
+		private final Player target;
+		private final boolean hidden;
+
+		private VisibilityChange(Player viewer, Player target, boolean hidden) {
+			this.viewer = viewer;
+			this.target = target;
+			this.hidden = hidden;
+		}
+	}
+}
@@ -27,10 +27,14 @@
 package org.spout.vanilla.protocol;
 
 import java.io.IOException;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 
 import org.spout.api.inventory.ItemStack;
 import org.spout.api.material.Material;
@@ -45,6 +49,12 @@ import static org.spout.api.util.ByteBufUtils.readCompound;
 import static org.spout.api.util.ByteBufUtils.writeCompound;
 
 public final class VanillaByteBufUtils {
+	/**
+	 * The number of distinct item NBT compounds kept in encoded form
+	 */
+	private static final int MAX_CACHED_NBT = 256;
+	private static final Map<CompoundMap, byte[]> encodedNBT = new ConcurrentHashMap<CompoundMap, byte[]>();
+
 	/**
 	 * Writes a list of parameters (e.g. mob metadata) to the buffer.
 	 *
@@ -138,9 +148,22 @@ public final class VanillaByteBufUtils {
 		if (len >= 65536) {
 			throw new IllegalArgumentException("String too long.");
 		}
+		buf.ensureWritable(2 + len * 2);
 		buf.writeShort(len);
-		for (int i = 0; i < len; ++i) {
-			buf.writeChar(str.charAt(i));
+		if (buf.hasArray() && buf.order() == ByteOrder.BIG_ENDIAN) {
+			// Encode straight into the backing array
+			final byte[] array = buf.array();
+			int index = buf.arrayOffset() + buf.writerIndex();
+			for (int i = 0; i < len; ++i) {
+				final char c = str.charAt(i);
+				array[index++] = (byte) (c >>> 8);
+				array[index++] = (byte) c;
+			}
+			buf.writerIndex(buf.writerIndex() + len * 2);
+		} else {
+			for (int i = 0; i < len; ++i) {
+				buf.writeChar(str.charAt(i));
+			}
 		}
 	}
 
@@ -154,8 +177,18 @@ public final class VanillaByteBufUtils {
 		int len = buf.readUnsignedShort();
 
 		char[] characters = new char[len];
-		for (int i = 0; i < len; i++) {
-			characters[i] = buf.readChar();
+		if (buf.hasArray() && buf.order() == ByteOrder.BIG_ENDIAN && buf.readableBytes() >= len * 2) {
+			// Decode straight from the backing array
+			final byte[] array = buf.array();
+			int index = buf.arrayOffset() + buf.readerIndex();
+			for (int i = 0; i < len; i++) {
+				characters[i] = (char) ((array[index++] & 0xFF) << 8 | (array[index++] & 0xFF));
+			}
+			buf.skipBytes(len * 2);
+		} else {
+			for (int i = 0; i < len; i++) {
+				characters[i] = buf.readChar();
+			}
 		}
 
 		return new String(characters);
@@ -194,8 +227,34 @@ public final class VanillaByteBufUtils {
 		if (id != -1) {
 			buffer.writeByte(item.getAmount());
 			buffer.writeShort(item.getData());
-			writeCompound(buffer, item.getNBTData());
+			writeItemNBT(buffer, item.getNBTData());
+		}
+	}
+
+	/**
+	 * Writes the NBT data of an item. Items usually share a few distinct compounds, so their compressed form is cached by content.
+	 *
+	 * @param buffer to write to
+	 * @param nbtData of the item, can be null
+	 */
+	private static void writeItemNBT(ByteBuf buffer, CompoundMap nbtData) {
+		if (nbtData == null) {
+			writeCompound(buffer, null);
+			return;
+		}
+		byte[] encoded = encodedNBT.get(nbtData);
+		if (encoded == null) {
+			ByteBuf temp = Unpooled.buffer();
+			writeCompound(temp, nbtData);
+			encoded = new byte[temp.readableBytes()];
+			temp.readBytes(encoded);
+			if (encodedNBT.size() >= MAX_CACHED_NBT) {
+				encodedNBT.clear();
+			}
+			// Key on a copy, the caller may still change its compound
+			encodedNBT.put(new CompoundMap(nbtData), encoded);
 		}
+		buffer.writeBytes(encoded);
 	}
 
 	public static byte getNativeDirection(BlockFace face) {
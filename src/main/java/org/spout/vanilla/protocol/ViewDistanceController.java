@@ -0,0 +1,134 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.protocol;
+
+import org.spout.api.Engine;
+
+import org.spout.vanilla.VanillaPlugin;
+import org.spout.vanilla.command.AdministrationCommands.TPSMonitor;
+import org.spout.vanilla.data.configuration.VanillaConfiguration;
+import org.spout.vanilla.event.game.ViewDistanceChangeEvent;
+
+/**
+ * Limits the view distance of all players while the server can not keep up with its ticks.<br><br>
+ *
+ * Runs once per tick. When the ticks per second stay below the lower threshold for the lower delay, the limit drops by one chunk.
+ * It only rises again, one chunk at a time, after the ticks per second stayed above the raise threshold for the raise delay.
+ * Keeping the thresholds apart and the raise delay long stops the limit from flapping.
+ */
+public class ViewDistanceController implements Runnable {
+	private final Engine engine;
+	private final TPSMonitor monitor;
+	private final int minDistance, maxDistance;
+	private final float lowerTPS, raiseTPS;
+	private final int lowerDelay, raiseDelay;
+	private volatile int distance;
+	private int slowTicks = 0;
+	private int fastTicks = 0;
+
+	public ViewDistanceController(Engine engine) {
+		this(engine, null, VanillaConfiguration.ADAPTIVE_VIEW_DISTANCE_MIN.getInt(), VanillaConfiguration.ADAPTIVE_VIEW_DISTANCE_MAX.getInt(),
+				VanillaConfiguration.ADAPTIVE_VIEW_DISTANCE_LOWER_TPS.getFloat(), VanillaConfiguration.ADAPTIVE_VIEW_DISTANCE_RAISE_TPS.getFloat(),
+				VanillaConfiguration.ADAPTIVE_VIEW_DISTANCE_LOWER_DELAY.getInt(), VanillaConfiguration.ADAPTIVE_VIEW_DISTANCE_RAISE_DELAY.getInt());
+	}
+
+	/**
+	 * Creates a controller with the given thresholds
+	 *
+	 * @param engine to call the change events on
+	 * @param monitor to read the ticks per second from, or null to use the one of the plugin
+	 * @param minDistance the limit never drops below, in chunks
+	 * @param maxDistance the limit starts at and never rises above, in chunks
+	 * @param lowerTPS below which the limit drops
+	 * @param raiseTPS at or above which the limit rises
+	 * @param lowerDelay in ticks before the limit drops
+	 * @param raiseDelay in ticks before the limit rises
+	 */
+	public ViewDistanceController(Engine engine, TPSMonitor monitor, int minDistance, int maxDistance, float lowerTPS, float raiseTPS, int lowerDelay, int raiseDelay) {
+		this.engine = engine;
+		this.monitor = monitor;
+		this.minDistance = minDistance;
+		this.maxDistance = Math.max(minDistance, maxDistance);
+		this.lowerTPS = lowerTPS;
+		this.raiseTPS = Math.max(lowerTPS, raiseTPS);
+		this.lowerDelay = lowerDelay;
+		this.raiseDelay = raiseDelay;
+		this.distance = this.maxDistance;
+	}
+
+	/**
+	 * Gets the current view distance limit
+	 *
+	 * @return the view distance limit, in chunks
+	 */
+	public int getDistance() {
+		return distance;
+	}
+
+	/**
+	 * Limits a view distance to the current limit
+	 *
+	 * @param viewDistance requested, in chunks
+	 * @return the view distance to use, in chunks
+	 */
+	public int limit(int viewDistance) {
+		return Math.min(viewDistance, distance);
+	}
+
+	@Override
+	public void run() {
+		TPSMonitor monitor = this.monitor == null ? VanillaPlugin.getInstance().getTPSMonitor() : this.monitor;
+		if (monitor == null) {
+			return;
+		}
+		final float tps = monitor.getTPS();
+		if (tps < lowerTPS) {
+			fastTicks = 0;
+			if (++slowTicks >= lowerDelay && distance > minDistance) {
+				slowTicks = 0;
+				change(distance - 1, tps);
+			}
+		} else if (tps >= raiseTPS) {
+			slowTicks = 0;
+			if (++fastTicks >= raiseDelay && distance < maxDistance) {
+				fastTicks = 0;
+				change(distance + 1, tps);
+			}
+		} else {
+			slowTicks = 0;
+			fastTicks = 0;
+		}
+	}
+
+	private void change(int newDistance, float tps) {
+		ViewDistanceChangeEvent event = engine.getEventManager().callEvent(new ViewDistanceChangeEvent(distance, newDistance, tps));
+		if (event.isCancelled()) {
+			return;
+		}
+		distance = Math.max(minDistance, Math.min(maxDistance, event.getNewDistance()));
+	}
+}
@@ -27,6 +27,7 @@
 package org.spout.vanilla.protocol.codec.world.chunk;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
@@ -46,6 +47,10 @@ public final class ChunkDataCodec extends MessageCodec<ChunkDataMessage> {
 	private static final int COMPRESSION_LEVEL = Deflater.BEST_SPEED;
 	private static final int MAX_SECTIONS = 16;
 	private final byte[] UNLOAD_COMPRESSED = {0x78, (byte) 0x9C, 0x63, 0x64, 0x1C, (byte) 0xD9, 0x00, 0x00, (byte) 0x81, (byte) 0x80, 0x01, 0x01}; //Fake compressed data, client expects this when unloading
+	// Recently compressed payloads, so identical columns (such as those of flat worlds) are only compressed once
+	private static final int PAYLOAD_CACHE_SIZE = 8;
+	private final CompressedPayload[] payloadCache = new CompressedPayload[PAYLOAD_CACHE_SIZE];
+	private int payloadCacheNext = 0;
 
 	public ChunkDataCodec() {
 		super(ChunkDataMessage.class, 0x33);
@@ -187,6 +192,14 @@ public final class ChunkDataCodec extends MessageCodec<ChunkDataMessage> {
 			uncompressedData = message.getSession().getDataMap().get(VanillaProtocol.CHUNK_NET_CACHE).handle(uncompressedData);
 		}
 
+		final int hash = Arrays.hashCode(uncompressedData);
+		final byte[] cached = getCachedPayload(uncompressedData, hash);
+		if (cached != null) {
+			buffer.writeInt(cached.length);
+			buffer.writeBytes(cached);
+			return buffer;
+		}
+
 		byte[] compressedData = new byte[uncompressedSize >> 2];
 
 		Deflater deflater = new Deflater(COMPRESSION_LEVEL);
@@ -214,10 +227,29 @@ public final class ChunkDataCodec extends MessageCodec<ChunkDataMessage> {
 
 		buffer.writeInt(compressed);
 		buffer.writeBytes(compressedData, 0, compressed);
+		cachePayload(uncompressedData, hash, Arrays.copyOf(compressedData, compressed));
 
 		return buffer;
 	}
 
+	private byte[] getCachedPayload(byte[] uncompressedData, int hash) {
+		synchronized (payloadCache) {
+			for (CompressedPayload payload : payloadCache) {
+				if (payload != null && payload.hash == hash && Arrays.equals(payload.uncompressed, uncompressedData)) {
+					return payload.compressed;
+				}
+			}
+		}
+		return null;
+	}
+
+	private void cachePayload(byte[] uncompressedData, int hash, byte[] compressedData) {
+		synchronized (payloadCache) {
+			payloadCache[payloadCacheNext] = new CompressedPayload(uncompressedData, hash, compressedData);
+			payloadCacheNext = (payloadCacheNext + 1) % PAYLOAD_CACHE_SIZE;
+		}
+	}
+
 	private int readSectionData(byte[] data, int off, byte[][] target, int targetOff, int len) {
 		for (byte[] sectionTarget : target) {
 			if (sectionTarget != null) {
@@ -240,4 +272,16 @@ public final class ChunkDataCodec extends MessageCodec<ChunkDataMessage> {
 		}
 		return targetOff;
 	}
+
+	private static class CompressedPayload {
+		private final byte[] uncompressed;
+		private final int hash;
+		private final byte[] compressed;
+
+		private CompressedPayload(byte[] uncompressed, int hash, byte[] compressed) {
+			this.uncompressed = uncompressed;
+			this.hash = hash;
+			this.compressed = compressed;
+		}
+	}
 }
@@ -26,6 +26,12 @@
  */
 package org.spout.vanilla.protocol.handler;
 
+import java.net.InetAddress;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.spout.api.Server;
 import org.spout.api.protocol.MessageHandler;
 import org.spout.api.protocol.ServerSession;
@@ -33,24 +39,121 @@ import org.spout.api.protocol.ServerSession;
 import org.spout.vanilla.VanillaPlugin;
 import org.spout.vanilla.data.configuration.VanillaConfiguration;
 import org.spout.vanilla.event.game.ServerListPingEvent;
+import org.spout.vanilla.protocol.TabListBroadcaster;
 import org.spout.vanilla.protocol.msg.ServerListPingMessage;
 import org.spout.vanilla.protocol.msg.player.conn.PlayerKickMessage;
 
 public class ServerListPingHandler extends MessageHandler<ServerListPingMessage> {
-	private static String PROTOCOL = null;
-	private static String MC_VERSION = null;
-	private static String MOTD = null;
+	private static final ConcurrentMap<InetAddress, Long> lastPings = new ConcurrentHashMap<InetAddress, Long>();
+	private static final AtomicLong lastSweep = new AtomicLong();
+	private static String PREFIX = null;
+	private static volatile Response response = null;
 
 	@Override
 	public void handleServer(ServerSession session, ServerListPingMessage message) {
+		final InetAddress address = session.getAddress().getAddress();
+		final long now = System.currentTimeMillis();
+		// The minimum time between two answered pings from the same address, in milliseconds
+		final long interval = VanillaConfiguration.PING_INTERVAL.getInt();
+		if (interval > 0) {
+			if (!acceptPing(address, now, interval)) {
+				session.disconnect("Pinging too fast");
+				return;
+			}
+			clearExpired(now, interval);
+		}
+
 		Server server = (Server) VanillaPlugin.getInstance().getEngine();
 		//Cache values for speed
-		if (PROTOCOL == null) {
-			PROTOCOL = VanillaPlugin.getInstance().getDescription().getData("protocol");
-			MC_VERSION = VanillaPlugin.getInstance().getDescription().getVersion().trim().split(" ")[0];
-			MOTD = VanillaConfiguration.MOTD.getString();
+		if (PREFIX == null) {
+			String protocol = VanillaPlugin.getInstance().getDescription().getData("protocol");
+			String version = VanillaPlugin.getInstance().getDescription().getVersion().trim().split(" ")[0];
+			PREFIX = '\u00A7' + "1" + '\u0000' + protocol + '\u0000' + version + '\u0000';
+		}
+		// Read every ping so a reloaded configuration is picked up
+		final String motd = VanillaConfiguration.MOTD.getString();
+		final int numPlayers = getOnlineCount(server);
+		final int maxPlayers = server.getMaxPlayers();
+
+		if (ServerListPingEvent.getHandlerList().getRegisteredListeners().length > 0) {
+			// Listeners may answer each address differently, so nothing is cached
+			ServerListPingEvent event = VanillaPlugin.getInstance().getEngine().getEventManager().callEvent(new ServerListPingEvent(address, motd, numPlayers, maxPlayers));
+			session.send(new PlayerKickMessage(PREFIX + event.getMessage()));
+			return;
+		}
+
+		Response current = response;
+		if (current == null || !current.matches(motd, numPlayers, maxPlayers)) {
+			current = new Response(motd, numPlayers, maxPlayers, PREFIX + new ServerListPingEvent(address, motd, numPlayers, maxPlayers).getMessage());
+			response = current;
+		}
+		session.send(new PlayerKickMessage(current.text));
+	}
+
+	private static int getOnlineCount(Server server) {
+		TabListBroadcaster tabList = VanillaPlugin.getInstance().getTabList();
+		if (tabList != null) {
+			return tabList.getOnlineCount();
+		}
+		return server.getOnlinePlayers().length;
+	}
+
+	/**
+	 * Records the ping of an address, unless the last answered ping of that address is too recent
+	 *
+	 * @param address of the client
+	 * @param now the current time, in milliseconds
+	 * @param interval between two answered pings, in milliseconds
+	 * @return true if the ping should be answered
+	 */
+	private static boolean acceptPing(InetAddress address, long now, long interval) {
+		Long last = lastPings.putIfAbsent(address, now);
+		while (last != null) {
+			if (now - last < interval) {
+				return false;
+			}
+			if (lastPings.replace(address, last, now)) {
+				return true;
+			}
+			last = lastPings.putIfAbsent(address, now);
+		}
+		return true;
+	}
+
+	/**
+	 * Forgets the addresses whose last answered ping is older than the interval.<br>
+	 * Runs at most once per interval, so the sweep costs nothing for most pings.
+	 */
+	private static void clearExpired(long now, long interval) {
+		long sweep = lastSweep.get();
+		if (now - sweep < interval || !lastSweep.compareAndSet(sweep, now)) {
+			return;
+		}
+		Iterator<Long> iter = lastPings.values().iterator();
+		while (iter.hasNext()) {
+			if (now - iter.next() >= interval) {
+				iter.remove();
+			}
+		}
+	}
+
+	/**
+	 * A complete ping response, along with the values it was built from
+	 */
+	private static class Response {
+		private final String motd;
+		private final int numPlayers, maxPlayers;
+		private final String text;
+
+		private Response(String motd, int numPlayers, int maxPlayers, String text) {
+			this.motd = motd;
+			this.numPlayers = numPlayers;
+			this.maxPlayers = maxPlayers;
+			this.text = text;
+		}
+
+		private boolean matches(String motd, int numPlayers, int maxPlayers) {
+			return this.numPlayers == numPlayers && this.maxPlayers == maxPlayers && this.motd.equals(motd);
 		}
-		ServerListPingEvent event = VanillaPlugin.getInstance().getEngine().getEventManager().callEvent(new ServerListPingEvent(session.getAddress().getAddress(), MOTD, server.getOnlinePlayers().length, server.getMaxPlayers()));
-		session.send(new PlayerKickMessage('\u00A7' + "1" + '\u0000' + PROTOCOL + '\u0000' + MC_VERSION + '\u0000' + event.getMessage()));
 	}
 }
@@ -30,21 +30,18 @@ import java.math.BigInteger;
 import java.security.MessageDigest;
 
 import org.bouncycastle.crypto.AsymmetricBlockCipher;
-import org.bouncycastle.crypto.BufferedBlockCipher;
-import org.bouncycastle.crypto.CipherParameters;
 import org.bouncycastle.crypto.params.AsymmetricKeyParameter;
-import org.bouncycastle.crypto.params.KeyParameter;
-import org.bouncycastle.crypto.params.ParametersWithIV;
 import org.bouncycastle.crypto.util.PublicKeyFactory;
 
+import org.spout.api.protocol.ChannelProcessor;
 import org.spout.api.protocol.ClientSession;
 import org.spout.api.protocol.MessageHandler;
 import org.spout.api.protocol.Session;
-import org.spout.api.security.EncryptionChannelProcessor;
 import org.spout.api.security.SecurityHandler;
 
 import org.spout.vanilla.data.configuration.VanillaConfiguration;
 import org.spout.vanilla.protocol.ClientLoginAuth;
+import org.spout.vanilla.protocol.StreamEncryption;
 import org.spout.vanilla.protocol.msg.auth.EncryptionKeyRequestMessage;
 import org.spout.vanilla.protocol.msg.auth.EncryptionKeyResponseMessage;
 
@@ -68,15 +65,7 @@ public class EncryptionKeyRequestHandler extends MessageHandler<EncryptionKeyReq
 					byte[] encodedSecret = cipher.processBlock(sharedSecret, 0, 16);
 					byte[] encodedToken = cipher.processBlock(message.getVerifyTokenArray(), 0, 4);
 
-					String streamCipher = VanillaConfiguration.ENCRYPT_STREAM_ALGORITHM.getString();
-					String streamWrapper = VanillaConfiguration.ENCRYPT_STREAM_WRAPPER.getString();
-
-					BufferedBlockCipher toServerCipher = SecurityHandler.getInstance().getSymmetricCipher(streamCipher, streamWrapper);
-
-					CipherParameters symmetricKey = new ParametersWithIV(new KeyParameter(sharedSecret), sharedSecret);
-
-					toServerCipher.init(SecurityHandler.ENCRYPT_MODE, symmetricKey);
-					EncryptionChannelProcessor toServerProcessor = new EncryptionChannelProcessor(toServerCipher, 32);
+					ChannelProcessor toServerProcessor = StreamEncryption.createProcessor(sharedSecret, true);
 
 					EncryptionKeyResponseMessage response = new EncryptionKeyResponseMessage(false, encodedSecret, encodedToken);
 					response.setProcessor(toServerProcessor);
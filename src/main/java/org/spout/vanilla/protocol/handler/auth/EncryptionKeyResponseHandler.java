@@ -31,22 +31,18 @@ import java.security.MessageDigest;
 
 import org.bouncycastle.crypto.AsymmetricBlockCipher;
 import org.bouncycastle.crypto.AsymmetricCipherKeyPair;
-import org.bouncycastle.crypto.BufferedBlockCipher;
-import org.bouncycastle.crypto.CipherParameters;
-import org.bouncycastle.crypto.params.KeyParameter;
-import org.bouncycastle.crypto.params.ParametersWithIV;
 
+import org.spout.api.protocol.ChannelProcessor;
 import org.spout.api.protocol.ClientSession;
 import org.spout.api.protocol.MessageHandler;
 import org.spout.api.protocol.ServerSession;
 import org.spout.api.protocol.Session;
 import org.spout.api.scheduler.TaskPriority;
-import org.spout.api.security.EncryptionChannelProcessor;
 import org.spout.api.security.SecurityHandler;
 
 import org.spout.vanilla.VanillaPlugin;
 import org.spout.vanilla.data.configuration.VanillaConfiguration;
-import org.spout.vanilla.protocol.LoginAuth;
+import org.spout.vanilla.protocol.StreamEncryption;
 import org.spout.vanilla.protocol.VanillaProtocol;
 import org.spout.vanilla.protocol.msg.auth.EncryptionKeyResponseMessage;
 import org.spout.vanilla.protocol.msg.player.PlayerStatusMessage;
@@ -56,17 +52,8 @@ public class EncryptionKeyResponseHandler extends MessageHandler<EncryptionKeyRe
 	public void handleClient(final ClientSession session, final EncryptionKeyResponseMessage message) {
 		System.out.println("Response: " + message.toString());
 
-		String streamCipher = VanillaConfiguration.ENCRYPT_STREAM_ALGORITHM.getString();
-		String streamWrapper = VanillaConfiguration.ENCRYPT_STREAM_WRAPPER.getString();
-
-		BufferedBlockCipher fromServerCipher = SecurityHandler.getInstance().getSymmetricCipher(streamCipher, streamWrapper);
-
 		final byte[] sharedSecret = SecurityHandler.getInstance().getSymetricKey();
-		CipherParameters symmetricKey = new ParametersWithIV(new KeyParameter(sharedSecret), sharedSecret);
-
-		fromServerCipher.init(SecurityHandler.DECRYPT_MODE, symmetricKey);
-
-		EncryptionChannelProcessor fromServerProcessor = new EncryptionChannelProcessor(fromServerCipher, 32);
+		ChannelProcessor fromServerProcessor = StreamEncryption.createProcessor(sharedSecret, false);
 		message.getProcessorHandler().setProcessor(fromServerProcessor);
 
 		session.send(Session.SendType.FORCE, new PlayerStatusMessage(PlayerStatusMessage.INITIAL_SPAWN)); // Ready to login;
@@ -117,19 +104,8 @@ public class EncryptionKeyResponseHandler extends MessageHandler<EncryptionKeyRe
 
 			Runnable runnable = new Runnable() {
 				public void run() {
-					String streamCipher = VanillaConfiguration.ENCRYPT_STREAM_ALGORITHM.getString();
-					String streamWrapper = VanillaConfiguration.ENCRYPT_STREAM_WRAPPER.getString();
-
-					BufferedBlockCipher fromClientCipher = SecurityHandler.getInstance().getSymmetricCipher(streamCipher, streamWrapper);
-					BufferedBlockCipher toClientCipher = SecurityHandler.getInstance().getSymmetricCipher(streamCipher, streamWrapper);
-
-					CipherParameters symmetricKey = new ParametersWithIV(new KeyParameter(initialVector), initialVector);
-
-					fromClientCipher.init(SecurityHandler.DECRYPT_MODE, symmetricKey);
-					toClientCipher.init(SecurityHandler.ENCRYPT_MODE, symmetricKey);
-
-					EncryptionChannelProcessor fromClientProcessor = new EncryptionChannelProcessor(fromClientCipher, 32);
-					EncryptionChannelProcessor toClientProcessor = new EncryptionChannelProcessor(toClientCipher, 32);
+					ChannelProcessor fromClientProcessor = StreamEncryption.createProcessor(initialVector, false);
+					ChannelProcessor toClientProcessor = StreamEncryption.createProcessor(initialVector, true);
 
 					EncryptionKeyResponseMessage response = new EncryptionKeyResponseMessage(false, new byte[0], new byte[0]);
 					response.setProcessor(toClientProcessor);
@@ -141,8 +117,7 @@ public class EncryptionKeyResponseHandler extends MessageHandler<EncryptionKeyRe
 			};
 
 			if (VanillaConfiguration.ONLINE_MODE.getBoolean()) {
-				Thread loginAuth = new Thread(new LoginAuth(session, finalName, runnable));
-				loginAuth.start();
+				VanillaPlugin.getInstance().getLoginAuth().authenticate(session, finalName, runnable);
 			} else {
 				VanillaPlugin.getInstance().getEngine().getScheduler().scheduleSyncDelayedTask(VanillaPlugin.getInstance(), runnable, TaskPriority.CRITICAL);
 			}
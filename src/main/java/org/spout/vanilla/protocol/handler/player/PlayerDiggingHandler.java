@@ -27,7 +27,6 @@
 package org.spout.vanilla.protocol.handler.player;
 
 import java.util.Collection;
-import java.util.HashSet;
 
 import org.spout.api.entity.Player;
 import org.spout.api.event.player.Action;
@@ -44,7 +43,6 @@ import org.spout.api.plugin.services.ProtectionService;
 import org.spout.api.protocol.MessageHandler;
 import org.spout.api.protocol.ServerSession;
 import org.spout.api.protocol.reposition.RepositionManager;
-import org.spout.api.util.flag.Flag;
 
 import org.spout.vanilla.ChatStyle;
 import org.spout.vanilla.component.block.material.Sign;
@@ -53,6 +51,7 @@ import org.spout.vanilla.component.entity.misc.Digging;
 import org.spout.vanilla.component.entity.misc.Hunger;
 import org.spout.vanilla.data.GameMode;
 import org.spout.vanilla.data.VanillaData;
+import org.spout.vanilla.data.drops.FlagMaskSet;
 import org.spout.vanilla.data.drops.flag.PlayerFlags;
 import org.spout.vanilla.data.effect.store.GeneralEffects;
 import org.spout.vanilla.event.cause.PlayerBreakCause;
@@ -242,7 +241,7 @@ public final class PlayerDiggingHandler extends MessageHandler<PlayerDiggingMess
 	}
 
 	private boolean breakBlock(BlockMaterial blockMaterial, Block block, Human human, ServerSession session) {
-		HashSet<Flag> flags = new HashSet<Flag>();
+		FlagMaskSet flags = new FlagMaskSet();
 		if (human.isSurvival()) {
 			flags.add(PlayerFlags.SURVIVAL);
 		} else {
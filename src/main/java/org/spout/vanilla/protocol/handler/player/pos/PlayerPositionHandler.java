@@ -26,19 +26,6 @@
  */
 package org.spout.vanilla.protocol.handler.player.pos;
 
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import gnu.trove.iterator.TDoubleIterator;
-import gnu.trove.iterator.TLongIterator;
-import gnu.trove.list.TDoubleList;
-import gnu.trove.list.TLongList;
-import gnu.trove.list.linked.TDoubleLinkedList;
-import gnu.trove.list.linked.TLongLinkedList;
-
 import org.spout.api.entity.Player;
 import org.spout.api.geo.World;
 import org.spout.api.geo.discrete.Point;
@@ -48,10 +35,8 @@ import org.spout.api.material.block.BlockFace;
 import org.spout.api.protocol.ClientSession;
 import org.spout.api.protocol.MessageHandler;
 import org.spout.api.protocol.ServerSession;
-import org.spout.api.protocol.Session;
 import org.spout.api.protocol.reposition.RepositionManager;
 
-import org.spout.vanilla.VanillaPlugin;
 import org.spout.vanilla.component.entity.living.Human;
 import org.spout.vanilla.component.entity.player.Ping;
 import org.spout.vanilla.component.entity.player.VanillaPlayerNetworkComponent;
@@ -64,12 +49,6 @@ public final class PlayerPositionHandler extends MessageHandler<PlayerPositionMe
 	//Player running is 0.27 apart
 	//Player swimming is 0.14-0.11 apart
 	//Player flying is 0.5+
-	private final Cache<Session, PositionTracker> cache = CacheBuilder.newBuilder().expireAfterAccess(1, TimeUnit.SECONDS).build();
-	private final Callable<PositionTracker> loader = new Callable<PositionTracker>() {
-		public PositionTracker call() {
-			return new PositionTracker();
-		}
-	};
 
 	@Override
 	public void handleClient(ClientSession session, PlayerPositionMessage message) {
@@ -100,6 +79,7 @@ public final class PlayerPositionHandler extends MessageHandler<PlayerPositionMe
 		}
 		if (!position.equals(newPosition)) {
 			final Human human = holder.get(Human.class);
+			final PositionTracker tracker = ((VanillaPlayerNetworkComponent) holder.getNetwork()).getPositionTracker();
 			// TODO: live?
 			holder.getPhysics().setTransform(new Transform(newPosition, holder.getPhysics().getRotation(), holder.getPhysics().getScale()), false);
 
@@ -124,14 +104,13 @@ public final class PlayerPositionHandler extends MessageHandler<PlayerPositionMe
 
 			//Hover tracking
 			if (wasOnGround && !onGround) {
-				human.getData().put("position_on_ground", position);
-				human.getData().put("time_in_air", holder.getWorld().getAge());
+				tracker.leaveGround(position, holder.getWorld().getAge());
 			} else if (!wasOnGround && !onGround) {
 				//Changed directions
 				if (wasFalling && !human.isFalling() || human.isInWater()) {
-					human.getData().remove("time_in_air");
+					tracker.resetTimeInAir();
 				}
-				float time = human.getData().get("time_in_air", holder.getWorld().getAge());
+				float time = tracker.getTimeInAir(holder.getWorld().getAge());
 				//hovering or still rising
 				if (time + 2000 < holder.getWorld().getAge() && newPosition.getY() - position.getY() >= 0) {
 					if (!human.canFly()) {
@@ -139,17 +118,10 @@ public final class PlayerPositionHandler extends MessageHandler<PlayerPositionMe
 					}
 				}
 			} else if (!wasOnGround && onGround) {
-				human.getData().remove("position_on_ground");
-				human.getData().remove("time_in_air");
+				tracker.land();
 			}
 
 			//Movement tracking
-			PositionTracker tracker = null;
-			try {
-				tracker = cache.get(session, loader);
-			} catch (ExecutionException e) {
-				throw new RuntimeException(e);
-			}
 			tracker.updateTracker(human, position, newPosition, message.getCreationTimestamp());
 
 			//Debug
@@ -188,70 +160,4 @@ public final class PlayerPositionHandler extends MessageHandler<PlayerPositionMe
 			//				}
 		}
 	}
-
-	private static class PositionTracker {
-		private final TLongList messageTimeDeltas = new TLongLinkedList();
-		private final TDoubleList distanceDeltas = new TDoubleLinkedList();
-		private long lastMessage = System.nanoTime();
-
-		public boolean isFilled() {
-			return messageTimeDeltas.size() >= 50;
-		}
-
-		public void updateTracker(Human human, Point prevPoint, Point newPoint, long created) {
-			//Don't track updates if the last one was > 500 ms ago
-			if (created - lastMessage > 500 * 1E6) {
-				lastMessage = created;
-			} else {
-				messageTimeDeltas.add(created - lastMessage);
-				distanceDeltas.add(normalizeDistance(human, prevPoint, newPoint));
-				if (messageTimeDeltas.size() > 50) {
-					messageTimeDeltas.removeAt(0);
-				}
-				if (distanceDeltas.size() > 50) {
-					distanceDeltas.removeAt(0);
-				}
-				lastMessage = created;
-			}
-		}
-
-		private double normalizeDistance(Human human, Point prevPoint, Point newPoint) {
-			final float dx = prevPoint.getX() - newPoint.getX();
-			final float dz = prevPoint.getZ() - newPoint.getZ();
-			final float dist = (float) Math.sqrt(dx * dx + dz * dz);
-			final double tpsModifier = 1D / Math.max(1F, 20F / VanillaPlugin.getInstance().getTPSMonitor().getTPS());
-
-			if (human.isSneaking()) {
-				return (dist / 0.08D) * 0.22D * tpsModifier;
-			}
-			if (human.isSprinting()) {
-				return (dist / 0.32D) * 0.22D * tpsModifier;
-			}
-			return dist * tpsModifier;
-		}
-
-		public double getAvgMovement() {
-			if (distanceDeltas.isEmpty()) {
-				return 0;
-			}
-			double total = 0;
-			TDoubleIterator i = distanceDeltas.iterator();
-			while (i.hasNext()) {
-				total += i.next();
-			}
-			return total / distanceDeltas.size();
-		}
-
-		public double getAvgMessageTime() {
-			if (messageTimeDeltas.isEmpty()) {
-				return 0;
-			}
-			long total = 0;
-			TLongIterator i = messageTimeDeltas.iterator();
-			while (i.hasNext()) {
-				total += i.next();
-			}
-			return total / (double) messageTimeDeltas.size();
-		}
-	}
 }
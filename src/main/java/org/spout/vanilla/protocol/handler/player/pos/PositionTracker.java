@@ -0,0 +1,157 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.protocol.handler.player.pos;
+
+import org.spout.api.geo.discrete.Point;
+
+import org.spout.vanilla.VanillaPlugin;
+import org.spout.vanilla.component.entity.living.Human;
+
+/**
+ * Recent movement of a player, as reported by its position messages.<br>
+ * Time and distance deltas are kept in fixed size ring buffers, so tracking a message allocates nothing.
+ */
+public class PositionTracker {
+	/**
+	 * The number of deltas remembered
+	 */
+	public static final int HISTORY = 50;
+	/**
+	 * Marks that no time in air is being tracked
+	 */
+	private static final long NOT_IN_AIR = -1;
+	private final long[] messageTimeDeltas = new long[HISTORY];
+	private final double[] distanceDeltas = new double[HISTORY];
+	private int head = 0;
+	private int size = 0;
+	private long lastMessage = System.nanoTime();
+	private Point groundPosition = null;
+	private long timeInAir = NOT_IN_AIR;
+
+	public boolean isFilled() {
+		return size >= HISTORY;
+	}
+
+	public void updateTracker(Human human, Point prevPoint, Point newPoint, long created) {
+		//Forget the history after a second without updates
+		if (created - lastMessage > 1000 * 1E6) {
+			size = 0;
+		}
+		//Don't track updates if the last one was > 500 ms ago
+		if (created - lastMessage <= 500 * 1E6) {
+			messageTimeDeltas[head] = created - lastMessage;
+			distanceDeltas[head] = normalizeDistance(human, prevPoint, newPoint);
+			head = (head + 1) % HISTORY;
+			if (size < HISTORY) {
+				size++;
+			}
+		}
+		lastMessage = created;
+	}
+
+	private double normalizeDistance(Human human, Point prevPoint, Point newPoint) {
+		final float dx = prevPoint.getX() - newPoint.getX();
+		final float dz = prevPoint.getZ() - newPoint.getZ();
+		final float dist = (float) Math.sqrt(dx * dx + dz * dz);
+		final double tpsModifier = 1D / Math.max(1F, 20F / VanillaPlugin.getInstance().getTPSMonitor().getTPS());
+
+		if (human.isSneaking()) {
+			return (dist / 0.08D) * 0.22D * tpsModifier;
+		}
+		if (human.isSprinting()) {
+			return (dist / 0.32D) * 0.22D * tpsModifier;
+		}
+		return dist * tpsModifier;
+	}
+
+	public double getAvgMovement() {
+		if (size == 0) {
+			return 0;
+		}
+		double total = 0;
+		for (int i = 0; i < size; i++) {
+			total += distanceDeltas[(head - size + i + HISTORY) % HISTORY];
+		}
+		return total / size;
+	}
+
+	public double getAvgMessageTime() {
+		if (size == 0) {
+			return 0;
+		}
+		long total = 0;
+		for (int i = 0; i < size; i++) {
+			total += messageTimeDeltas[(head - size + i + HISTORY) % HISTORY];
+		}
+		return total / (double) size;
+	}
+
+	/**
+	 * Gets the position the player last left the ground at
+	 *
+	 * @return the position, or null if the player is on the ground
+	 */
+	public Point getGroundPosition() {
+		return groundPosition;
+	}
+
+	/**
+	 * Gets the world age at which the player left the ground
+	 *
+	 * @param def value to return when no time in air is being tracked
+	 * @return the world age, or def
+	 */
+	public long getTimeInAir(long def) {
+		return timeInAir == NOT_IN_AIR ? def : timeInAir;
+	}
+
+	/**
+	 * Starts tracking the time in air
+	 *
+	 * @param groundPosition the player left the ground at
+	 * @param age of the world
+	 */
+	public void leaveGround(Point groundPosition, long age) {
+		this.groundPosition = groundPosition;
+		this.timeInAir = age;
+	}
+
+	/**
+	 * Stops tracking the time in air, while the player stays in the air
+	 */
+	public void resetTimeInAir() {
+		timeInAir = NOT_IN_AIR;
+	}
+
+	/**
+	 * Stops tracking the time in air once the player landed
+	 */
+	public void land() {
+		groundPosition = null;
+		timeInAir = NOT_IN_AIR;
+	}
+}
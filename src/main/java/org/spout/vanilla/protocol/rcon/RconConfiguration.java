@@ -26,7 +26,11 @@
  */
 package org.spout.vanilla.protocol.rcon;
 
+import java.util.logging.Level;
+
+import org.spout.api.Spout;
 import org.spout.cereal.config.Configuration;
+import org.spout.cereal.config.ConfigurationException;
 import org.spout.cereal.config.ConfigurationHolder;
 import org.spout.cereal.config.ConfigurationHolderConfiguration;
 
@@ -34,11 +38,25 @@ import org.spout.cereal.config.ConfigurationHolderConfiguration;
  * Configuration for Vanilla's rcon protocol
  */
 public final class RconConfiguration extends ConfigurationHolderConfiguration {
-	public final ConfigurationHolder ENABLED = new ConfigurationHolder(true, "enabled");
-	public final ConfigurationHolder PASSWORD = new ConfigurationHolder("change-me", "password");
+	public static final String DEFAULT_PASSWORD = "change-me";
+	public final ConfigurationHolder ENABLED = new ConfigurationHolder(false, "enabled");
+	public final ConfigurationHolder PASSWORD = new ConfigurationHolder(DEFAULT_PASSWORD, "password");
 	public final ConfigurationHolder PORT = new ConfigurationHolder(25575, "port");
+	public final ConfigurationHolder MAX_CONNECTIONS = new ConfigurationHolder(16, "max-connections");
+	public final ConfigurationHolder MAX_PENDING_COMMANDS = new ConfigurationHolder(8, "max-pending-commands");
+	public final ConfigurationHolder TIMEOUT = new ConfigurationHolder(300, "timeout");
 
 	public RconConfiguration(Configuration base) {
 		super(base);
 	}
+
+	@Override
+	public void load() {
+		try {
+			super.load();
+			super.save();
+		} catch (ConfigurationException e) {
+			Spout.getLogger().log(Level.WARNING, "Error loading rcon configuration: ", e);
+		}
+	}
 }
@@ -26,34 +26,58 @@
  */
 package org.spout.vanilla.protocol.rcon;
 
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.List;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+
+import org.spout.api.protocol.MessageCodec;
+
+import org.spout.vanilla.protocol.rcon.msg.RconMessage;
+
 /**
- * Decoder for the rcon protocol
+ * Decoder for the rcon protocol, splitting the stream into length prefixed packets
  */
-public class RconDecoder /*extends ReplayingDecoder<VoidEnum>*/ {
-	/*
+public class RconDecoder extends ByteToMessageDecoder {
+	/**
+	 * The largest packet length a client may send, not counting the length field itself
+	 */
+	public static final int MAX_REQUEST_LENGTH = 1460;
+	/**
+	 * The smallest packet length: request id, opcode and two null bytes
+	 */
+	public static final int MIN_REQUEST_LENGTH = 10;
 	private final RemoteConnectionSession session;
 
 	public RconDecoder(RemoteConnectionSession session) {
 		this.session = session;
 	}
 
-	protected Object decode(ChannelHandlerContext channelHandlerContext, Channel channel, ByteBuf buffer, VoidEnum state) throws Exception {
-		int length = buffer.readInt();
-		if (buffer.readableBytes() < length) {
-			return null;
+	@Override
+	protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+		ByteBuf buffer = in.order(ByteOrder.LITTLE_ENDIAN);
+		if (buffer.readableBytes() < 4) {
+			return;
 		}
-
-		int requestId = buffer.readInt();
-		int opcode = buffer.readInt();
-		@SuppressWarnings("unchecked")
-		MessageCodec<Message> codec = (MessageCodec<Message>) session.getCore().getCodecLookupService().find(opcode);
+		int length = buffer.getInt(buffer.readerIndex());
+		if (length < MIN_REQUEST_LENGTH || length > MAX_REQUEST_LENGTH) {
+			throw new CorruptedFrameException("Invalid packet length: " + length);
+		}
+		if (buffer.readableBytes() < length + 4) {
+			return;
+		}
+		buffer.skipBytes(4);
+		ByteBuf frame = buffer.readSlice(length);
+		int opcode = frame.getInt(frame.readerIndex() + 4);
+		@SuppressWarnings ("unchecked")
+		MessageCodec<RconMessage> codec = (MessageCodec<RconMessage>) session.getCore().getCodecLookupService().find(opcode);
 		if (codec == null) {
 			throw new IOException("Unknown opcode: " + opcode + "!");
 		}
-
-		if (session.getRequestId() == -1 && requestId != -1) {
-			session.setRequestId(requestId);
-		}
-		return codec.decode(buffer);
-	}*/
+		out.add(codec.decode(frame));
+	}
 }
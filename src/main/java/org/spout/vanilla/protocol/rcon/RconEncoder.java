@@ -26,31 +26,40 @@
  */
 package org.spout.vanilla.protocol.rcon;
 
+import java.io.IOException;
+import java.nio.ByteOrder;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+
+import org.spout.api.protocol.MessageCodec;
+
+import org.spout.vanilla.protocol.rcon.msg.RconMessage;
+
 /**
- * Encoder for the rcon protocol
+ * Encoder for the rcon protocol, prefixing each packet with its length
  */
-public class RconEncoder /*extends OneToOneEncoder*/ {
-	/*private final RemoteConnectionSession session;
+public class RconEncoder extends MessageToByteEncoder<RconMessage> {
+	private final RemoteConnectionSession session;
 
 	public RconEncoder(RemoteConnectionSession session) {
 		this.session = session;
 	}
 
-	protected Object encode(ChannelHandlerContext channelHandlerContext, Channel channel, Object obj) throws Exception {
-		if (obj instanceof Message) {
-			Message msg = (Message) obj;
-			@SuppressWarnings("unchecked")
-			MessageCodec<Message> codec = (MessageCodec<Message>) session.getCore().getCodecLookupService().find(msg.getClass());
-			if (codec == null) {
-				throw new IOException("No codec for " + msg.getClass());
-			}
-			ByteBuf headerBuf = Unpooled.buffer(ByteOrder.LITTLE_ENDIAN, 12);
-			ByteBuf payloadBuf = codec.encode(msg);
-			headerBuf.writeInt(8 + payloadBuf.writerIndex() + 1); // Length
-			headerBuf.writeInt(session.getRequestId()); // Request id
-			headerBuf.writeInt(codec.getOpcode()); // Opcode
-			return Unpooled.wrappedBuffer(headerBuf, payloadBuf);
+	@Override
+	protected void encode(ChannelHandlerContext ctx, RconMessage msg, ByteBuf out) throws Exception {
+		@SuppressWarnings ("unchecked")
+		MessageCodec<RconMessage> codec = (MessageCodec<RconMessage>) session.getCore().getCodecLookupService().find(msg.getClass());
+		if (codec == null) {
+			throw new IOException("No codec for " + msg.getClass());
+		}
+		ByteBuf payload = codec.encode(msg);
+		try {
+			out.order(ByteOrder.LITTLE_ENDIAN).writeInt(payload.readableBytes()); // Length
+			out.writeBytes(payload);
+		} finally {
+			payload.release();
 		}
-		return obj;
-	}*/
+	}
 }
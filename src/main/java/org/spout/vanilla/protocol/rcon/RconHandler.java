@@ -26,34 +26,64 @@
  */
 package org.spout.vanilla.protocol.rcon;
 
+import java.util.logging.Level;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.timeout.ReadTimeoutException;
+
+import org.spout.vanilla.protocol.rcon.handler.RconMessageHandler;
+import org.spout.vanilla.protocol.rcon.msg.RconMessage;
+
 /**
  * Handler for rcon connections
  */
-public class RconHandler /*extends SimpleChannelHandler*/ {
-	/*private final RemoteConnectionSession session;
+public class RconHandler extends SimpleChannelInboundHandler<RconMessage> {
+	private final RemoteConnectionServer server;
+	private final RemoteConnectionSession session;
 
-	public RconHandler(RemoteConnectionSession session) {
+	public RconHandler(RemoteConnectionServer server, RemoteConnectionSession session) {
+		this.server = server;
 		this.session = session;
 	}
 
 	@Override
-	public void channelConnected(ChannelHandlerContext ctx, ChannelStateEvent event) throws Exception {
-		session.setChannel(ctx.getChannel());
-		session.getCore().getLogger().info("RCON Channel " + ctx.getChannel() + " connected");
+	public void channelActive(ChannelHandlerContext ctx) {
+		session.setChannel(ctx.channel());
+		if (!server.openConnection(session)) {
+			server.getLogger().warning("RCON Channel " + ctx.channel() + " refused, too many connections");
+			ctx.close();
+			return;
+		}
+		server.getLogger().info("RCON Channel " + ctx.channel() + " connected");
+	}
+
+	@Override
+	public void channelInactive(ChannelHandlerContext ctx) {
+		if (server.closeConnection(session)) {
+			server.getLogger().info("RCON Channel " + ctx.channel() + " disconnected");
+		}
 	}
 
 	@Override
-	public void channelDisconnected(ChannelHandlerContext ctx, ChannelStateEvent event) {
-		session.getCore().getLogger().info("RCON Channel " + ctx.getChannel() + " disconnected");
+	protected void channelRead0(ChannelHandlerContext ctx, RconMessage msg) {
+		@SuppressWarnings ("unchecked")
+		RconMessageHandler<RconMessage> handler = (RconMessageHandler<RconMessage>) server.getHandlerLookupService().find(msg.getClass());
+		if (handler == null) {
+			server.getLogger().warning("RCON Channel " + ctx.channel() + " sent unhandled message " + msg);
+			ctx.close();
+			return;
+		}
+		handler.handle(session, msg);
 	}
 
 	@Override
-	public void messageReceived(ChannelHandlerContext ctx, MessageEvent event) {
-		if (event.getMessage() instanceof RconMessage) {
-			RconMessage msg = (RconMessage) event.getMessage();
-			@SuppressWarnings("unchecked")
-			RconMessageHandler<RconMessage> handler = (RconMessageHandler<RconMessage>) session.getCore().getHandlerLookupService().find(msg.getClass());
-			handler.handle(session, msg);
+	public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+		if (cause instanceof ReadTimeoutException) {
+			server.getLogger().info("RCON Channel " + ctx.channel() + " timed out");
+		} else {
+			server.getLogger().log(Level.WARNING, "RCON Channel " + ctx.channel() + " closed after an error", cause);
 		}
-	}*/
+		ctx.close();
+	}
 }
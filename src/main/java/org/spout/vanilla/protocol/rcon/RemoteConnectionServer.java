@@ -30,18 +30,22 @@ import java.io.File;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
-import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelPipeline;
-import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.ChannelGroupFuture;
 import io.netty.channel.group.DefaultChannelGroup;
-import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.util.concurrent.GlobalEventExecutor;
 
 import org.spout.api.Server;
@@ -57,25 +61,38 @@ public class RemoteConnectionServer extends RemoteConnectionCore {
 	private final RconConfiguration config;
 	private final ChannelGroup group = new DefaultChannelGroup("RconChannels", GlobalEventExecutor.INSTANCE);
 	private final ServerBootstrap bootstrap = new ServerBootstrap();
+	// Created on the first bind, so a disabled rcon server starts no threads
+	private EventLoopGroup bossGroup, workerGroup;
+	private final AtomicInteger connections = new AtomicInteger();
 
 	public RemoteConnectionServer(Logger logger, File dataFolder) {
 		super(logger);
 		this.config = new RconConfiguration(new YamlConfiguration(new File(dataFolder, "rcon.yml")));
-		/*bootstrap.setPipelineFactory(new ChannelPipelineFactory() {
-			public ChannelPipeline getPipeline() throws Exception {
-				RemoteConnectionSession session = new RemoteConnectionSession(RemoteConnectionServer.this);
-				return Channels.pipeline(new RconEncoder(session),
-						new RconDecoder(session),
-						new ChannelTracker(),
-						new RconHandler(session));
-			}
-		});*/
+		config.load();
+		final int timeout = config.TIMEOUT.getInt();
+		bootstrap.channel(NioServerSocketChannel.class)
+				.childHandler(new ChannelInitializer<SocketChannel>() {
+					@Override
+					protected void initChannel(SocketChannel channel) {
+						RemoteConnectionSession session = new RemoteConnectionSession(RemoteConnectionServer.this);
+						channel.pipeline().addLast(
+								new ReadTimeoutHandler(timeout),
+								new RconDecoder(session),
+								new RconEncoder(session),
+								new ChannelTracker(),
+								new RconHandler(RemoteConnectionServer.this, session));
+					}
+				});
 	}
 
 	public void bindDefaultPorts(Server server) {
 		if (!config.ENABLED.getBoolean()) {
 			return;
 		}
+		if (RconConfiguration.DEFAULT_PASSWORD.equals(getPassword())) {
+			getLogger().warning("The rcon password has not been changed from the default, not binding!");
+			return;
+		}
 		int bindPort = config.PORT.getInt();
 
 		for (PortBinding binding : server.getBoundAddresses()) {
@@ -93,16 +110,71 @@ public class RemoteConnectionServer extends RemoteConnectionCore {
 		}
 	}
 
-	public void bind(SocketAddress address) {
-		group.add(bootstrap.bind(address).awaitUninterruptibly().channel());
+	public synchronized void bind(SocketAddress address) {
+		if (bossGroup == null) {
+			bossGroup = new NioEventLoopGroup(1);
+			workerGroup = new NioEventLoopGroup();
+			bootstrap.group(bossGroup, workerGroup);
+		}
+		ChannelFuture future = bootstrap.bind(address).awaitUninterruptibly();
+		if (!future.isSuccess()) {
+			getLogger().warning("Unable to bind rcon to " + address + ": " + future.cause());
+			return;
+		}
+		group.add(future.channel());
+		getLogger().info("Rcon listening on " + address);
 	}
 
 	public String getPassword() {
 		return config.PASSWORD.getString();
 	}
 
-	public void close() throws IOException {
+	/**
+	 * Gets how many commands of a single connection may wait for the main thread at once
+	 *
+	 * @return the maximum number of pending commands
+	 */
+	public int getMaxPendingCommands() {
+		return config.MAX_PENDING_COMMANDS.getInt();
+	}
+
+	/**
+	 * Counts a new connection towards the connection limit
+	 *
+	 * @param session of the connection
+	 * @return True if the connection is accepted, false if the limit is reached
+	 */
+	protected boolean openConnection(RemoteConnectionSession session) {
+		if (connections.incrementAndGet() > config.MAX_CONNECTIONS.getInt()) {
+			connections.decrementAndGet();
+			return false;
+		}
+		session.setCounted(true);
+		return true;
+	}
+
+	/**
+	 * Releases the slot of a closed connection
+	 *
+	 * @param session of the connection
+	 * @return True if the connection had been accepted
+	 */
+	protected boolean closeConnection(RemoteConnectionSession session) {
+		if (!session.isCounted()) {
+			return false;
+		}
+		session.setCounted(false);
+		connections.decrementAndGet();
+		return true;
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
 		ChannelGroupFuture f = group.close().awaitUninterruptibly();
+		if (bossGroup != null) {
+			bossGroup.shutdownGracefully();
+			workerGroup.shutdownGracefully();
+		}
 		if (!f.isSuccess()) {
 			for (ChannelFuture future : f) {
 				if (!future.isSuccess()) {
@@ -110,24 +182,18 @@ public class RemoteConnectionServer extends RemoteConnectionCore {
 				}
 			}
 		}
-		bootstrap.group().shutdownGracefully();
 	}
 
 	/**
 	 * See {@link ChannelGroup}
 	 */
-	private final class ChannelTracker extends SimpleChannelInboundHandler<Object> {
+	private final class ChannelTracker extends ChannelInboundHandlerAdapter {
 		@Override
 		public void channelActive(ChannelHandlerContext ctx) {
 			// Add all open channels to the global group so that they are
 			// closed on shutdown.
 			group.add(ctx.channel());
+			ctx.fireChannelActive();
 		}
-
-		@Override
-		protected void channelRead0(ChannelHandlerContext chc, Object i) throws Exception {
-			chc.fireChannelRead(i);
-		}
-
 	}
 }
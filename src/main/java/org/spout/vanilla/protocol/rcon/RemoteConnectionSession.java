@@ -26,83 +26,53 @@
  */
 package org.spout.vanilla.protocol.rcon;
 
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+
+import org.spout.api.Spout;
+import org.spout.api.command.Command;
+import org.spout.api.command.CommandSource;
+import org.spout.api.data.ValueHolder;
+import org.spout.api.event.server.PreCommandEvent;
+import org.spout.api.exception.CommandException;
+import org.spout.api.geo.World;
+import org.spout.api.lang.Locale;
+import org.spout.api.scheduler.TaskPriority;
+
+import org.spout.vanilla.ChatStyle;
+import org.spout.vanilla.VanillaPlugin;
+import org.spout.vanilla.protocol.rcon.msg.CommandResponseMessage;
+import org.spout.vanilla.protocol.rcon.msg.RconMessage;
+
 /**
- * Session for a remote connection
+ * Session for a remote connection<br>
+ * Commands are handed to the main thread, their output is collected while they run and sent back as one response, split over several packets when it is too long.
  */
-public class RemoteConnectionSession {
-	/*
+public class RemoteConnectionSession implements CommandSource {
+	/**
+	 * The longest payload sent in a single response packet
+	 */
+	public static final int MAX_RESPONSE_LENGTH = 4096;
 	private final RemoteConnectionCore core;
-	private final AtomicInteger requestId = new AtomicInteger(-1);
 	private final AtomicReference<Channel> channel = new AtomicReference<Channel>();
-	private State state = State.AUTH;
-	private final AtomicReference<ChatChannel> activeChannel = new AtomicReference<ChatChannel>();
-	private DateFormat format = new SimpleDateFormat("hh:mm:ss");
-
-	@Override
-	public boolean isInGroup(World world, String group) {
-		return false;
-	}
-
-	@Override
-	public String[] getGroups(World world) {
-		return new String[0];
-	}
-
-	@Override
-	public ValueHolder getData(World world, String node) {
-		return null;
-	}
-
-	@Override
-	public boolean hasData(String node) {
-		return false;
-	}
-
-	@Override
-	public boolean hasData(World world, String node) {
-		return false;
-	}
-
-	public static enum State {
-		AUTH,
-		COMMANDS,
-	}
+	private final AtomicInteger pendingCommands = new AtomicInteger();
+	private volatile boolean authenticated = false;
+	private volatile boolean counted = false;
+	private StringBuilder output = null;
+	private int lastRequestId = 0;
 
 	public RemoteConnectionSession(RemoteConnectionCore core) {
 		this.core = core;
-		activeChannel.set(VanillaPlugin.getInstance().getEngine().getChatChannelFactory().create(this));
-		//requestId.set(new Random().nextInt()); // TODO: Find place to allocate request id, might want to have client do this
 	}
 
+	@Override
 	public String getName() {
-		return isInitialized() ? "RCON:" + channel.get().getRemoteAddress() : "RCON:Unknown";
-	}
-
-	public void init() {
-	}
-
-	public boolean isInitialized() {
-		return channel.get() != null && channel.get().isConnected();
-	}
-
-	public void close() {
-		getChannel().getCloseFuture().awaitUninterruptibly();
-	}
-
-	public void setDateFormat(DateFormat format) {
-		this.format = format;
-	}
-
-	public void send(RconMessage message) {
-		getChannel().writeAndFlush(message);
-	}
-
-	public void addMessage(ChatArguments message) {
-		StringBuilder builder = new StringBuilder();
-		builder.append('[').append(format.format(new Date())).append("] ");
-		builder.append(message.asString());
-		// TODO: Split up payload
-		send(new CommandResponseMessage(builder.toString()));
+		Channel c = channel.get();
+		return c != null ? "RCON:" + c.remoteAddress() : "RCON:Unknown";
 	}
 
 	public Channel getChannel() {
@@ -119,109 +89,224 @@ public class RemoteConnectionSession {
 		}
 	}
 
-	public void setRequestId(int requestId) {
-		if (requestId == -1) {
-			this.requestId.set(-1);
-		} else if (state == State.AUTH) {
-			throw new IllegalStateException("Not correctly authenticated yet!");
-		} else if (!this.requestId.compareAndSet(-1, requestId)) {
-			throw new IllegalStateException("Request id has already been set!");
-		}
+	public RemoteConnectionCore getCore() {
+		return core;
 	}
 
-	public int getRequestId() {
-		return requestId.get();
+	public boolean isAuthenticated() {
+		return authenticated;
 	}
 
-	public boolean isAuthenticated() {
-		return requestId.get() != -1;
+	public void setAuthenticated(boolean authenticated) {
+		this.authenticated = authenticated;
 	}
 
-	public RemoteConnectionCore getCore() {
-		return core;
+	/**
+	 * Gets whether this session counts towards the connection limit of the server
+	 *
+	 * @return True if counted
+	 */
+	public boolean isCounted() {
+		return counted;
 	}
 
-	public State getState() {
-		return state;
+	public void setCounted(boolean counted) {
+		this.counted = counted;
 	}
 
-	public void setState(State state) {
-		this.state = state;
+	public ChannelFuture send(RconMessage message) {
+		return getChannel().writeAndFlush(message);
 	}
 
-	// CommandSource methods
-	public void sendCommand(String command, ChatArguments arguments) {
-		if ("say".equals(command)) {
-			addMessage(arguments);
-		} else {
-			// Throw exception?
-		}
+	public void disconnect() {
+		getChannel().close();
 	}
 
-	public void processCommand(String command, ChatArguments arguments) {
-		Command cmd = VanillaPlugin.getInstance().getEngine().getRootCommand().getChild(command);
-		if (cmd == null) {
-			sendMessage(ChatArguments.fromString("No such command: " + command));
-		} else {
-			cmd.process(this, command, arguments, false);
-		}
+	/**
+	 * Sends a response to a request, split into as many packets as needed
+	 *
+	 * @param requestId of the request
+	 * @param text of the response
+	 */
+	public void sendResponse(int requestId, String text) {
+		Channel c = getChannel();
+		int offset = 0;
+		do {
+			int end = Math.min(text.length(), offset + MAX_RESPONSE_LENGTH);
+			c.write(new CommandResponseMessage(requestId, text.substring(offset, end)));
+			offset = end;
+		} while (offset < text.length());
+		c.flush();
 	}
 
-	public boolean sendMessage(Object... message) {
-		return sendMessage(new ChatArguments(message));
+	/**
+	 * Runs a command line on the main thread and sends its output back once it completes.
+	 * The network thread returns immediately.
+	 *
+	 * @param requestId of the request
+	 * @param commandLine to run
+	 * @param maxPending number of commands that may wait for the main thread at once
+	 */
+	public void execute(final int requestId, final String commandLine, int maxPending) {
+		if (pendingCommands.incrementAndGet() > maxPending) {
+			pendingCommands.decrementAndGet();
+			sendResponse(requestId, "Too many commands pending, try again later");
+			return;
+		}
+		VanillaPlugin.getInstance().getEngine().getScheduler().scheduleSyncDelayedTask(VanillaPlugin.getInstance(), new Runnable() {
+			@Override
+			public void run() {
+				String text;
+				synchronized (RemoteConnectionSession.this) {
+					output = new StringBuilder();
+					lastRequestId = requestId;
+				}
+				try {
+					String[] split = commandLine.trim().split(" ");
+					String[] args = new String[split.length - 1];
+					System.arraycopy(split, 1, args, 0, args.length);
+					processCommand(split[0], args);
+				} catch (RuntimeException e) {
+					core.getLogger().log(Level.WARNING, "Error executing rcon command: " + commandLine, e);
+					sendMessage("An internal error occurred while executing the command");
+				} finally {
+					synchronized (RemoteConnectionSession.this) {
+						text = output.toString();
+						output = null;
+					}
+					pendingCommands.decrementAndGet();
+				}
+				if (getChannel().isActive()) {
+					sendResponse(requestId, text);
+				}
+			}
+		}, TaskPriority.NORMAL);
+	}
+
+	/**
+	 * Sends an empty response to a request once all commands received before it completed.
+	 * Clients send such a request after a command to find the end of a response split over several packets.
+	 *
+	 * @param requestId of the request
+	 */
+	public void mirror(final int requestId) {
+		VanillaPlugin.getInstance().getEngine().getScheduler().scheduleSyncDelayedTask(VanillaPlugin.getInstance(), new Runnable() {
+			@Override
+			public void run() {
+				if (getChannel().isActive()) {
+					sendResponse(requestId, "");
+				}
+			}
+		}, TaskPriority.NORMAL);
 	}
 
-	public boolean sendMessage(ChatArguments message) {
-		addMessage(message);
-		return true;
+	@Override
+	public void sendMessage(String message) {
+		message = stripStyles(message);
+		synchronized (this) {
+			if (output != null) {
+				if (output.length() > 0) {
+					output.append('\n');
+				}
+				output.append(message);
+				return;
+			}
+		}
+		// Sent outside of a command, so it goes out on its own
+		if (getChannel().isActive()) {
+			sendResponse(lastRequestId, message);
+		}
 	}
 
-	public boolean sendRawMessage(Object... message) {
-		return sendRawMessage(new ChatArguments(message));
+	private static String stripStyles(String message) {
+		if (message.indexOf(ChatStyle.COLOR_CHAR) == -1) {
+			return message;
+		}
+		StringBuilder builder = new StringBuilder(message.length());
+		for (int i = 0; i < message.length(); i++) {
+			char c = message.charAt(i);
+			if (c == ChatStyle.COLOR_CHAR) {
+				i++;
+			} else {
+				builder.append(c);
+			}
+		}
+		return builder.toString();
 	}
 
-	public boolean sendRawMessage(ChatArguments message) {
-		addMessage(message);
-		return true;
+	@Override
+	public void processCommand(String command, String... args) {
+		PreCommandEvent event = VanillaPlugin.getInstance().getEngine().getEventManager().callEvent(new PreCommandEvent(this, command, args));
+		if (event.isCancelled()) {
+			return;
+		}
+		command = event.getCommand();
+
+		Command cmd = Spout.getCommandManager().getCommand(command, false);
+		if (cmd == null) {
+			sendMessage("Unknown command: " + command);
+			return;
+		}
+
+		try {
+			cmd.process(this, args);
+		} catch (CommandException e) {
+			sendMessage(e.getMessage());
+		}
 	}
 
+	@Override
 	public Locale getPreferredLocale() {
 		return Locale.ENGLISH_US;
 	}
 
-	public ValueHolder getData(String node) {
-		return new ValueHolderBase.NullHolder();
-	}
-
+	@Override
 	public boolean hasPermission(String node) {
 		return hasPermission(null, node);
 	}
 
+	@Override
 	public boolean hasPermission(World world, String node) {
-		return true;
+		return authenticated;
 	}
 
+	@Override
 	public boolean isInGroup(String group) {
 		return false;
 	}
 
+	@Override
+	public boolean isInGroup(World world, String group) {
+		return false;
+	}
+
+	@Override
 	public String[] getGroups() {
 		return new String[0];
 	}
 
-	public boolean isGroup() {
-		return false;
+	@Override
+	public String[] getGroups(World world) {
+		return new String[0];
+	}
+
+	@Override
+	public ValueHolder getData(String node) {
+		return null;
+	}
+
+	@Override
+	public ValueHolder getData(World world, String node) {
+		return null;
 	}
 
 	@Override
-	public ChatChannel getActiveChannel() {
-		return activeChannel.get();
+	public boolean hasData(String node) {
+		return false;
 	}
 
 	@Override
-	public void setActiveChannel(ChatChannel channel) {
-		Preconditions.checkNotNull(channel);
-		channel.onAttachTo(this);
-		activeChannel.getAndSet(channel).onDetachedFrom(this);
-	}*/
+	public boolean hasData(World world, String node) {
+		return false;
+	}
 }
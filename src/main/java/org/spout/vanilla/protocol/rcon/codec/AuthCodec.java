@@ -33,7 +33,7 @@ public class AuthCodec extends RconCodec<AuthMessage> {
 		super(AuthMessage.class, 3);
 	}
 
-	public AuthMessage createMessage(String payload) {
-		return new AuthMessage(payload);
+	public AuthMessage createMessage(int requestId, String payload) {
+		return new AuthMessage(requestId, payload);
 	}
 }
@@ -33,7 +33,7 @@ public class CommandCodec extends RconCodec<CommandMessage> {
 		super(CommandMessage.class, 2);
 	}
 
-	public CommandMessage createMessage(String payload) {
-		return new CommandMessage(payload);
+	public CommandMessage createMessage(int requestId, String payload) {
+		return new CommandMessage(requestId, payload);
 	}
 }
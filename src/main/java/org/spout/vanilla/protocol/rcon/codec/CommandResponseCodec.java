@@ -33,7 +33,7 @@ public class CommandResponseCodec extends RconCodec<CommandResponseMessage> {
 		super(CommandResponseMessage.class, 0);
 	}
 
-	public CommandResponseMessage createMessage(String payload) {
-		return new CommandResponseMessage(payload);
+	public CommandResponseMessage createMessage(int requestId, String payload) {
+		return new CommandResponseMessage(requestId, payload);
 	}
 }
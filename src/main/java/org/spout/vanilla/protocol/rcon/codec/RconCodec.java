@@ -37,7 +37,9 @@ import org.spout.api.protocol.MessageCodec;
 import org.spout.vanilla.protocol.rcon.msg.RconMessage;
 
 /**
- * Base class for MessageCodecs using rcon
+ * Base class for MessageCodecs using rcon<br>
+ * Messages are encoded as the little endian request id and opcode, followed by the null terminated payload and one more null byte.
+ * The length prefix is handled by the {@link org.spout.vanilla.protocol.rcon.RconEncoder} and {@link org.spout.vanilla.protocol.rcon.RconDecoder}.
  */
 public abstract class RconCodec<T extends RconMessage> extends MessageCodec<T> {
 	public RconCodec(Class<T> clazz, int opcode) {
@@ -47,8 +49,9 @@ public abstract class RconCodec<T extends RconMessage> extends MessageCodec<T> {
 	@Override
 	public ByteBuf encode(T message) {
 		byte[] bytes = message.getPayload().getBytes(CharsetUtil.US_ASCII);
-		ByteBuf buffer = Unpooled.buffer(bytes.length + 2);
-		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		ByteBuf buffer = Unpooled.buffer(bytes.length + 10).order(ByteOrder.LITTLE_ENDIAN);
+		buffer.writeInt(message.getRequestId());
+		buffer.writeInt(getOpcode());
 		buffer.writeBytes(bytes);
 		buffer.writeByte(0);
 		buffer.writeByte(0);
@@ -57,17 +60,17 @@ public abstract class RconCodec<T extends RconMessage> extends MessageCodec<T> {
 
 	@Override
 	public T decode(ByteBuf buffer) {
-		buffer.order(ByteOrder.LITTLE_ENDIAN);
-		ByteBuf expandingBytes = Unpooled.buffer(buffer.writerIndex());
-		byte b;
-		while ((b = buffer.readByte()) != 0) {
-			expandingBytes.writeByte(b);
+		buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+		int requestId = buffer.readInt();
+		buffer.skipBytes(4); // Opcode, already used to find this codec
+		int length = buffer.bytesBefore((byte) 0);
+		if (length == -1) {
+			length = buffer.readableBytes();
 		}
-		assert buffer.readByte() == 0; // Second null byte
-
-		String value = new String(expandingBytes.array(), CharsetUtil.US_ASCII);
-		return createMessage(value);
+		String value = buffer.toString(buffer.readerIndex(), length, CharsetUtil.US_ASCII);
+		buffer.skipBytes(buffer.readableBytes()); // Payload and the null bytes
+		return createMessage(requestId, value);
 	}
 
-	public abstract T createMessage(String payload);
+	public abstract T createMessage(int requestId, String payload);
 }
@@ -26,14 +26,28 @@
  */
 package org.spout.vanilla.protocol.rcon.handler;
 
-public class AuthMessageHandler /*extends RconMessageHandler<AuthMessage>*/ {
-	/*@Override
+import java.security.MessageDigest;
+
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.CharsetUtil;
+
+import org.spout.vanilla.protocol.rcon.RemoteConnectionServer;
+import org.spout.vanilla.protocol.rcon.RemoteConnectionSession;
+import org.spout.vanilla.protocol.rcon.msg.AuthMessage;
+import org.spout.vanilla.protocol.rcon.msg.CommandMessage;
+
+public class AuthMessageHandler extends RconMessageHandler<AuthMessage> {
+	@Override
 	public void handleServer(RemoteConnectionSession session, AuthMessage message) {
-		if (!message.getPayload().equals(((RemoteConnectionServer) session.getCore()).getPassword())) {
-			session.setRequestId(-1); // Auth failed
+		String password = ((RemoteConnectionServer) session.getCore()).getPassword();
+		// Compare in constant time, so the password can not be guessed from response times
+		if (!MessageDigest.isEqual(password.getBytes(CharsetUtil.UTF_8), message.getPayload().getBytes(CharsetUtil.UTF_8))) {
+			session.setAuthenticated(false);
+			session.getCore().getLogger().warning(session.getName() + " failed to authenticate");
+			session.send(new CommandMessage(-1, "")).addListener(ChannelFutureListener.CLOSE); // Auth failed
 		} else {
-			session.setState(RemoteConnectionSession.State.COMMANDS);
+			session.setAuthenticated(true);
+			session.send(new CommandMessage(message.getRequestId(), ""));
 		}
-		session.send(new CommandMessage(""));
-	}*/
+	}
 }
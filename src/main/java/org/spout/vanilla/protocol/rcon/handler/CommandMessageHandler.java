@@ -26,28 +26,17 @@
  */
 package org.spout.vanilla.protocol.rcon.handler;
 
-public class CommandMessageHandler /*extends RconMessageHandler<CommandMessage>*/ {
-	/*@Override
-	public void handleServer(RemoteConnectionSession session, CommandMessage message) {
-		String command;
-		String text = message.getPayload();
-		int spaceIndex = text.indexOf(" ");
-		if (spaceIndex != -1) {
-			command = text.substring(0, spaceIndex);
-			text = text.substring(spaceIndex + 1);
-		} else {
-			command = text;
-			text = "";
-		}
-		arguments = ChatArguments.fromString(text);
-		session.processCommand(command, arguments);
-	}
+import org.spout.vanilla.protocol.rcon.RemoteConnectionServer;
+import org.spout.vanilla.protocol.rcon.RemoteConnectionSession;
+import org.spout.vanilla.protocol.rcon.msg.CommandMessage;
 
+public class CommandMessageHandler extends RconMessageHandler<CommandMessage> {
 	@Override
-	public void handleClient(RemoteConnectionSession session, CommandMessage message) {
-		// TODO: Verify if this is correct
-		if (session.isAuthenticated()) {
-			session.setState(RemoteConnectionSession.State.COMMANDS);
+	public void handleServer(RemoteConnectionSession session, CommandMessage message) {
+		if (!session.isAuthenticated()) {
+			session.disconnect();
+			return;
 		}
-	}*/
+		session.execute(message.getRequestId(), message.getPayload(), ((RemoteConnectionServer) session.getCore()).getMaxPendingCommands());
+	}
 }
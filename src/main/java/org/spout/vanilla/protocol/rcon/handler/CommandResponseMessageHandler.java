@@ -26,9 +26,17 @@
  */
 package org.spout.vanilla.protocol.rcon.handler;
 
-public class CommandResponseMessageHandler /*extends RconMessageHandler<CommandResponseMessage>*/ {
-	/*@Override
-	public void handleClient(RemoteConnectionSession session, CommandResponseMessage message) {
-		throw new UnsupportedOperationException("Not supported yet."); // TODO: Find a good way to prit command responses onto the client!
-	}*/
+import org.spout.vanilla.protocol.rcon.RemoteConnectionSession;
+import org.spout.vanilla.protocol.rcon.msg.CommandResponseMessage;
+
+public class CommandResponseMessageHandler extends RconMessageHandler<CommandResponseMessage> {
+	@Override
+	public void handleServer(RemoteConnectionSession session, CommandResponseMessage message) {
+		if (!session.isAuthenticated()) {
+			session.disconnect();
+			return;
+		}
+		// Sent by clients to mark the end of a response split over several packets
+		session.mirror(message.getRequestId());
+	}
 }
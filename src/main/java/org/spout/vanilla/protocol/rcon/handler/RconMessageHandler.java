@@ -26,13 +26,14 @@
  */
 package org.spout.vanilla.protocol.rcon.handler;
 
+import org.spout.vanilla.protocol.rcon.RemoteConnectionServer;
+import org.spout.vanilla.protocol.rcon.RemoteConnectionSession;
 import org.spout.vanilla.protocol.rcon.msg.RconMessage;
 
 /**
  * Parent class for handlers for {@link RconMessage RconMessages}
  */
 public abstract class RconMessageHandler<T extends RconMessage> {
-	/*
 	public void handle(RemoteConnectionSession session, T message) {
 		if (session.getCore() instanceof RemoteConnectionServer) {
 			handleServer(session, message);
@@ -47,5 +48,5 @@ public abstract class RconMessageHandler<T extends RconMessage> {
 
 	public void handleClient(RemoteConnectionSession session, T message) {
 		throw new UnsupportedOperationException(message + " cannot be handled on the client!");
-	}*/
+	}
 }
@@ -30,7 +30,7 @@ package org.spout.vanilla.protocol.rcon.msg;
  * Message used for initial authentication <p> Payload: password
  */
 public class AuthMessage extends RconMessage {
-	public AuthMessage(String password) {
-		super(password);
+	public AuthMessage(int requestId, String password) {
+		super(requestId, password);
 	}
 }
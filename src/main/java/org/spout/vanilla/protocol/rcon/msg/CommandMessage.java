@@ -30,7 +30,7 @@ package org.spout.vanilla.protocol.rcon.msg;
  * Packet sent by the client with a command <p> Payload: Command text
  */
 public class CommandMessage extends RconMessage {
-	public CommandMessage(String payload) {
-		super(payload);
+	public CommandMessage(int requestId, String payload) {
+		super(requestId, payload);
 	}
 }
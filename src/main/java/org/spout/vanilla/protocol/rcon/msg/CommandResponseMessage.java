@@ -30,7 +30,7 @@ package org.spout.vanilla.protocol.rcon.msg;
  * Message sent by the server with a command response <p> Payload: Command response text
  */
 public class CommandResponseMessage extends RconMessage {
-	public CommandResponseMessage(String payload) {
-		super(payload);
+	public CommandResponseMessage(int requestId, String payload) {
+		super(requestId, payload);
 	}
 }
@@ -38,12 +38,23 @@ import org.spout.vanilla.protocol.msg.VanillaMainChannelMessage;
  * Base class for messages passed through the rcon protocol
  */
 public class RconMessage extends VanillaMainChannelMessage {
+	private final int requestId;
 	private final String payload;
 
-	public RconMessage(String payload) {
+	public RconMessage(int requestId, String payload) {
+		this.requestId = requestId;
 		this.payload = payload;
 	}
 
+	/**
+	 * Gets the id chosen by the client for the request, which the server copies into its responses
+	 *
+	 * @return the request id
+	 */
+	public int getRequestId() {
+		return requestId;
+	}
+
 	public String getPayload() {
 		return payload;
 	}
@@ -51,6 +62,7 @@ public class RconMessage extends VanillaMainChannelMessage {
 	@Override
 	public String toString() {
 		return new ToStringBuilder(this, SpoutToStringStyle.INSTANCE)
+				.append("requestId", requestId)
 				.append("payload", payload)
 				.toString();
 	}
@@ -58,6 +70,7 @@ public class RconMessage extends VanillaMainChannelMessage {
 	@Override
 	public int hashCode() {
 		return new HashCodeBuilder(849, 385)
+				.append(requestId)
 				.append(payload)
 				.toHashCode();
 	}
@@ -67,6 +80,7 @@ public class RconMessage extends VanillaMainChannelMessage {
 		if (obj instanceof RconMessage) {
 			final RconMessage other = (RconMessage) obj;
 			return new EqualsBuilder()
+					.append(requestId, other.requestId)
 					.append(payload, other.payload)
 					.isEquals();
 		} else {
@@ -27,12 +27,16 @@
 package org.spout.vanilla.render;
 
 import java.awt.Color;
+import java.lang.ref.WeakReference;
 import java.util.Map;
 
 import gnu.trove.list.TFloatList;
 import gnu.trove.list.array.TFloatArrayList;
 
+import org.spout.api.generator.biome.BiomeManager;
 import org.spout.api.geo.World;
+import org.spout.api.geo.cuboid.Chunk;
+import org.spout.api.geo.cuboid.ChunkSnapshot;
 import org.spout.api.geo.cuboid.ChunkSnapshotModel;
 import org.spout.api.render.BufferContainer;
 import org.spout.api.render.effect.BufferEffect;
@@ -41,7 +45,16 @@ import org.spout.math.GenericMath;
 import org.spout.vanilla.world.generator.biome.VanillaBiome;
 import org.spout.vanilla.world.generator.biome.VanillaBiomes;
 
+/**
+ * Colors block faces with the average biome color of the 3x3 columns around them.<br>
+ * The biomes of the chunk and a one block border are read once from the chunk snapshots into an 18x18 grid, shared by the grass, foliage and water effects of the same chunk mesh. Columns
+ * without a snapshot and faces outside of the grid fall back to reading the biomes from the world.
+ */
 public abstract class BiomeColorBufferEffect implements BufferEffect {
+	private static final int GRID_SIZE = Chunk.BLOCKS.SIZE + 2;
+	// Each mesh is built on one thread, so the grid of the last mesh is kept per thread
+	private static final ThreadLocal<BiomeGrid> lastGrid = new ThreadLocal<BiomeGrid>();
+
 	@Override
 	public void post(ChunkSnapshotModel chunkModel, BufferContainer value) {
 		final Map<Integer, Object> buffers = value.getBuffers();
@@ -54,30 +67,55 @@ public abstract class BiomeColorBufferEffect implements BufferEffect {
 		} else {
 			biomeColors = (TFloatList) buffers.get(5);
 		}
+		if (vertexCount == 0) {
+			return;
+		}
 		// This colors whole block faces at once. Doing it for each vertex is too expensive.
 		// 24 vertex coords per face (2 mesh face per block face, 3 vertices per mesh face, 4 coords per vertices)
 		// This expects vertices to be grouped by block face.
 		final World world = chunkModel.getCenter().getWorld();
+		int minX = Integer.MAX_VALUE;
+		int minZ = Integer.MAX_VALUE;
+		for (int i = 0; i < vertexCount; i += 24) {
+			minX = Math.min(minX, GenericMath.floor(vertices.get(i)));
+			minZ = Math.min(minZ, GenericMath.floor(vertices.get(i + 2)));
+		}
+		final BiomeGrid grid = getGrid(chunkModel, world, minX, GenericMath.floor(vertices.get(1)), minZ);
+		final int[] colors = new int[grid.biomes.length];
+		for (int i = 0; i < colors.length; i++) {
+			colors[i] = getBiomeColor(grid.biomes[i]).getRGB();
+		}
 		for (int i = 0; i < vertexCount; i += 24) {
-			float r = 0;
-			float g = 0;
-			float b = 0;
 			final int x = GenericMath.floor(vertices.get(i));
 			final int y = GenericMath.floor(vertices.get(i + 1));
 			final int z = GenericMath.floor(vertices.get(i + 2));
-			for (byte xx = -1; xx <= 1; xx++) {
-				for (byte zz = -1; zz <= 1; zz++) {
-					VanillaBiome biome = (VanillaBiome) world.getBiome(x + xx, y, z + zz);
-					// Default to forest if no biome is set
-					if (biome == null) {
-						biome = VanillaBiomes.FOREST;
+			final int gx = x - grid.originX;
+			final int gz = z - grid.originZ;
+			int red = 0;
+			int green = 0;
+			int blue = 0;
+			if (gx >= 1 && gx < GRID_SIZE - 1 && gz >= 1 && gz < GRID_SIZE - 1) {
+				for (int xx = gx - 1; xx <= gx + 1; xx++) {
+					for (int zz = gz - 1; zz <= gz + 1; zz++) {
+						final int rgb = colors[xx * GRID_SIZE + zz];
+						red += (rgb >> 16) & 0xFF;
+						green += (rgb >> 8) & 0xFF;
+						blue += rgb & 0xFF;
+					}
+				}
+			} else {
+				for (byte xx = -1; xx <= 1; xx++) {
+					for (byte zz = -1; zz <= 1; zz++) {
+						final Color color = getBiomeColor(getBiome(world, x + xx, y, z + zz));
+						red += color.getRed();
+						green += color.getGreen();
+						blue += color.getBlue();
 					}
-					final Color color = getBiomeColor(biome);
-					r += color.getRed();
-					g += color.getGreen();
-					b += color.getBlue();
 				}
 			}
+			float r = red;
+			float g = green;
+			float b = blue;
 			r /= 9;
 			r /= 255;
 			g /= 9;
@@ -93,5 +131,73 @@ public abstract class BiomeColorBufferEffect implements BufferEffect {
 		}
 	}
 
+	private static VanillaBiome getBiome(World world, int x, int y, int z) {
+		VanillaBiome biome = (VanillaBiome) world.getBiome(x, y, z);
+		// Default to forest if no biome is set
+		if (biome == null) {
+			biome = VanillaBiomes.FOREST;
+		}
+		return biome;
+	}
+
+	private static VanillaBiome getBiome(BiomeManager manager, int x, int y, int z) {
+		VanillaBiome biome = (VanillaBiome) manager.getBiome(x, y, z);
+		if (biome == null) {
+			biome = VanillaBiomes.FOREST;
+		}
+		return biome;
+	}
+
+	private static BiomeGrid getGrid(ChunkSnapshotModel chunkModel, World world, int minX, int y, int minZ) {
+		final int originX = ((minX >> Chunk.BLOCKS.BITS) << Chunk.BLOCKS.BITS) - 1;
+		final int originZ = ((minZ >> Chunk.BLOCKS.BITS) << Chunk.BLOCKS.BITS) - 1;
+		BiomeGrid grid = lastGrid.get();
+		if (grid != null && grid.model.get() == chunkModel && grid.originX == originX && grid.originZ == originZ) {
+			return grid;
+		}
+		grid = new BiomeGrid(chunkModel, originX, originZ);
+		// The grid spans at most three chunks on each axis
+		final int chunkX = originX >> Chunk.BLOCKS.BITS;
+		final int chunkZ = originZ >> Chunk.BLOCKS.BITS;
+		final BiomeManager[] managers = new BiomeManager[9];
+		final boolean[] fetched = new boolean[9];
+		for (int x = 0; x < GRID_SIZE; x++) {
+			for (int z = 0; z < GRID_SIZE; z++) {
+				final int bx = originX + x;
+				final int bz = originZ + z;
+				final int chunkIndex = ((bx >> Chunk.BLOCKS.BITS) - chunkX) * 3 + (bz >> Chunk.BLOCKS.BITS) - chunkZ;
+				if (!fetched[chunkIndex]) {
+					final ChunkSnapshot chunk = chunkModel.getChunkFromBlock(bx, y, bz);
+					managers[chunkIndex] = chunk == null ? null : chunk.getBiomeManager();
+					fetched[chunkIndex] = true;
+				}
+				final BiomeManager manager = managers[chunkIndex];
+				if (manager == null) {
+					grid.biomes[x * GRID_SIZE + z] = getBiome(world, bx, y, bz);
+				} else {
+					grid.biomes[x * GRID_SIZE + z] = getBiome(manager, bx & Chunk.BLOCKS.MASK, y & Chunk.BLOCKS.MASK, bz & Chunk.BLOCKS.MASK);
+				}
+			}
+		}
+		lastGrid.set(grid);
+		return grid;
+	}
+
 	protected abstract Color getBiomeColor(VanillaBiome biome);
+
+	/**
+	 * The biomes of the columns of one chunk mesh and its border
+	 */
+	private static class BiomeGrid {
+		// Weak, so the grid kept for a thread does not keep the snapshots of a finished mesh alive
+		private final WeakReference<ChunkSnapshotModel> model;
+		private final int originX, originZ;
+		private final VanillaBiome[] biomes = new VanillaBiome[GRID_SIZE * GRID_SIZE];
+
+		private BiomeGrid(ChunkSnapshotModel model, int originX, int originZ) {
+			this.model = new WeakReference<ChunkSnapshotModel>(model);
+			this.originX = originX;
+			this.originZ = originZ;
+		}
+	}
 }
@@ -35,6 +35,7 @@ import org.spout.api.material.BlockMaterial;
 import org.spout.api.render.BufferContainer;
 import org.spout.api.render.effect.BufferEffect;
 
+import org.spout.math.GenericMath;
 import org.spout.vanilla.world.lighting.VanillaCuboidLightBuffer;
 import org.spout.vanilla.world.lighting.VanillaLighting;
 
@@ -68,6 +69,9 @@ public class LightBufferEffect implements BufferEffect {
 			container.setBuffers(4, skylightBuffer);
 		}
 
+		final LightVolume volume = buildVolume(chunkModel, vertexBuffer);
+		final float[] sample = new float[2];
+
 		for (int i = 0; i < vertexBuffer.size(); ) {
 			float x = vertexBuffer.get(i++);
 			float y = vertexBuffer.get(i++);
@@ -76,14 +80,39 @@ public class LightBufferEffect implements BufferEffect {
 
 			//TODO : Create a buffer for each light registred by plugin
 
-			generateLightOnVertices(chunkModel, x, y, z, lightBuffer, skylightBuffer);
+			if (volume != null && volume.contains(x, y, z)) {
+				volume.sample(x, y, z, sample);
+				lightBuffer.add(sample[0]);
+				skylightBuffer.add(sample[1]);
+			} else {
+				generateLightOnVertices(chunkModel, x, y, z, lightBuffer, skylightBuffer);
+			}
+		}
+	}
+
+	/**
+	 * Copies the light around the chunk the vertices belong to, so each vertex is lit from one array instead of the snapshots
+	 */
+	private LightVolume buildVolume(ChunkSnapshotModel chunkModel, TFloatArrayList vertexBuffer) {
+		if (chunkModel == null || vertexBuffer.size() < 4) {
+			return null;
+		}
+		float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE, minZ = Float.MAX_VALUE;
+		for (int i = 0; i < vertexBuffer.size(); i += 4) {
+			minX = Math.min(minX, vertexBuffer.get(i));
+			minY = Math.min(minY, vertexBuffer.get(i + 1));
+			minZ = Math.min(minZ, vertexBuffer.get(i + 2));
 		}
+		final int baseX = (GenericMath.floor(minX) >> Chunk.BLOCKS.BITS) << Chunk.BLOCKS.BITS;
+		final int baseY = (GenericMath.floor(minY) >> Chunk.BLOCKS.BITS) << Chunk.BLOCKS.BITS;
+		final int baseZ = (GenericMath.floor(minZ) >> Chunk.BLOCKS.BITS) << Chunk.BLOCKS.BITS;
+		return LightVolume.build(chunkModel, baseX, baseY, baseZ);
 	}
 
 	/**
 	 * Compute the light for one vertex
 	 */
-	private void generateLightOnVertices(ChunkSnapshotModel chunkModel, float x, float y, float z, TFloatArrayList lightBuffer, TFloatArrayList skylightBuffer) {
+	void generateLightOnVertices(ChunkSnapshotModel chunkModel, float x, float y, float z, TFloatArrayList lightBuffer, TFloatArrayList skylightBuffer) {
 		int xi = (int) x;
 		int yi = (int) y;
 		int zi = (int) z;
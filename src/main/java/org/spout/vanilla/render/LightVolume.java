@@ -0,0 +1,175 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.render;
+
+import org.spout.api.geo.cuboid.Chunk;
+import org.spout.api.geo.cuboid.ChunkSnapshot;
+import org.spout.api.geo.cuboid.ChunkSnapshotModel;
+
+import org.spout.vanilla.world.lighting.VanillaCuboidLightBuffer;
+import org.spout.vanilla.world.lighting.VanillaLighting;
+
+/**
+ * The block light and sky light of a chunk and a one block border around it, copied into one 18x18x18 array.<br>
+ * Blocks that are opaque or lie in a missing chunk are marked as excluded, so vertices can be lit by plain array lookups.
+ */
+public class LightVolume {
+	/**
+	 * The length of each side of the volume in blocks
+	 */
+	public static final int SIZE = Chunk.BLOCKS.SIZE + 2;
+	/**
+	 * Marks a block not taking part in the average
+	 */
+	static final short EXCLUDED = -1;
+	private final int originX, originY, originZ;
+	private final short[] cells;
+
+	/**
+	 * Creates a volume from raw cells, indexed by x, then y, then z. Each cell holds the block light shifted left by 8 bits, or-ed with the sky light, or {@link #EXCLUDED}.
+	 *
+	 * @param originX block coordinate of the first cell
+	 * @param originY block coordinate of the first cell
+	 * @param originZ block coordinate of the first cell
+	 * @param cells of the volume
+	 */
+	LightVolume(int originX, int originY, int originZ, short[] cells) {
+		this.originX = originX;
+		this.originY = originY;
+		this.originZ = originZ;
+		this.cells = cells;
+	}
+
+	/**
+	 * Copies the light around the chunk whose base block is given out of the snapshots
+	 *
+	 * @param chunkModel to read the light from
+	 * @param baseX block coordinate of the chunk
+	 * @param baseY block coordinate of the chunk
+	 * @param baseZ block coordinate of the chunk
+	 * @return the light volume
+	 */
+	public static LightVolume build(ChunkSnapshotModel chunkModel, int baseX, int baseY, int baseZ) {
+		final int originX = baseX - 1;
+		final int originY = baseY - 1;
+		final int originZ = baseZ - 1;
+		final int chunkX = originX >> Chunk.BLOCKS.BITS;
+		final int chunkY = originY >> Chunk.BLOCKS.BITS;
+		final int chunkZ = originZ >> Chunk.BLOCKS.BITS;
+		// The volume spans at most three chunks on each axis
+		final ChunkSnapshot[] chunks = new ChunkSnapshot[27];
+		final VanillaCuboidLightBuffer[] blockLights = new VanillaCuboidLightBuffer[27];
+		final VanillaCuboidLightBuffer[] skyLights = new VanillaCuboidLightBuffer[27];
+		final boolean[] fetched = new boolean[27];
+		final short[] cells = new short[SIZE * SIZE * SIZE];
+		int index = 0;
+		for (int x = originX; x < originX + SIZE; x++) {
+			for (int y = originY; y < originY + SIZE; y++) {
+				for (int z = originZ; z < originZ + SIZE; z++) {
+					final int chunkIndex = ((x >> Chunk.BLOCKS.BITS) - chunkX) * 9 + ((y >> Chunk.BLOCKS.BITS) - chunkY) * 3 + (z >> Chunk.BLOCKS.BITS) - chunkZ;
+					if (!fetched[chunkIndex]) {
+						final ChunkSnapshot chunk = chunkModel.getChunkFromBlock(x, y, z);
+						if (chunk != null) {
+							chunks[chunkIndex] = chunk;
+							blockLights[chunkIndex] = (VanillaCuboidLightBuffer) chunk.getLightBuffer(VanillaLighting.BLOCK_LIGHT.getId());
+							skyLights[chunkIndex] = (VanillaCuboidLightBuffer) chunk.getLightBuffer(VanillaLighting.SKY_LIGHT.getId());
+						}
+						fetched[chunkIndex] = true;
+					}
+					final ChunkSnapshot chunk = chunks[chunkIndex];
+					if (chunk == null || chunk.getBlockMaterial(x, y, z).isOpaque()) {
+						cells[index++] = EXCLUDED;
+					} else {
+						//use the SkyLightRaw, the real sky state would be apply by the shader
+						cells[index++] = (short) ((blockLights[chunkIndex].get(x, y, z) & 0xFF) << 8 | (skyLights[chunkIndex].get(x, y, z) & 0xFF));
+					}
+				}
+			}
+		}
+		return new LightVolume(originX, originY, originZ, cells);
+	}
+
+	/**
+	 * Gets whether all blocks sampled for a vertex lie inside this volume
+	 *
+	 * @param x coordinate of the vertex
+	 * @param y coordinate of the vertex
+	 * @param z coordinate of the vertex
+	 * @return True if the vertex can be sampled
+	 */
+	public boolean contains(float x, float y, float z) {
+		return contains(x, originX) && contains(y, originY) && contains(z, originZ);
+	}
+
+	private static boolean contains(float coord, int origin) {
+		final int i = (int) coord;
+		final int start = (coord == i) ? (i - 1) : i;
+		return start >= origin && i < origin + SIZE;
+	}
+
+	/**
+	 * Averages the light of the non-opaque blocks touching a vertex. The vertex has to be {@link #contains(float, float, float) contained} in this volume.
+	 *
+	 * @param x coordinate of the vertex
+	 * @param y coordinate of the vertex
+	 * @param z coordinate of the vertex
+	 * @param result array receiving the block light at index 0 and the sky light at index 1, both from 0 to 1
+	 */
+	public void sample(float x, float y, float z, float[] result) {
+		final int xi = (int) x;
+		final int yi = (int) y;
+		final int zi = (int) z;
+		final int xs = (x == xi) ? (xi - 1) : xi;
+		final int ys = (y == yi) ? (yi - 1) : yi;
+		final int zs = (z == zi) ? (zi - 1) : zi;
+		float light = 0;
+		float skylight = 0;
+		int count = 0;
+		for (int xx = xs; xx <= xi; xx++) {
+			for (int yy = ys; yy <= yi; yy++) {
+				int index = ((xx - originX) * SIZE + (yy - originY)) * SIZE + (zs - originZ);
+				for (int zz = zs; zz <= zi; zz++, index++) {
+					final short cell = cells[index];
+					if (cell != EXCLUDED) {
+						light += cell >> 8;
+						skylight += cell & 0xFF;
+						count++;
+					}
+				}
+			}
+		}
+		if (count == 0) {
+			count++;
+		}
+		light /= count;
+		skylight /= count;
+		light /= 16;
+		skylight /= 16;
+		result[0] = light;
+		result[1] = skylight;
+	}
+}
@@ -26,8 +26,13 @@
  */
 package org.spout.vanilla.scoreboard;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.spout.api.entity.Player;
@@ -35,16 +40,20 @@ import org.spout.api.event.ProtocolEvent;
 
 import org.spout.vanilla.component.entity.VanillaEntityComponent;
 import org.spout.vanilla.event.scoreboard.ObjectiveActionEvent;
+import org.spout.vanilla.event.scoreboard.ObjectiveDisplayEvent;
+import org.spout.vanilla.event.scoreboard.ScoreUpdateEvent;
 import org.spout.vanilla.event.scoreboard.TeamActionEvent;
 import org.spout.vanilla.protocol.msg.scoreboard.ScoreboardObjectiveMessage;
 import org.spout.vanilla.protocol.msg.scoreboard.ScoreboardTeamMessage;
 
 /**
- * Represents a collection of objective attached to a player.
+ * Represents a collection of objective attached to a player.<br>
+ * Changes are sent to the client once per tick by {@link #flush()}, where later changes to the same score, team or display slot replace earlier ones.
  */
 public class Scoreboard extends VanillaEntityComponent {
 	private final Set<Objective> objectives = new HashSet<Objective>();
 	private final Set<Team> teams = new HashSet<Team>();
+	private final Map<PendingKey, ProtocolEvent> pending = new LinkedHashMap<PendingKey, ProtocolEvent>();
 
 	/**
 	 * Creates a new objective with the specified name and display name.
@@ -174,8 +183,75 @@ public class Scoreboard extends VanillaEntityComponent {
 		return (Player) super.getOwner();
 	}
 
+	/**
+	 * Queues a change to be sent to the client on the next {@link #flush()}.
+	 * A queued change is dropped when a later change overwrites the same state, and the later one is sent in its place.
+	 * Adding a player to a team and removing them again before the flush cancel out, neither change is sent.
+	 *
+	 * @param event describing the change
+	 */
 	protected void callProtocolEvent(ProtocolEvent event) {
-		getOwner().getNetwork().callProtocolEvent(event);
+		PendingKey key = PendingKey.of(event);
+		synchronized (pending) {
+			ProtocolEvent queued = pending.get(key);
+			if (queued != null && key.type == PendingKey.MEMBERSHIP && ((TeamActionEvent) queued).getAction() != ((TeamActionEvent) event).getAction()) {
+				// The client still sees the membership it had before the queued change
+				pending.remove(key);
+				return;
+			}
+			// Re-inserting moves the change behind everything queued before it, such as the creation of its objective or team
+			pending.remove(key);
+			pending.put(key, event);
+		}
+	}
+
+	/**
+	 * Sends all changes queued since the last flush to the client.
+	 * Membership changes of the same team following each other are sent as one event.
+	 */
+	public void flush() {
+		List<ProtocolEvent> events;
+		synchronized (pending) {
+			if (pending.isEmpty()) {
+				return;
+			}
+			events = new ArrayList<ProtocolEvent>(pending.values());
+			pending.clear();
+		}
+		TeamActionEvent members = null;
+		List<String> names = new ArrayList<String>();
+		for (ProtocolEvent event : events) {
+			if (members != null) {
+				if (isMembership(event) && ((TeamActionEvent) event).getTeam() == members.getTeam() && ((TeamActionEvent) event).getAction() == members.getAction()) {
+					names.addAll(Arrays.asList(((TeamActionEvent) event).getPlayers()));
+					continue;
+				}
+				sendMembers(members, names);
+				members = null;
+			}
+			if (isMembership(event)) {
+				members = (TeamActionEvent) event;
+				names.addAll(Arrays.asList(members.getPlayers()));
+			} else {
+				getOwner().getNetwork().callProtocolEvent(event);
+			}
+		}
+		if (members != null) {
+			sendMembers(members, names);
+		}
+	}
+
+	private void sendMembers(TeamActionEvent members, List<String> names) {
+		getOwner().getNetwork().callProtocolEvent(new TeamActionEvent(members.getTeam(), members.getAction(), names.toArray(new String[names.size()])));
+		names.clear();
+	}
+
+	private static boolean isMembership(ProtocolEvent event) {
+		if (!(event instanceof TeamActionEvent)) {
+			return false;
+		}
+		byte action = ((TeamActionEvent) event).getAction();
+		return action == ScoreboardTeamMessage.ADD_PLAYERS || action == ScoreboardTeamMessage.REMOVE_PLAYERS;
 	}
 
 	@Override
@@ -184,4 +260,62 @@ public class Scoreboard extends VanillaEntityComponent {
 			throw new IllegalStateException("Scoreboard can only be attached to players.");
 		}
 	}
+
+	/**
+	 * Identifies the client state a queued change overwrites. Changes that do not simply overwrite state, such as creating or removing an objective, get a key of their own.
+	 */
+	private static final class PendingKey {
+		private static final int MEMBERSHIP = 4;
+		private final int type;
+		private final Object first, second;
+
+		private PendingKey(int type, Object first, Object second) {
+			this.type = type;
+			this.first = first;
+			this.second = second;
+		}
+
+		private static PendingKey of(ProtocolEvent event) {
+			if (event instanceof ScoreUpdateEvent) {
+				ScoreUpdateEvent score = (ScoreUpdateEvent) event;
+				return new PendingKey(0, score.getObjectiveName(), score.getKey());
+			} else if (event instanceof ObjectiveDisplayEvent) {
+				return new PendingKey(1, ((ObjectiveDisplayEvent) event).getSlot(), null);
+			} else if (event instanceof ObjectiveActionEvent && ((ObjectiveActionEvent) event).getAction() == ScoreboardObjectiveMessage.ACTION_UPDATE) {
+				return new PendingKey(2, ((ObjectiveActionEvent) event).getObjective(), null);
+			} else if (event instanceof TeamActionEvent) {
+				TeamActionEvent team = (TeamActionEvent) event;
+				if (team.getAction() == ScoreboardTeamMessage.ACTION_UPDATE) {
+					return new PendingKey(3, team.getTeam(), null);
+				} else if (isMembership(team) && team.getPlayers().length == 1) {
+					return new PendingKey(MEMBERSHIP, team.getTeam(), team.getPlayers()[0]);
+				}
+			}
+			return new PendingKey(-1, event, null);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof PendingKey)) {
+				return false;
+			}
+			PendingKey other = (PendingKey) obj;
+			return type == other.type && equal(first, other.first) && equal(second, other.second);
+		}
+
+		private static boolean equal(Object a, Object b) {
+			return a == null ? b == null : a.equals(b);
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = type;
+			hash = 31 * hash + (first == null ? 0 : first.hashCode());
+			hash = 31 * hash + (second == null ? 0 : second.hashCode());
+			return hash;
+		}
+	}
 }
@@ -0,0 +1,175 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A hashed timing wheel that expires values after a number of ticks.<br><br>
+ *
+ * Scheduling and cancelling are constant time, and advancing the wheel by one tick only looks at the values in a single slot, so a large amount of long running timers costs almost nothing
+ * per tick. This class is not thread safe.
+ *
+ * @param <T> type of the scheduled values
+ */
+public class TimingWheel<T> {
+	private final List<Handle<T>>[] slots;
+	private int cursor = 0;
+	private long tick = 0;
+	private int size = 0;
+
+	/**
+	 * Creates a new timing wheel
+	 *
+	 * @param slots amount of slots, timers longer than this wrap around the wheel
+	 */
+	@SuppressWarnings ("unchecked")
+	public TimingWheel(int slots) {
+		if (slots <= 0) {
+			throw new IllegalArgumentException("A timing wheel needs at least one slot");
+		}
+		this.slots = new List[slots];
+		for (int i = 0; i < slots; i++) {
+			this.slots[i] = new ArrayList<Handle<T>>(0);
+		}
+	}
+
+	/**
+	 * Schedules a value to expire after the given amount of ticks
+	 *
+	 * @param value to schedule
+	 * @param ticks until the value expires, at least one
+	 * @return handle to cancel the timer with
+	 */
+	public Handle<T> schedule(T value, long ticks) {
+		ticks = Math.max(1, ticks);
+		int slot = (int) ((cursor + ticks) % slots.length);
+		Handle<T> handle = new Handle<T>(this, value, tick + ticks, (ticks - 1) / slots.length);
+		slots[slot].add(handle);
+		size++;
+		return handle;
+	}
+
+	/**
+	 * Cancels a timer, cancelling a timer that already expired or was cancelled does nothing
+	 *
+	 * @param handle of the timer
+	 */
+	public void cancel(Handle<T> handle) {
+		if (handle != null && handle.wheel == this && !handle.done) {
+			handle.done = true;
+			size--;
+		}
+	}
+
+	/**
+	 * Gets the amount of ticks until a timer expires
+	 *
+	 * @param handle of the timer
+	 * @return remaining ticks, 0 if it expired or was cancelled
+	 */
+	public long getRemaining(Handle<T> handle) {
+		return handle.done ? 0 : handle.deadline - tick;
+	}
+
+	/**
+	 * Moves the wheel forward by one tick
+	 *
+	 * @return values that expired in this tick
+	 */
+	public List<T> advance() {
+		tick++;
+		cursor = (cursor + 1) % slots.length;
+		List<Handle<T>> slot = slots[cursor];
+		if (slot.isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<T> expired = null;
+		int kept = 0;
+		for (int i = 0; i < slot.size(); i++) {
+			Handle<T> handle = slot.get(i);
+			if (handle.done) {
+				continue;
+			}
+			if (handle.rounds > 0) {
+				handle.rounds--;
+				slot.set(kept++, handle);
+				continue;
+			}
+			handle.done = true;
+			size--;
+			if (expired == null) {
+				expired = new ArrayList<T>();
+			}
+			expired.add(handle.value);
+		}
+		slot.subList(kept, slot.size()).clear();
+		return expired == null ? Collections.<T>emptyList() : expired;
+	}
+
+	/**
+	 * Gets the amount of scheduled timers
+	 *
+	 * @return amount of timers that did not expire or were cancelled yet
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the amount of ticks this wheel was advanced
+	 *
+	 * @return current tick
+	 */
+	public long getTick() {
+		return tick;
+	}
+
+	/**
+	 * A scheduled timer
+	 */
+	public static final class Handle<V> {
+		private final TimingWheel<V> wheel;
+		private final V value;
+		private final long deadline;
+		private long rounds;
+		private boolean done = false;
+
+		private Handle(TimingWheel<V> wheel, V value, long deadline, long rounds) {
+			this.wheel = wheel;
+			this.value = value;
+			this.deadline = deadline;
+			this.rounds = rounds;
+		}
+
+		public V getValue() {
+			return value;
+		}
+	}
+}
@@ -26,23 +26,82 @@
  */
 package org.spout.vanilla.world.generator.flat;
 
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.spout.api.generator.LayeredWorldGenerator;
 import org.spout.api.geo.World;
 import org.spout.api.geo.discrete.Point;
+import org.spout.api.material.BlockMaterial;
+import org.spout.api.util.cuboid.CuboidBlockMaterialBuffer;
 
+import org.spout.math.vector.Vector3f;
 import org.spout.vanilla.component.entity.player.VanillaPlayerNetworkComponent;
 import org.spout.vanilla.material.VanillaMaterials;
 import org.spout.vanilla.world.generator.VanillaGenerator;
 
+/**
+ * Generates flat worlds.<br>
+ * Every column of a flat world is the same, so the layers are only generated once for each vertical range. Later buffers are filled from that template column,
+ * and buffers holding a single material, such as the air above the ground, are flooded at once.
+ */
 public class FlatGenerator extends LayeredWorldGenerator implements VanillaGenerator {
+	private final Map<Long, BlockMaterial[]> templates = new ConcurrentHashMap<Long, BlockMaterial[]>();
+
 	public FlatGenerator(int height) {
 		this.setFloorLayer(VanillaMaterials.BEDROCK);
 		this.addLayer(0, height - 1, VanillaMaterials.DIRT);
 		this.stackLayer(1, VanillaMaterials.GRASS);
 	}
 
+	@Override
+	public void generate(CuboidBlockMaterialBuffer blockData, World world) {
+		final Vector3f base = blockData.getBase();
+		final Vector3f size = blockData.getSize();
+		final int baseX = base.getFloorX();
+		final int baseY = base.getFloorY();
+		final int baseZ = base.getFloorZ();
+		final int sizeX = size.getFloorX();
+		final int sizeY = size.getFloorY();
+		final int sizeZ = size.getFloorZ();
+		final Long key = (long) baseY << 32 | sizeY & 0xFFFFFFFFL;
+
+		BlockMaterial[] column = templates.get(key);
+		if (column == null) {
+			// Generate the first buffer of this range layer by layer, and keep one of its columns
+			super.generate(blockData, world);
+			column = new BlockMaterial[sizeY];
+			for (int y = 0; y < sizeY; y++) {
+				column[y] = blockData.get(baseX, baseY + y, baseZ);
+			}
+			templates.put(key, column);
+			return;
+		}
+
+		if (isUniform(column)) {
+			blockData.flood(column[0]);
+			return;
+		}
+		for (int y = 0; y < sizeY; y++) {
+			final BlockMaterial material = column[y];
+			for (int x = 0; x < sizeX; x++) {
+				for (int z = 0; z < sizeZ; z++) {
+					blockData.set(baseX + x, baseY + y, baseZ + z, material);
+				}
+			}
+		}
+	}
+
+	private static boolean isUniform(BlockMaterial[] column) {
+		for (int y = 1; y < column.length; y++) {
+			if (column[y] != column[0]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	@Override
 	public String getName() {
 		return "VanillaFlat";
@@ -0,0 +1,215 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.component.entity.minecart;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.spout.api.component.entity.PhysicsComponent;
+import org.spout.api.entity.Player;
+import org.spout.api.geo.World;
+import org.spout.api.geo.discrete.Point;
+import org.spout.api.material.block.BlockFace;
+
+import org.spout.math.vector.Vector3f;
+import org.spout.vanilla.EntityMocker;
+import org.spout.vanilla.component.world.RailCache;
+import org.spout.vanilla.data.RailsState;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RailTrackerTest {
+	private static final float DT = 0.05f;
+	private static final float RAIL_HEIGHT = 0.0625f;
+	private static final int Y = 64;
+	private FakeRails rails;
+	private World world;
+	private Point position;
+	private Vector3f velocity;
+	private RailTracker tracker;
+
+	@Before
+	public void setUp() {
+		world = Mockito.mock(World.class);
+		rails = new FakeRails();
+		Mockito.when(world.get(RailCache.class)).thenReturn(rails);
+		PhysicsComponent physics = Mockito.mock(PhysicsComponent.class);
+		Mockito.when(physics.getPosition()).thenAnswer(new Answer<Point>() {
+			@Override
+			public Point answer(InvocationOnMock invocation) throws Throwable {
+				return position;
+			}
+		});
+		Mockito.when(physics.getMovementVelocity()).thenAnswer(new Answer<Vector3f>() {
+			@Override
+			public Vector3f answer(InvocationOnMock invocation) throws Throwable {
+				return velocity;
+			}
+		});
+		Mockito.doAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				position = (Point) invocation.getArguments()[0];
+				return null;
+			}
+		}).when(physics).setPosition(Matchers.any(Point.class));
+		Player owner = EntityMocker.mockPlayer();
+		Mockito.when(owner.getWorld()).thenReturn(world);
+		Mockito.when(owner.getPhysics()).thenReturn(physics);
+		tracker = owner.add(RailTracker.class);
+	}
+
+	@Test
+	public void testEndOfTrack() {
+		Vector3f south = BlockFace.SOUTH.getOffset();
+		for (int i = 0; i < 3; i++) {
+			rails.set(south.mul(i), Y, RailsState.SOUTH);
+		}
+		start(Vector3f.ZERO, Y, south.mul(4.0f));
+		run();
+		// Stopped at the far edge of the last rail
+		assertEquals(BlockFace.SOUTH, tracker.getHeading());
+		assertPosition(south.mul(2.5f), Y + RAIL_HEIGHT);
+	}
+
+	@Test
+	public void testSlopeUp() {
+		Vector3f south = BlockFace.SOUTH.getOffset();
+		rails.set(Vector3f.ZERO, Y, RailsState.SOUTH);
+		// Rises towards the south
+		rails.set(south, Y, RailsState.SOUTH_SLOPED);
+		rails.set(south.mul(2), Y + 1, RailsState.SOUTH);
+		start(Vector3f.ZERO, Y, south.mul(6.0f));
+		int ticks = run();
+		assertPosition(south.mul(2.5f), Y + 1 + RAIL_HEIGHT);
+
+		// Climbing is slower than the same distance on flat rails
+		setUp();
+		rails.set(Vector3f.ZERO, Y, RailsState.SOUTH);
+		rails.set(south, Y, RailsState.SOUTH);
+		rails.set(south.mul(2), Y, RailsState.SOUTH);
+		start(Vector3f.ZERO, Y, south.mul(6.0f));
+		assertTrue(run() < ticks);
+	}
+
+	@Test
+	public void testSlopeDown() {
+		Vector3f north = BlockFace.NORTH.getOffset();
+		rails.set(Vector3f.ZERO, Y + 1, RailsState.SOUTH);
+		// Rises towards the south, so it descends when heading north
+		rails.set(north, Y, RailsState.SOUTH_SLOPED);
+		rails.set(north.mul(2), Y, RailsState.SOUTH);
+		start(Vector3f.ZERO, Y + 1, north.mul(1.0f));
+		assertTrue(tracker.follow(DT));
+		float before = tracker.getSpeed();
+		float fastest = before;
+		for (int i = 0; i < 200 && tracker.getSpeed() > 0.0f; i++) {
+			assertTrue(tracker.follow(DT));
+			fastest = Math.max(fastest, tracker.getSpeed());
+		}
+		assertTrue(fastest > before);
+		assertEquals(0.0f, tracker.getSpeed(), 0.0f);
+		assertPosition(north.mul(2.5f), Y + RAIL_HEIGHT);
+	}
+
+	@Test
+	public void testCurve() {
+		Vector3f south = BlockFace.SOUTH.getOffset();
+		Vector3f east = BlockFace.EAST.getOffset();
+		rails.set(Vector3f.ZERO, Y, RailsState.SOUTH);
+		// Entered from the north, leaves to the east
+		rails.set(south, Y, RailsState.NORTH_EAST);
+		rails.set(south.add(east), Y, RailsState.WEST);
+		start(Vector3f.ZERO, Y, south.mul(4.0f));
+		run();
+		assertEquals(BlockFace.EAST, tracker.getHeading());
+		assertPosition(south.add(east.mul(1.5f)), Y + RAIL_HEIGHT);
+	}
+
+	@Test
+	public void testNoRails() {
+		start(Vector3f.ZERO, Y, BlockFace.SOUTH.getOffset());
+		assertEquals(false, tracker.follow(DT));
+		assertEquals(false, tracker.isOnRails());
+	}
+
+	/**
+	 * Puts the minecart in the center of a block
+	 */
+	private void start(Vector3f block, int y, Vector3f velocity) {
+		this.position = new Point(world, block.getX() + 0.5f, y + 0.5f, block.getZ() + 0.5f);
+		this.velocity = velocity;
+	}
+
+	/**
+	 * Follows the rails until the minecart stops
+	 *
+	 * @return the number of ticks until it stopped
+	 */
+	private int run() {
+		int ticks = 0;
+		do {
+			assertTrue(tracker.follow(DT));
+			ticks++;
+		} while (tracker.getSpeed() > 0.0f && ticks < 200);
+		assertTrue(tracker.isOnRails());
+		assertEquals(0.0f, tracker.getSpeed(), 0.0f);
+		return ticks;
+	}
+
+	private void assertPosition(Vector3f expected, float y) {
+		assertEquals(expected.getX() + 0.5f, position.getX(), 1e-4f);
+		assertEquals(y, position.getY(), 1e-4f);
+		assertEquals(expected.getZ() + 0.5f, position.getZ(), 1e-4f);
+	}
+
+	private static class FakeRails extends RailCache {
+		private final Map<Long, Integer> cells = new HashMap<Long, Integer>();
+
+		private void set(Vector3f block, int y, RailsState state) {
+			cells.put(key(block.getFloorX(), y, block.getFloorZ()), encode(KIND_RAIL, false, state));
+		}
+
+		@Override
+		public int get(int x, int y, int z) {
+			Integer rail = cells.get(key(x, y, z));
+			return rail == null ? NONE : rail;
+		}
+
+		private static long key(int x, int y, int z) {
+			return ((long) x << 40) ^ ((long) y << 20) ^ (z & 0xFFFFF);
+		}
+	}
+}
@@ -0,0 +1,42 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.component.world;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class PlayerPositionIndexTest {
+	@Test (timeout = 1000)
+	public void testHugeRadius() {
+		PlayerPositionIndex index = new PlayerPositionIndex();
+		assertTrue(index.getNearbyPlayers(0, 0, 1000000).isEmpty());
+		assertTrue(index.getNearbyPlayers(Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE).isEmpty());
+		assertTrue(index.getNearbyPlayers(0, 0, 0).isEmpty());
+		assertTrue(index.getNearbyPlayers(0, 0, -1).isEmpty());
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.component.world;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.spout.api.geo.World;
+import org.spout.api.material.BlockMaterial;
+
+import org.spout.vanilla.EngineFaker;
+import org.spout.vanilla.data.RailsState;
+import org.spout.vanilla.material.VanillaMaterials;
+
+import static org.junit.Assert.assertEquals;
+
+public class RailCacheTest {
+	private static final int X = 17, Y = 64, Z = -3;
+	private BlockMaterial material;
+	private short data;
+	private World world;
+	private RailCache cache;
+
+	static {
+		EngineFaker.setupEngine();
+	}
+
+	@Before
+	public void setUp() {
+		world = Mockito.mock(World.class);
+		Mockito.when(world.getBlockFullState(X, Y, Z)).thenAnswer(new Answer<Integer>() {
+			@Override
+			public Integer answer(InvocationOnMock invocation) throws Throwable {
+				return fullState(material, data);
+			}
+		});
+		cache = new RailCache();
+		cache.attachTo(world);
+		set(VanillaMaterials.RAIL, RailsState.SOUTH, false);
+	}
+
+	@Test
+	public void testReadsStateOnly() {
+		assertRail(RailCache.KIND_RAIL, RailsState.SOUTH, false);
+		assertRail(RailCache.KIND_RAIL, RailsState.SOUTH, false);
+		Mockito.verify(world, Mockito.times(2)).getBlockFullState(X, Y, Z);
+		Mockito.verify(world, Mockito.never()).getBlockMaterial(X, Y, Z);
+		Mockito.verify(world, Mockito.never()).getBlock(X, Y, Z);
+	}
+
+	@Test
+	public void testChangedWithoutCallback() {
+		assertRail(RailCache.KIND_RAIL, RailsState.SOUTH, false);
+		// Set directly, no material callback is involved
+		set(VanillaMaterials.STONE, null, false);
+		assertEquals(RailCache.NONE, cache.get(X, Y, Z));
+		set(VanillaMaterials.RAIL, RailsState.WEST, false);
+		assertRail(RailCache.KIND_RAIL, RailsState.WEST, false);
+		set(VanillaMaterials.RAIL, RailsState.NORTH_EAST, false);
+		assertRail(RailCache.KIND_RAIL, RailsState.NORTH_EAST, false);
+	}
+
+	@Test
+	public void testDecode() {
+		for (RailsState state : RailsState.values()) {
+			set(VanillaMaterials.RAIL, state, false);
+			assertRail(RailCache.KIND_RAIL, state, false);
+			if (state.isCurved()) {
+				continue;
+			}
+			set(VanillaMaterials.RAIL_POWERED, state, true);
+			assertRail(RailCache.KIND_POWERED, state, true);
+			set(VanillaMaterials.RAIL_POWERED, state, false);
+			assertRail(RailCache.KIND_POWERED, state, false);
+			set(VanillaMaterials.RAIL_ACTIVATOR, state, true);
+			assertRail(RailCache.KIND_ACTIVATOR, state, true);
+			set(VanillaMaterials.RAIL_DETECTOR, state, true);
+			assertRail(RailCache.KIND_DETECTOR, state, false);
+		}
+	}
+
+	@Test
+	public void testEncode() {
+		for (RailsState state : RailsState.values()) {
+			int rail = RailCache.encode(RailCache.KIND_ACTIVATOR, true, state);
+			assertEquals(RailCache.KIND_ACTIVATOR, RailCache.getKind(rail));
+			assertEquals(state, RailCache.getState(rail));
+			assertEquals(true, RailCache.isPowered(rail));
+			assertEquals(false, RailCache.isPowered(RailCache.encode(RailCache.KIND_POWERED, false, state)));
+		}
+	}
+
+	private void assertRail(int kind, RailsState state, boolean powered) {
+		int rail = cache.get(X, Y, Z);
+		assertEquals(kind, RailCache.getKind(rail));
+		assertEquals(state, RailCache.getState(rail));
+		assertEquals(powered, RailCache.isPowered(rail));
+	}
+
+	private void set(BlockMaterial material, RailsState state, boolean powered) {
+		this.material = material;
+		this.data = (short) ((state == null ? 0 : state.getData()) | (powered ? 0x8 : 0));
+	}
+
+	private static int fullState(BlockMaterial material, short data) {
+		return (material.getId() << 16) | (data & 0xFFFF);
+	}
+}
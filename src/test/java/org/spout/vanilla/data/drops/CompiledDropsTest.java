@@ -0,0 +1,142 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.data.drops;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import org.spout.api.inventory.ItemStack;
+import org.spout.api.util.flag.Flag;
+
+import org.spout.vanilla.EngineFaker;
+import org.spout.vanilla.data.drops.flag.BlockFlags;
+import org.spout.vanilla.data.drops.flag.PlayerFlags;
+import org.spout.vanilla.data.drops.flag.ToolEnchantFlags;
+import org.spout.vanilla.data.drops.flag.ToolLevelFlags;
+import org.spout.vanilla.data.drops.flag.ToolTypeFlags;
+import org.spout.vanilla.data.drops.type.block.BlockDrops;
+import org.spout.vanilla.material.VanillaMaterials;
+
+import static org.junit.Assert.assertEquals;
+
+public class CompiledDropsTest {
+	private static final int SEEDS = 500;
+
+	static {
+		EngineFaker.setupEngine();
+	}
+
+	@Test
+	public void testSameDrops() {
+		BlockDrops drops = new BlockDrops();
+		drops.NOT_CREATIVE.addFlags(ToolTypeFlags.PICKAXE, ToolLevelFlags.WOOD_UP);
+		drops.SILK_TOUCH.add(VanillaMaterials.GRAVEL);
+		drops.DEFAULT.add(VanillaMaterials.FLINT).setChance(0.1);
+		drops.DEFAULT.add(VanillaMaterials.SEEDS, 0, 1, 2).addFlags(BlockFlags.SEEDS);
+		drops.DEFAULT.addRange(VanillaMaterials.WHEAT, 1, 3).addFlags(BlockFlags.FULLY_GROWN.NOT);
+		SwitchDrops grown = drops.DEFAULT.addSwitch(BlockFlags.FULLY_GROWN);
+		grown.TRUE.add(VanillaMaterials.WHEAT);
+		grown.FALSE.addSelect().setChance(0.5);
+		SelectedDrops select = drops.DEFAULT.addSelect();
+		select.add(VanillaMaterials.DIRT);
+		select.add(VanillaMaterials.COBBLESTONE);
+		drops.EXPLOSION.add(VanillaMaterials.GRAVEL);
+
+		CompiledDrops compiled = new CompiledDrops(drops);
+		List<Set<Flag>> flagSets = new ArrayList<Set<Flag>>();
+		flagSets.add(flags());
+		flagSets.add(flags(PlayerFlags.CREATIVE));
+		flagSets.add(flags(PlayerFlags.SURVIVAL, ToolTypeFlags.PICKAXE, ToolLevelFlags.STONE));
+		flagSets.add(flags(PlayerFlags.SURVIVAL, ToolTypeFlags.PICKAXE, ToolLevelFlags.IRON, ToolEnchantFlags.SILK_TOUCH));
+		flagSets.add(flags(PlayerFlags.SURVIVAL, ToolTypeFlags.PICKAXE, ToolLevelFlags.DIAMOND, BlockFlags.SEEDS, BlockFlags.FULLY_GROWN));
+		flagSets.add(flags(PlayerFlags.SURVIVAL, ToolTypeFlags.AXE, ToolLevelFlags.GOLD, BlockFlags.SEEDS));
+		// Run twice to test both freshly evaluated and remembered flag combinations
+		for (int pass = 0; pass < 2; pass++) {
+			for (Set<Flag> flags : flagSets) {
+				for (int seed = 0; seed < SEEDS; seed++) {
+					List<ItemStack> expected = drops.getDrops(new Random(seed), flags);
+					List<ItemStack> actual = compiled.getDrops(new Random(seed), flags, new ArrayList<ItemStack>());
+					assertEquals(expected.size(), actual.size());
+					for (int i = 0; i < expected.size(); i++) {
+						assertEquals(expected.get(i).getMaterial(), actual.get(i).getMaterial());
+						assertEquals(expected.get(i).getAmount(), actual.get(i).getAmount());
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testChangeAfterCompile() {
+		BlockDrops drops = new BlockDrops();
+		drops.DEFAULT.add(VanillaMaterials.DIRT);
+		drops.compile();
+		Set<Flag> flags = flags(PlayerFlags.SURVIVAL);
+		assertEquals(1, drops.getDrops(new Random(0), flags).size());
+
+		drops.DEFAULT.add(VanillaMaterials.COBBLESTONE);
+		assertEquals(2, drops.getDrops(new Random(0), flags).size());
+		drops.NOT_CREATIVE.addFlags(ToolTypeFlags.PICKAXE);
+		assertEquals(0, drops.getDrops(new Random(0), flags).size());
+	}
+
+	@Test
+	public void testMask() {
+		BlockDrops drops = new BlockDrops();
+		drops.SILK_TOUCH.add(VanillaMaterials.GRAVEL);
+		drops.DEFAULT.add(VanillaMaterials.FLINT).setChance(0.5);
+		drops.DEFAULT.add(VanillaMaterials.SEEDS, 0, 1, 2).addFlags(BlockFlags.SEEDS);
+		drops.compile();
+
+		FlagMaskSet maskSet = new FlagMaskSet();
+		maskSet.add(PlayerFlags.SURVIVAL);
+		maskSet.add(BlockFlags.SEEDS);
+		assertEquals(flags(PlayerFlags.SURVIVAL, BlockFlags.SEEDS), maskSet);
+		for (int seed = 0; seed < SEEDS; seed++) {
+			List<ItemStack> expected = drops.getDrops(new Random(seed), flags(PlayerFlags.SURVIVAL, BlockFlags.SEEDS));
+			List<ItemStack> actual = drops.getDrops(new Random(seed), maskSet.getMask(), new ArrayList<ItemStack>());
+			assertEquals(expected.size(), actual.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.get(i).getMaterial(), actual.get(i).getMaterial());
+				assertEquals(expected.get(i).getAmount(), actual.get(i).getAmount());
+			}
+		}
+	}
+
+	private static Set<Flag> flags(Flag... flags) {
+		Set<Flag> set = new HashSet<Flag>();
+		for (Flag flag : flags) {
+			set.add(flag);
+		}
+		return set;
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.inventory.recipe;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import org.spout.api.inventory.recipe.Recipe;
+import org.spout.api.inventory.recipe.RecipeManager;
+import org.spout.api.inventory.recipe.SimpleRecipeManager;
+import org.spout.api.material.Material;
+import org.spout.api.material.MaterialRegistry;
+import org.spout.cereal.config.ConfigurationException;
+import org.spout.cereal.config.ConfigurationNode;
+import org.spout.cereal.config.yaml.YamlConfiguration;
+
+import org.spout.vanilla.EngineFaker;
+import org.spout.vanilla.data.resources.loader.RecipeLoader;
+import org.spout.vanilla.material.VanillaMaterials;
+
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RecipeIndexTest {
+	private static final String RECIPES = "src/main/resources/recipes.yml";
+
+	static {
+		EngineFaker.setupEngine();
+		VanillaMaterials.initialize();
+	}
+
+	@Test
+	public void testSameRecipes() throws IOException, ConfigurationException {
+		RecipeManager manager = new SimpleRecipeManager();
+		InputStream in = new FileInputStream(RECIPES);
+		try {
+			for (Recipe recipe : new RecipeLoader().load(in).getRecipes().values()) {
+				manager.register(recipe);
+			}
+		} finally {
+			in.close();
+		}
+
+		RecipeIndex index = new RecipeIndex();
+		int matched = 0;
+		for (Material[] slots : getGrids()) {
+			int width = slots.length == 4 ? 2 : 3;
+			Recipe expected = matchDirectly(manager, slots, width);
+			// The second lookup is answered from the index
+			assertSame(expected, matchIndexed(index, manager, slots, width));
+			assertSame(expected, matchIndexed(index, manager, slots, width));
+			if (expected != null) {
+				matched++;
+			}
+		}
+		assertTrue(matched > 0);
+	}
+
+	/**
+	 * The lookup CraftingInventory did before the index was added
+	 */
+	private static Recipe matchDirectly(RecipeManager manager, Material[] slots, int width) {
+		List<List<Material>> materials = new ArrayList<List<Material>>();
+		List<Material> shapeless = new ArrayList<Material>();
+		for (int row = 0; row < slots.length / width; row++) {
+			List<Material> current = new ArrayList<Material>();
+			for (int column = 0; column < width; column++) {
+				Material material = slots[row * width + column];
+				current.add(material);
+				if (material != null) {
+					shapeless.add(material);
+				}
+			}
+			materials.add(current);
+		}
+		Collections.reverse(materials);
+		Recipe recipe = manager.matchShapedRecipe(materials);
+		if (recipe == null) {
+			recipe = manager.matchShapelessRecipe(shapeless);
+		}
+		return recipe;
+	}
+
+	/**
+	 * The lookup CraftingInventory does now
+	 */
+	private static Recipe matchIndexed(RecipeIndex index, RecipeManager manager, Material[] slots, int width) {
+		int rows = slots.length / width;
+		Material[] materials = new Material[slots.length];
+		for (int i = 0; i < slots.length; i++) {
+			materials[(rows - 1 - i / width) * width + i % width] = slots[i];
+		}
+		return index.match(manager, materials, width, rows);
+	}
+
+	/**
+	 * Lays out every crafting recipe of recipes.yml in the 2x2 and 3x3 grids, at every offset and in both row orders
+	 */
+	private static List<Material[]> getGrids() throws IOException, ConfigurationException {
+		List<Material[]> grids = new ArrayList<Material[]>();
+		InputStream in = new FileInputStream(RECIPES);
+		try {
+			YamlConfiguration config = new YamlConfiguration(in);
+			config.load();
+			ConfigurationNode recipes = config.getChild("recipes");
+			for (String key : recipes.getKeys(false)) {
+				ConfigurationNode recipe = recipes.getNode(key);
+				String type = recipe.getNode("type").getString();
+				if (type.equalsIgnoreCase("Shaped")) {
+					Map<Character, Material> ingredients = new HashMap<Character, Material>();
+					for (String ingredient : recipe.getNode("ingredients").getKeys(false)) {
+						ingredients.put(ingredient.charAt(0), MaterialRegistry.get(recipe.getNode("ingredients").getNode(ingredient).getString()));
+					}
+					List<String> rows = recipe.getNode("rows").getStringList();
+					for (int width = 2; width <= 3; width++) {
+						addShaped(grids, rows, ingredients, width);
+						List<String> reversed = new ArrayList<String>(rows);
+						Collections.reverse(reversed);
+						addShaped(grids, reversed, ingredients, width);
+					}
+				} else if (type.equalsIgnoreCase("Shapeless")) {
+					List<Material> ingredients = new ArrayList<Material>();
+					for (String ingredient : recipe.getNode("ingredients").getStringList(new ArrayList<String>())) {
+						ingredients.add(MaterialRegistry.get(ingredient));
+					}
+					for (int size = 4; size <= 9; size += 5) {
+						if (ingredients.size() > size) {
+							continue;
+						}
+						Material[] first = new Material[size];
+						Material[] last = new Material[size];
+						for (int i = 0; i < ingredients.size(); i++) {
+							first[i] = ingredients.get(i);
+							last[size - 1 - i] = ingredients.get(i);
+						}
+						grids.add(first);
+						grids.add(last);
+					}
+				}
+			}
+		} finally {
+			in.close();
+		}
+		return grids;
+	}
+
+	private static void addShaped(List<Material[]> grids, List<String> rows, Map<Character, Material> ingredients, int width) {
+		int recipeWidth = 0;
+		for (String row : rows) {
+			recipeWidth = Math.max(recipeWidth, row.length());
+		}
+		for (int offsetY = 0; offsetY + rows.size() <= width; offsetY++) {
+			for (int offsetX = 0; offsetX + recipeWidth <= width; offsetX++) {
+				Material[] slots = new Material[width * width];
+				for (int y = 0; y < rows.size(); y++) {
+					String row = rows.get(y);
+					for (int x = 0; x < row.length(); x++) {
+						slots[(offsetY + y) * width + offsetX + x] = ingredients.get(row.charAt(x));
+					}
+				}
+				grids.add(slots);
+			}
+		}
+	}
+}
@@ -0,0 +1,219 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.inventory.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.spout.api.inventory.Inventory;
+import org.spout.api.inventory.ItemStack;
+import org.spout.api.inventory.Slot;
+
+import org.spout.vanilla.EngineFaker;
+import org.spout.vanilla.inventory.block.HopperInventory;
+import org.spout.vanilla.material.VanillaMaterials;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class HopperTransferTest {
+	public HopperTransferTest() {
+		EngineFaker.setupEngine();
+	}
+
+	@Test
+	public void testCooldown() {
+		TestNode first = new TestNode(0);
+		TestNode second = new TestNode(0);
+		first.target = second;
+		first.getInventory().set(0, new ItemStack(VanillaMaterials.COBBLESTONE, 3));
+		HopperTransfer transfer = new HopperTransfer();
+		transfer.add(first);
+		transfer.add(second);
+
+		transfer.tick();
+		assertEquals(2, count(first));
+		assertEquals(1, count(second));
+		for (int i = 1; i < HopperTransfer.TRANSFER_COOLDOWN; i++) {
+			transfer.tick();
+			assertEquals(2, count(first));
+		}
+		transfer.tick();
+		assertEquals(1, count(first));
+		assertEquals(2, count(second));
+		assertEquals(2, transfer.getTransfers());
+	}
+
+	@Test
+	public void testPowered() {
+		TestNode first = new TestNode(0);
+		TestNode second = new TestNode(0);
+		first.target = second;
+		first.powered = true;
+		first.getInventory().set(0, new ItemStack(VanillaMaterials.COBBLESTONE, 1));
+		HopperTransfer transfer = new HopperTransfer();
+		transfer.add(first);
+		transfer.add(second);
+		for (int i = 0; i < 20; i++) {
+			transfer.tick();
+		}
+		assertEquals(1, count(first));
+		assertEquals(0, count(second));
+	}
+
+	@Test
+	public void testChainOrder() {
+		final int length = 6;
+		List<TestNode> forward = createChain(length);
+		List<TestNode> backward = createChain(length);
+		HopperTransfer forwardTransfer = new HopperTransfer();
+		HopperTransfer backwardTransfer = new HopperTransfer();
+		for (int i = 0; i < length; i++) {
+			forwardTransfer.add(forward.get(i));
+			backwardTransfer.add(backward.get(length - 1 - i));
+		}
+
+		for (int tick = 0; tick < 200; tick++) {
+			forwardTransfer.tick();
+			backwardTransfer.tick();
+			for (int i = 0; i < length; i++) {
+				assertEquals("Hopper " + i + " at tick " + tick, count(forward.get(i)), count(backward.get(i)));
+			}
+		}
+		// Every item reached the end of the chain
+		assertEquals(0, count(forward.get(0)));
+		assertEquals(10, count(forward.get(length - 1)));
+	}
+
+	@Test
+	public void testOneHopPerCooldown() {
+		List<TestNode> chain = createChain(4);
+		HopperTransfer transfer = new HopperTransfer();
+		for (int i = chain.size() - 1; i >= 0; i--) {
+			transfer.add(chain.get(i));
+		}
+		transfer.tick();
+		assertEquals(1, count(chain.get(1)));
+		assertEquals(0, count(chain.get(2)));
+		for (int i = 0; i < HopperTransfer.TRANSFER_COOLDOWN; i++) {
+			transfer.tick();
+		}
+		assertEquals(1, count(chain.get(2)));
+		assertEquals(0, count(chain.get(3)));
+	}
+
+	@Test
+	public void testInsertMerges() {
+		Inventory inventory = new HopperInventory();
+		inventory.set(3, new ItemStack(VanillaMaterials.COBBLESTONE, 5));
+		Slot target = HopperTransfer.insert(new ItemStack(VanillaMaterials.COBBLESTONE, 1), HopperTransfer.slots(inventory));
+		assertEquals(3, target.getIndex());
+		assertEquals(6, inventory.get(3).getAmount());
+		assertNull(inventory.get(0));
+
+		target = HopperTransfer.insert(new ItemStack(VanillaMaterials.DIRT, 1), HopperTransfer.slots(inventory));
+		assertEquals(0, target.getIndex());
+	}
+
+	private static List<TestNode> createChain(int length) {
+		List<TestNode> chain = new ArrayList<TestNode>();
+		for (int i = 0; i < length; i++) {
+			// Spread the chain over two chunk columns
+			chain.add(new TestNode(i < length / 2 ? 0 : 1));
+		}
+		for (int i = 0; i < length - 1; i++) {
+			chain.get(i).target = chain.get(i + 1);
+		}
+		chain.get(0).getInventory().set(0, new ItemStack(VanillaMaterials.COBBLESTONE, 10));
+		return chain;
+	}
+
+	private static int count(TestNode node) {
+		int amount = 0;
+		for (int i = 0; i < node.getInventory().size(); i++) {
+			ItemStack item = node.getInventory().get(i);
+			if (item != null) {
+				amount += item.getAmount();
+			}
+		}
+		return amount;
+	}
+
+	private static class TestNode implements HopperTransfer.Node {
+		private final long column;
+		private final Inventory inventory = new HopperInventory();
+		private TestNode target;
+		private boolean powered = false;
+		private int cooldown = 0;
+
+		private TestNode(long column) {
+			this.column = column;
+		}
+
+		@Override
+		public long getColumn() {
+			return column;
+		}
+
+		@Override
+		public Inventory getInventory() {
+			return inventory;
+		}
+
+		@Override
+		public boolean isPowered() {
+			return powered;
+		}
+
+		@Override
+		public Slot[] getOutput() {
+			return target == null ? null : HopperTransfer.slots(target.getInventory());
+		}
+
+		@Override
+		public Slot[] getInput() {
+			return null;
+		}
+
+		@Override
+		public boolean collectItems() {
+			return false;
+		}
+
+		@Override
+		public int getCooldown() {
+			return cooldown;
+		}
+
+		@Override
+		public void setCooldown(int cooldown) {
+			this.cooldown = cooldown;
+		}
+	}
+}
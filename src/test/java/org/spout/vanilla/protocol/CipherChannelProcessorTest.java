@@ -0,0 +1,104 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.protocol;
+
+import java.util.Random;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.engines.AESFastEngine;
+import org.bouncycastle.crypto.modes.CFBBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+
+public class CipherChannelProcessorTest {
+	private static final byte[] SECRET = new byte[16];
+	private static final byte[] DATA = new byte[10000];
+
+	static {
+		Random random = new Random(1);
+		random.nextBytes(SECRET);
+		random.nextBytes(DATA);
+	}
+
+	@Test
+	public void testMatchesBouncyCastle() {
+		BufferedBlockCipher reference = new BufferedBlockCipher(new CFBBlockCipher(new AESFastEngine(), 8));
+		reference.init(true, new ParametersWithIV(new KeyParameter(SECRET), SECRET));
+		byte[] expected = new byte[DATA.length];
+		reference.processBytes(DATA, 0, DATA.length, expected, 0);
+
+		assertArrayEquals(expected, encrypt(Unpooled.buffer(DATA.length)));
+		assertArrayEquals(expected, encrypt(Unpooled.directBuffer(DATA.length)));
+	}
+
+	@Test
+	public void testRoundTrip() {
+		CipherChannelProcessor encrypt = new CipherChannelProcessor(StreamEncryption.getCipher("AES", "CFB8", SECRET, true));
+		CipherChannelProcessor decrypt = new CipherChannelProcessor(StreamEncryption.getCipher("AES", "CFB8", SECRET, false));
+		ByteBuf buf = Unpooled.copiedBuffer(DATA);
+		// Process in uneven chunks, the stream state must carry over between buffers
+		for (int start = 0; start < DATA.length; start += 777) {
+			ByteBuf slice = buf.slice(start, Math.min(777, DATA.length - start));
+			encrypt.process(slice);
+			decrypt.process(slice);
+		}
+		byte[] result = new byte[DATA.length];
+		buf.getBytes(0, result);
+		assertArrayEquals(DATA, result);
+	}
+
+	@Test
+	public void testWriteLeavesInput() {
+		CipherChannelProcessor processor = new CipherChannelProcessor(StreamEncryption.getCipher("AES", "CFB8", SECRET, true));
+		ByteBuf input = Unpooled.copiedBuffer(DATA);
+		ByteBuf output = processor.write(null, input);
+		assertNotSame(input, output);
+		assertFalse(input.isReadable());
+		byte[] original = new byte[DATA.length];
+		input.getBytes(0, original);
+		assertArrayEquals(DATA, original);
+		byte[] result = new byte[DATA.length];
+		output.readBytes(result);
+		assertArrayEquals(encrypt(Unpooled.buffer(DATA.length)), result);
+	}
+
+	private static byte[] encrypt(ByteBuf buf) {
+		CipherChannelProcessor processor = new CipherChannelProcessor(StreamEncryption.getCipher("AES", "CFB8", SECRET, true));
+		buf.writeBytes(DATA);
+		processor.process(buf);
+		byte[] result = new byte[DATA.length];
+		buf.readBytes(result);
+		return result;
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.protocol;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.bouncycastle.crypto.BufferedBlockCipher;
+import org.bouncycastle.crypto.engines.AESFastEngine;
+import org.bouncycastle.crypto.modes.CFBBlockCipher;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.bouncycastle.crypto.params.ParametersWithIV;
+import org.junit.Test;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Compares the throughput per core of the BouncyCastle and JCE AES/CFB8 stream ciphers, with one cipher per available processor.<br><br>
+ *
+ * Skipped unless run with -Dvanilla.benchmark=true, the results are written to the "Vanilla.Benchmark" logger.
+ */
+public class EncryptionBenchmark {
+	private static final Logger LOGGER = Logger.getLogger("Vanilla.Benchmark");
+	private static final int PACKET_SIZE = 1024;
+	private static final int TOTAL = 64 * 1024 * 1024;
+	private static final int ROUNDS = 3;
+	private static final byte[] SECRET = new byte[16];
+	private static final byte[] DATA = new byte[PACKET_SIZE];
+
+	static {
+		Random random = new Random(1);
+		random.nextBytes(SECRET);
+		random.nextBytes(DATA);
+	}
+
+	@Test
+	public void benchmark() throws Exception {
+		assumeTrue(Boolean.getBoolean("vanilla.benchmark"));
+		final int cores = Runtime.getRuntime().availableProcessors();
+		ExecutorService executor = Executors.newFixedThreadPool(cores);
+		try {
+			for (int round = 1; round <= ROUNDS; round++) {
+				LOGGER.info("Round " + round + " on " + cores + " cores, in MB/s per core");
+				LOGGER.info("    BouncyCastle, 32 byte chunks: " + perCore(executor, cores, new Callable<Float>() {
+					@Override
+					public Float call() {
+						return benchmarkBouncyCastle();
+					}
+				}));
+				LOGGER.info("    JCE, heap buffer: " + perCore(executor, cores, new Callable<Float>() {
+					@Override
+					public Float call() {
+						return benchmarkJCE(Unpooled.buffer(PACKET_SIZE));
+					}
+				}));
+				LOGGER.info("    JCE, direct buffer: " + perCore(executor, cores, new Callable<Float>() {
+					@Override
+					public Float call() {
+						return benchmarkJCE(Unpooled.directBuffer(PACKET_SIZE));
+					}
+				}));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static float perCore(ExecutorService executor, int cores, Callable<Float> task) throws Exception {
+		List<Future<Float>> results = new ArrayList<Future<Float>>(cores);
+		for (int i = 0; i < cores; i++) {
+			results.add(executor.submit(task));
+		}
+		float total = 0;
+		for (Future<Float> result : results) {
+			total += result.get();
+		}
+		return total / cores;
+	}
+
+	private static float benchmarkBouncyCastle() {
+		BufferedBlockCipher cipher = new BufferedBlockCipher(new CFBBlockCipher(new AESFastEngine(), 8));
+		cipher.init(true, new ParametersWithIV(new KeyParameter(SECRET), SECRET));
+		// Mirrors the chunked processing of the EncryptionChannelProcessor
+		byte[] chunk = new byte[32];
+		long start = System.nanoTime();
+		for (int done = 0; done < TOTAL; done += DATA.length) {
+			for (int offset = 0; offset < DATA.length; offset += chunk.length) {
+				cipher.processBytes(DATA, offset, chunk.length, chunk, 0);
+			}
+		}
+		return toMegabytesPerSecond(System.nanoTime() - start);
+	}
+
+	private static float benchmarkJCE(ByteBuf buf) {
+		CipherChannelProcessor processor = new CipherChannelProcessor(StreamEncryption.getCipher("AES", "CFB8", SECRET, true));
+		buf.writeBytes(DATA);
+		long start = System.nanoTime();
+		for (int done = 0; done < TOTAL; done += DATA.length) {
+			processor.process(buf);
+		}
+		return toMegabytesPerSecond(System.nanoTime() - start);
+	}
+
+	private static float toMegabytesPerSecond(long nanos) {
+		return (TOTAL / (1024F * 1024F)) / (nanos / 1E9F);
+	}
+}
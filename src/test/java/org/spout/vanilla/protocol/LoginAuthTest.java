@@ -0,0 +1,156 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.protocol;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LoginAuthTest {
+	@Test
+	public void testSessionVerifier() throws IOException {
+		HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/checkserver.jsp", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				byte[] reply = (exchange.getRequestURI().getQuery().contains("user=Notch") ? "YES" : "NO").getBytes("UTF-8");
+				exchange.sendResponseHeaders(200, reply.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(reply);
+				out.close();
+			}
+		});
+		server.start();
+		try {
+			SessionVerifier verifier = new MinecraftSessionVerifier("http://127.0.0.1:" + server.getAddress().getPort() + "/checkserver.jsp", 5000);
+			assertTrue(verifier.verify("Notch", "-1a2b3c"));
+			assertFalse(verifier.verify("Spouty", "-1a2b3c"));
+		} finally {
+			server.stop(0);
+		}
+	}
+
+	@Test
+	public void testCoalescing() throws InterruptedException {
+		final CountDownLatch release = new CountDownLatch(1);
+		final AtomicInteger verifications = new AtomicInteger();
+		LoginAuth auth = new LoginAuth(new SessionVerifier() {
+			@Override
+			public boolean verify(String name, String serverId) throws IOException {
+				verifications.incrementAndGet();
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+				return true;
+			}
+		}, 2, 8, 10000);
+
+		ResultLatch first = new ResultLatch(1);
+		ResultLatch second = new ResultLatch(1);
+		auth.authenticate("Notch", "abc", first);
+		auth.authenticate("Notch", "abc", second);
+		release.countDown();
+		assertTrue(first.await());
+		assertTrue(second.await());
+		assertEquals(2, first.successes.get() + second.successes.get());
+		assertEquals(1, verifications.get());
+		assertEquals(1, auth.getCoalescedCount());
+
+		// A completed verification is not remembered
+		ResultLatch again = new ResultLatch(1);
+		auth.authenticate("Notch", "abc", again);
+		assertTrue(again.await());
+		assertEquals(1, again.successes.get());
+		assertEquals(2, verifications.get());
+		auth.shutdown();
+	}
+
+	@Test
+	public void testQueueLimit() throws InterruptedException {
+		final CountDownLatch release = new CountDownLatch(1);
+		LoginAuth auth = new LoginAuth(new SessionVerifier() {
+			@Override
+			public boolean verify(String name, String serverId) throws IOException {
+				try {
+					release.await();
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+				return false;
+			}
+		}, 1, 1, 10000);
+
+		ResultLatch results = new ResultLatch(3);
+		auth.authenticate("a", "1", results);
+		auth.authenticate("b", "2", results);
+		auth.authenticate("c", "3", results);
+		assertEquals(1, auth.getRejectedCount());
+		release.countDown();
+		assertTrue(results.await());
+		assertEquals(0, results.successes.get());
+		assertEquals(3, auth.getFailedCount());
+		auth.shutdown();
+	}
+
+	private static class ResultLatch implements LoginAuth.Callback {
+		private final CountDownLatch latch;
+		private final AtomicInteger successes = new AtomicInteger();
+
+		private ResultLatch(int count) {
+			latch = new CountDownLatch(count);
+		}
+
+		@Override
+		public void onSuccess() {
+			successes.incrementAndGet();
+			latch.countDown();
+		}
+
+		@Override
+		public void onFailure(String message) {
+			latch.countDown();
+		}
+
+		private boolean await() throws InterruptedException {
+			return latch.await(5, TimeUnit.SECONDS);
+		}
+	}
+}
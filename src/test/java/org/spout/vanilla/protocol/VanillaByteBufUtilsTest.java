@@ -76,4 +76,16 @@ public class VanillaByteBufUtilsTest {
 		writeString(buf, TEST_STRING);
 		assertEquals(TEST_STRING, readString(buf));
 	}
+
+	@Test
+	public void testStringBytes() throws Exception {
+		// Heap buffers take the bulk path, direct buffers the per char path
+		ByteBuf heap = Unpooled.buffer();
+		ByteBuf direct = Unpooled.directBuffer();
+		writeString(heap, TEST_STRING + "\u00A7\uD83D\uDE00");
+		writeString(direct, TEST_STRING + "\u00A7\uD83D\uDE00");
+		assertEquals(direct, heap);
+		assertEquals(TEST_STRING + "\u00A7\uD83D\uDE00", readString(direct));
+		assertEquals(TEST_STRING + "\u00A7\uD83D\uDE00", readString(heap));
+	}
 }
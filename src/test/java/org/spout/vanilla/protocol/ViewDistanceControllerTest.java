@@ -0,0 +1,136 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.protocol;
+
+import org.junit.Test;
+
+import org.spout.vanilla.EngineFaker;
+import org.spout.vanilla.command.AdministrationCommands.TPSMonitor;
+
+import static org.junit.Assert.assertEquals;
+
+public class ViewDistanceControllerTest {
+	private static final int MIN = 3, MAX = 6, LOWER_DELAY = 4, RAISE_DELAY = 10;
+
+	@Test
+	public void testLowerAfterDelay() {
+		FakeMonitor monitor = new FakeMonitor();
+		ViewDistanceController controller = create(monitor);
+		assertEquals(MAX, controller.getDistance());
+
+		monitor.tps = 15f;
+		tick(controller, LOWER_DELAY - 1);
+		assertEquals(MAX, controller.getDistance());
+		tick(controller, 1);
+		assertEquals(MAX - 1, controller.getDistance());
+		tick(controller, LOWER_DELAY);
+		assertEquals(MAX - 2, controller.getDistance());
+	}
+
+	@Test
+	public void testRespectsBounds() {
+		FakeMonitor monitor = new FakeMonitor();
+		ViewDistanceController controller = create(monitor);
+
+		monitor.tps = 5f;
+		tick(controller, LOWER_DELAY * (MAX - MIN + 5));
+		assertEquals(MIN, controller.getDistance());
+		assertEquals(MIN, controller.limit(16));
+		assertEquals(2, controller.limit(2));
+
+		monitor.tps = 20f;
+		tick(controller, RAISE_DELAY * (MAX - MIN + 5));
+		assertEquals(MAX, controller.getDistance());
+	}
+
+	@Test
+	public void testRaiseAfterDelay() {
+		FakeMonitor monitor = new FakeMonitor();
+		ViewDistanceController controller = create(monitor);
+		monitor.tps = 15f;
+		tick(controller, LOWER_DELAY);
+		assertEquals(MAX - 1, controller.getDistance());
+
+		monitor.tps = 20f;
+		tick(controller, RAISE_DELAY - 1);
+		assertEquals(MAX - 1, controller.getDistance());
+		tick(controller, 1);
+		assertEquals(MAX, controller.getDistance());
+	}
+
+	@Test
+	public void testMiddleBandResetsCounters() {
+		FakeMonitor monitor = new FakeMonitor();
+		ViewDistanceController controller = create(monitor);
+
+		// Slow ticks interrupted by a tick between the thresholds never add up
+		for (int i = 0; i < 10; i++) {
+			monitor.tps = 15f;
+			tick(controller, LOWER_DELAY - 1);
+			monitor.tps = 18.5f;
+			tick(controller, 1);
+		}
+		assertEquals(MAX, controller.getDistance());
+
+		monitor.tps = 15f;
+		tick(controller, LOWER_DELAY);
+		assertEquals(MAX - 1, controller.getDistance());
+
+		// Neither do fast ticks
+		for (int i = 0; i < 10; i++) {
+			monitor.tps = 20f;
+			tick(controller, RAISE_DELAY - 1);
+			monitor.tps = 18.5f;
+			tick(controller, 1);
+		}
+		assertEquals(MAX - 1, controller.getDistance());
+	}
+
+	private static ViewDistanceController create(TPSMonitor monitor) {
+		return new ViewDistanceController(EngineFaker.setupEngine(), monitor, MIN, MAX, 18f, 19.5f, LOWER_DELAY, RAISE_DELAY);
+	}
+
+	private static void tick(ViewDistanceController controller, int ticks) {
+		for (int i = 0; i < ticks; i++) {
+			controller.run();
+		}
+	}
+
+	private static class FakeMonitor implements TPSMonitor {
+		private float tps = 20f;
+
+		@Override
+		public float getTPS() {
+			return tps;
+		}
+
+		@Override
+		public float getAvgTPS() {
+			return tps;
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.protocol.rcon;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.logging.Logger;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.CorruptedFrameException;
+import org.junit.Test;
+
+import org.spout.api.protocol.Message;
+import org.spout.api.protocol.MessageCodec;
+
+import org.spout.vanilla.protocol.BaseProtocolTest;
+import org.spout.vanilla.protocol.rcon.msg.AuthMessage;
+import org.spout.vanilla.protocol.rcon.msg.CommandMessage;
+import org.spout.vanilla.protocol.rcon.msg.CommandResponseMessage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RconProtocolTest extends BaseProtocolTest {
+	private static final RconCodecLookupService CODEC_LOOKUP = new RconCodecLookupService();
+	private static final Message[] TEST_MESSAGES = new Message[] {
+			new AuthMessage(1, "password"),
+			new CommandMessage(2, "say hello"),
+			new CommandResponseMessage(3, "Hello"),
+			new CommandResponseMessage(4, "")
+	};
+
+	public RconProtocolTest() {
+		super(CODEC_LOOKUP, TEST_MESSAGES);
+	}
+
+	@Test
+	public void testRoundTrip() {
+		RemoteConnectionSession session = createSession();
+		EmbeddedChannel encoder = new EmbeddedChannel(new RconEncoder(session));
+		EmbeddedChannel decoder = new EmbeddedChannel(new RconDecoder(session));
+		for (Message message : TEST_MESSAGES) {
+			encoder.writeOutbound(message);
+			decoder.writeInbound(encoder.readOutbound());
+			assertEquals(message, decoder.readInbound());
+		}
+		assertNull(decoder.readInbound());
+	}
+
+	@Test
+	public void testSplitFrame() {
+		RemoteConnectionSession session = createSession();
+		EmbeddedChannel encoder = new EmbeddedChannel(new RconEncoder(session));
+		CommandMessage first = new CommandMessage(5, "list");
+		CommandMessage second = new CommandMessage(6, "time set 0");
+		encoder.writeOutbound(first, second);
+		ByteBuf stream = Unpooled.wrappedBuffer((ByteBuf) encoder.readOutbound(), (ByteBuf) encoder.readOutbound());
+
+		// Feed the two packets in pieces cutting through the length field and the payload
+		EmbeddedChannel decoder = new EmbeddedChannel(new RconDecoder(session));
+		decoder.writeInbound(stream.readBytes(2));
+		assertNull(decoder.readInbound());
+		decoder.writeInbound(stream.readBytes(9));
+		assertNull(decoder.readInbound());
+		decoder.writeInbound(stream.readBytes(stream.readableBytes() - 3));
+		assertEquals(first, decoder.readInbound());
+		assertNull(decoder.readInbound());
+		decoder.writeInbound(stream.readBytes(3));
+		assertEquals(second, decoder.readInbound());
+		assertNull(decoder.readInbound());
+	}
+
+	@Test (expected = CorruptedFrameException.class)
+	public void testOversizeLength() {
+		ByteBuf buffer = Unpooled.buffer().order(ByteOrder.LITTLE_ENDIAN);
+		buffer.writeInt(RconDecoder.MAX_REQUEST_LENGTH + 1);
+		// Rejected from the length alone, before the rest of the packet arrived
+		new EmbeddedChannel(new RconDecoder(createSession())).writeInbound(buffer);
+	}
+
+	@Test (expected = CorruptedFrameException.class)
+	public void testUndersizeLength() {
+		ByteBuf buffer = Unpooled.buffer().order(ByteOrder.LITTLE_ENDIAN);
+		buffer.writeInt(RconDecoder.MIN_REQUEST_LENGTH - 1);
+		new EmbeddedChannel(new RconDecoder(createSession())).writeInbound(buffer);
+	}
+
+	@Test
+	public void testMultiPacketResponse() throws IOException {
+		RemoteConnectionSession session = createSession();
+		EmbeddedChannel channel = new EmbeddedChannel(new RconEncoder(session));
+		session.setChannel(channel);
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; builder.length() < RemoteConnectionSession.MAX_RESPONSE_LENGTH * 5 / 2; i++) {
+			builder.append("line ").append(i).append('\n');
+		}
+		String text = builder.toString();
+		session.sendResponse(7, text);
+
+		StringBuilder received = new StringBuilder();
+		int packets = 0;
+		ByteBuf packet;
+		while ((packet = (ByteBuf) channel.readOutbound()) != null) {
+			CommandResponseMessage message = decodeResponse(packet);
+			assertEquals(7, message.getRequestId());
+			assertTrue(message.getPayload().length() <= RemoteConnectionSession.MAX_RESPONSE_LENGTH);
+			received.append(message.getPayload());
+			packets++;
+		}
+		assertEquals(3, packets);
+		assertEquals(text, received.toString());
+
+		// An empty response, such as the one ending a split response, is still sent
+		session.sendResponse(8, "");
+		assertEquals(new CommandResponseMessage(8, ""), decodeResponse((ByteBuf) channel.readOutbound()));
+		assertNull(channel.readOutbound());
+	}
+
+	/**
+	 * Decodes a response the way a client does. Responses may exceed the request limit of the {@link RconDecoder}.
+	 */
+	@SuppressWarnings ("unchecked")
+	private static CommandResponseMessage decodeResponse(ByteBuf packet) throws IOException {
+		ByteBuf buffer = packet.order(ByteOrder.LITTLE_ENDIAN);
+		int length = buffer.readInt();
+		assertEquals(length, buffer.readableBytes());
+		int opcode = buffer.getInt(buffer.readerIndex() + 4);
+		MessageCodec<CommandResponseMessage> codec = (MessageCodec<CommandResponseMessage>) CODEC_LOOKUP.find(opcode);
+		return codec.decode(buffer);
+	}
+
+	private static RemoteConnectionSession createSession() {
+		return new RemoteConnectionSession(new RemoteConnectionCore(Logger.getLogger("Rcon")) {
+			@Override
+			public void close() {
+			}
+		});
+	}
+}
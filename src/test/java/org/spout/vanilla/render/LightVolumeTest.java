@@ -0,0 +1,181 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.render;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import gnu.trove.list.array.TFloatArrayList;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import org.spout.api.geo.cuboid.Chunk;
+import org.spout.api.geo.cuboid.ChunkSnapshot;
+import org.spout.api.geo.cuboid.ChunkSnapshotModel;
+import org.spout.api.material.BlockMaterial;
+
+import org.spout.vanilla.EngineFaker;
+import org.spout.vanilla.material.VanillaMaterials;
+import org.spout.vanilla.world.lighting.VanillaCuboidLightBuffer;
+import org.spout.vanilla.world.lighting.VanillaLighting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LightVolumeTest {
+	private static final int SIZE = LightVolume.SIZE;
+	private static final int BASE_X = -16, BASE_Y = 32, BASE_Z = 16;
+
+	static {
+		EngineFaker.setupEngine();
+	}
+
+	@Test
+	public void testSameLightAsSnapshots() {
+		Random random = new Random(1);
+		ChunkSnapshotModel model = createModel(random);
+		LightVolume volume = LightVolume.build(model, BASE_X, BASE_Y, BASE_Z);
+		LightBufferEffect effect = new LightBufferEffect();
+		TFloatArrayList light = new TFloatArrayList();
+		TFloatArrayList skylight = new TFloatArrayList();
+		float[] sample = new float[2];
+		// Every block corner of the chunk, including the faces shared with the missing neighbour
+		for (int x = 0; x <= Chunk.BLOCKS.SIZE; x++) {
+			for (int y = 0; y <= Chunk.BLOCKS.SIZE; y++) {
+				for (int z = 0; z <= Chunk.BLOCKS.SIZE; z++) {
+					assertSameLight(model, volume, effect, BASE_X + x, BASE_Y + y, BASE_Z + z, light, skylight, sample);
+				}
+			}
+		}
+		// Vertices inside blocks
+		for (int i = 0; i < 2000; i++) {
+			float x = BASE_X + random.nextInt(Chunk.BLOCKS.SIZE * 2 + 1) * 0.5f;
+			float y = BASE_Y + random.nextInt(Chunk.BLOCKS.SIZE * 2 + 1) * 0.5f;
+			float z = BASE_Z + random.nextInt(Chunk.BLOCKS.SIZE * 2 + 1) * 0.5f;
+			assertSameLight(model, volume, effect, x, y, z, light, skylight, sample);
+		}
+	}
+
+	@Test
+	public void testContains() {
+		LightVolume volume = new LightVolume(BASE_X - 1, BASE_Y - 1, BASE_Z - 1, new short[SIZE * SIZE * SIZE]);
+		assertTrue(volume.contains(BASE_X, BASE_Y, BASE_Z));
+		assertTrue(volume.contains(BASE_X + SIZE - 2, BASE_Y + SIZE - 2, BASE_Z + SIZE - 2));
+		assertTrue(volume.contains(BASE_X - 0.5f, BASE_Y - 0.5f, BASE_Z - 0.5f));
+		assertFalse(volume.contains(BASE_X - 1, BASE_Y, BASE_Z));
+		assertFalse(volume.contains(BASE_X, BASE_Y + SIZE - 1, BASE_Z));
+	}
+
+	@Test
+	public void testAllExcluded() {
+		short[] cells = new short[SIZE * SIZE * SIZE];
+		Arrays.fill(cells, LightVolume.EXCLUDED);
+		LightVolume volume = new LightVolume(0, 0, 0, cells);
+		float[] sample = new float[2];
+		volume.sample(5, 5, 5, sample);
+		assertEquals(0f, sample[0], 0f);
+		assertEquals(0f, sample[1], 0f);
+	}
+
+	private static void assertSameLight(ChunkSnapshotModel model, LightVolume volume, LightBufferEffect effect, float x, float y, float z, TFloatArrayList light, TFloatArrayList skylight, float[] sample) {
+		assertTrue(volume.contains(x, y, z));
+		volume.sample(x, y, z, sample);
+		effect.generateLightOnVertices(model, x, y, z, light, skylight);
+		assertEquals(light.get(light.size() - 1), sample[0], 0f);
+		assertEquals(skylight.get(skylight.size() - 1), sample[1], 0f);
+	}
+
+	/**
+	 * Creates the chunk and its 26 neighbours, leaving out the neighbour on the positive x side
+	 */
+	private static ChunkSnapshotModel createModel(Random random) {
+		final int chunkX = BASE_X >> Chunk.BLOCKS.BITS;
+		final int chunkY = BASE_Y >> Chunk.BLOCKS.BITS;
+		final int chunkZ = BASE_Z >> Chunk.BLOCKS.BITS;
+		final ChunkSnapshot[] snapshots = new ChunkSnapshot[27];
+		for (int dx = -1; dx <= 1; dx++) {
+			for (int dy = -1; dy <= 1; dy++) {
+				for (int dz = -1; dz <= 1; dz++) {
+					if (dx != 1 || dy != 0 || dz != 0) {
+						snapshots[(dx + 1) * 9 + (dy + 1) * 3 + dz + 1] = createSnapshot(random, chunkX + dx, chunkY + dy, chunkZ + dz);
+					}
+				}
+			}
+		}
+		ChunkSnapshotModel model = Mockito.mock(ChunkSnapshotModel.class);
+		Mockito.when(model.getChunkFromBlock(Matchers.anyInt(), Matchers.anyInt(), Matchers.anyInt())).thenAnswer(new Answer<ChunkSnapshot>() {
+			@Override
+			public ChunkSnapshot answer(InvocationOnMock invocation) throws Throwable {
+				Object[] args = invocation.getArguments();
+				int dx = ((Integer) args[0] >> Chunk.BLOCKS.BITS) - chunkX;
+				int dy = ((Integer) args[1] >> Chunk.BLOCKS.BITS) - chunkY;
+				int dz = ((Integer) args[2] >> Chunk.BLOCKS.BITS) - chunkZ;
+				if (Math.abs(dx) > 1 || Math.abs(dy) > 1 || Math.abs(dz) > 1) {
+					return null;
+				}
+				return snapshots[(dx + 1) * 9 + (dy + 1) * 3 + dz + 1];
+			}
+		});
+		return model;
+	}
+
+	private static ChunkSnapshot createSnapshot(Random random, int chunkX, int chunkY, int chunkZ) {
+		final int baseX = chunkX << Chunk.BLOCKS.BITS;
+		final int baseY = chunkY << Chunk.BLOCKS.BITS;
+		final int baseZ = chunkZ << Chunk.BLOCKS.BITS;
+		final boolean[] opaque = new boolean[Chunk.BLOCKS.VOLUME];
+		for (int i = 0; i < opaque.length; i++) {
+			opaque[i] = random.nextInt(4) == 0;
+		}
+		ChunkSnapshot snapshot = Mockito.mock(ChunkSnapshot.class);
+		Mockito.when(snapshot.getBlockMaterial(Matchers.anyInt(), Matchers.anyInt(), Matchers.anyInt())).thenAnswer(new Answer<BlockMaterial>() {
+			@Override
+			public BlockMaterial answer(InvocationOnMock invocation) throws Throwable {
+				Object[] args = invocation.getArguments();
+				int x = (Integer) args[0] & Chunk.BLOCKS.MASK;
+				int y = (Integer) args[1] & Chunk.BLOCKS.MASK;
+				int z = (Integer) args[2] & Chunk.BLOCKS.MASK;
+				return opaque[(x * Chunk.BLOCKS.SIZE + y) * Chunk.BLOCKS.SIZE + z] ? VanillaMaterials.STONE : VanillaMaterials.AIR;
+			}
+		});
+		Mockito.when(snapshot.getLightBuffer(VanillaLighting.BLOCK_LIGHT.getId())).thenReturn(createLight(random, VanillaLighting.BLOCK_LIGHT.getId(), baseX, baseY, baseZ));
+		Mockito.when(snapshot.getLightBuffer(VanillaLighting.SKY_LIGHT.getId())).thenReturn(createLight(random, VanillaLighting.SKY_LIGHT.getId(), baseX, baseY, baseZ));
+		return snapshot;
+	}
+
+	private static VanillaCuboidLightBuffer createLight(Random random, short id, int baseX, int baseY, int baseZ) {
+		// Two light levels per byte
+		byte[] data = new byte[Chunk.BLOCKS.VOLUME / 2];
+		random.nextBytes(data);
+		return new VanillaCuboidLightBuffer(null, id, baseX, baseY, baseZ, Chunk.BLOCKS.SIZE, Chunk.BLOCKS.SIZE, Chunk.BLOCKS.SIZE, data) {
+		};
+	}
+}
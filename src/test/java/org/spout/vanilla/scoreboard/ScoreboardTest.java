@@ -0,0 +1,115 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.scoreboard;
+
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import org.spout.api.component.entity.NetworkComponent;
+import org.spout.api.entity.Player;
+import org.spout.api.event.ProtocolEvent;
+
+import org.spout.vanilla.EntityMocker;
+import org.spout.vanilla.event.scoreboard.TeamActionEvent;
+import org.spout.vanilla.protocol.msg.scoreboard.ScoreboardTeamMessage;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ScoreboardTest {
+	@Test
+	public void testAddThenRemove() {
+		Scoreboard board = createScoreboard();
+		Team team = board.createTeam("red");
+		flush(board);
+
+		team.addPlayerName("bob");
+		team.removePlayerName("bob");
+		assertEquals(0, flush(board).size());
+	}
+
+	@Test
+	public void testRemoveThenAdd() {
+		Scoreboard board = createScoreboard();
+		Team team = board.createTeam("red");
+		team.addPlayerName("bob");
+		flush(board);
+
+		team.removePlayerName("bob");
+		team.addPlayerName("bob");
+		assertEquals(0, flush(board).size());
+	}
+
+	@Test
+	public void testMoveToOtherTeam() {
+		Scoreboard board = createScoreboard();
+		Team red = board.createTeam("red");
+		Team blue = board.createTeam("blue");
+		flush(board);
+
+		red.addPlayerName("bob");
+		red.removePlayerName("bob");
+		blue.addPlayerName("bob");
+		List<ProtocolEvent> events = flush(board);
+		assertEquals(1, events.size());
+		TeamActionEvent event = (TeamActionEvent) events.get(0);
+		assertEquals(blue, event.getTeam());
+		assertEquals(ScoreboardTeamMessage.ADD_PLAYERS, event.getAction());
+		assertArrayEquals(new String[] {"bob"}, event.getPlayers());
+	}
+
+	@Test
+	public void testMembershipMerged() {
+		Scoreboard board = createScoreboard();
+		Team team = board.createTeam("red");
+		team.addPlayerName("alice");
+		team.addPlayerName("bob");
+		List<ProtocolEvent> events = flush(board);
+		assertEquals(2, events.size());
+		TeamActionEvent members = (TeamActionEvent) events.get(1);
+		assertEquals(ScoreboardTeamMessage.ADD_PLAYERS, members.getAction());
+		assertArrayEquals(new String[] {"alice", "bob"}, members.getPlayers());
+	}
+
+	private static Scoreboard createScoreboard() {
+		Player player = EntityMocker.mockPlayer();
+		Mockito.when(player.getNetwork()).thenReturn(Mockito.mock(NetworkComponent.class));
+		return player.add(Scoreboard.class);
+	}
+
+	private static List<ProtocolEvent> flush(Scoreboard board) {
+		NetworkComponent network = board.getOwner().getNetwork();
+		Mockito.reset(network);
+		board.flush();
+		ArgumentCaptor<ProtocolEvent> events = ArgumentCaptor.forClass(ProtocolEvent.class);
+		Mockito.verify(network, Mockito.atLeast(0)).callProtocolEvent(events.capture());
+		return events.getAllValues();
+	}
+}
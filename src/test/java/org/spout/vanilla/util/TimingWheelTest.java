@@ -0,0 +1,81 @@
+/*
+ * This file is part of Vanilla.
+ *
+ * Copyright (c) 2011 Spout LLC <http://www.spout.org/>
+ * Vanilla is licensed under the Spout License Version 1.
+ *
+ * Vanilla is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU Lesser General Public License as published by the Free
+ * Software Foundation, either version 3 of the License, or (at your option)
+ * any later version.
+ *
+ * In addition, 180 days after any changes are published, you can use the
+ * software, incorporating those changes, under the terms of the MIT license,
+ * as described in the Spout License Version 1.
+ *
+ * Vanilla is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License for
+ * more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License,
+ * the MIT license and the Spout License Version 1 along with this program.
+ * If not, see <http://www.gnu.org/licenses/> for the GNU Lesser General Public
+ * License and see <http://spout.in/licensev1> for the full license, including
+ * the MIT license.
+ */
+package org.spout.vanilla.util;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelTest {
+	@Test
+	public void testExpiry() {
+		TimingWheel<Integer> wheel = new TimingWheel<Integer>(4);
+		for (int delay = 1; delay <= 20; delay++) {
+			wheel.schedule(delay, delay);
+		}
+		assertEquals(20, wheel.size());
+		for (int tick = 1; tick <= 20; tick++) {
+			List<Integer> expired = wheel.advance();
+			assertEquals(1, expired.size());
+			assertEquals(tick, (int) expired.get(0));
+		}
+		assertEquals(0, wheel.size());
+		assertTrue(wheel.advance().isEmpty());
+	}
+
+	@Test
+	public void testCancel() {
+		TimingWheel<String> wheel = new TimingWheel<String>(8);
+		TimingWheel.Handle<String> first = wheel.schedule("first", 10);
+		wheel.schedule("second", 10);
+		wheel.cancel(first);
+		wheel.cancel(first);
+		assertEquals(1, wheel.size());
+		for (int tick = 1; tick < 10; tick++) {
+			assertTrue(wheel.advance().isEmpty());
+		}
+		List<String> expired = wheel.advance();
+		assertEquals(1, expired.size());
+		assertEquals("second", expired.get(0));
+	}
+
+	@Test
+	public void testRemaining() {
+		TimingWheel<String> wheel = new TimingWheel<String>(16);
+		wheel.advance();
+		TimingWheel.Handle<String> handle = wheel.schedule("value", 100);
+		for (int tick = 0; tick < 40; tick++) {
+			wheel.advance();
+		}
+		assertEquals(60, wheel.getRemaining(handle));
+		wheel.cancel(handle);
+		assertEquals(0, wheel.getRemaining(handle));
+	}
+}